@@ -424,7 +424,7 @@ def fint(src, dst, label,
 #        events_and_max_idx[1][0] = max_idx
 
     def is_dest(fev, mev, vars, to_event):
-        return mev is to_event[0]        
+        return mev == to_event[0]
 #        if mev.getIndex() > max_ev_idx[0]:
 #            print "raising exc. at index ", mev.getIndex(), "max is ", max_ev_idx[0]
 #            raise AbortSearchException()
@@ -38,6 +38,15 @@ class marker(object):
 def set_property(prop, value):
     if prop == "model.sort-topologically":
         Main.setTopologicalSorting(value)
+
+def load(file_path):
+    """$descr{loads a model file, replacing the current model. In batch mode the
+    file is loaded without starting the GUI, so a script can check several files
+    in a single run.}
+    $header{Parameters}
+    $param{file_path}{String}{path of the model file to be loaded}
+    """
+    Main.load(file_path)
         
 ################ MODEL BROWSING FUNCTIONS ###############
 
@@ -36,8 +36,10 @@ import com.cisco.mscviewer.gui.MainPanel;
 import com.cisco.mscviewer.gui.graph.HeatGraphWindow;
 import com.cisco.mscviewer.io.JsonLoader;
 import com.cisco.mscviewer.io.Loader;
+import com.cisco.mscviewer.io.PNGSaver;
 import com.cisco.mscviewer.model.Entity;
 import com.cisco.mscviewer.model.Event;
+import com.cisco.mscviewer.model.IndexableLineFile;
 import com.cisco.mscviewer.model.Interaction;
 import com.cisco.mscviewer.model.MSCDataModel;
 import com.cisco.mscviewer.model.ViewModel;
@@ -75,6 +77,12 @@ public class Main {
     public static final String VERSION = "2.1.0";
     public static final boolean WITH_BLOCKS = true;
     private static boolean topologicalSorting = true;
+    private static int loaderThreads = Runtime.getRuntime().availableProcessors();
+    private static boolean modelCache = true;
+    private static int publishInterval = 500;
+    private static boolean followFile = false;
+    private static String exportPath;
+    private static int exportMode = PNGSaver.SAVE_ALL;
     
     private static Loader loader;
    @SuppressWarnings("unused")
@@ -143,7 +151,77 @@ public class Main {
                 void found(String arg) {
                     Main.topologicalSorting  = false;
                 }
-            }            
+            },
+            new Opt('j', "loader-threads", true,
+                    "number of threads parsing the input file (1 disables parallel loading)") {
+                @Override
+                void found(String arg) {
+                    try {
+                        Main.loaderThreads = Integer.parseInt(arg);
+                    } catch (final NumberFormatException ex) {
+                        System.err.println("Invalid number of loader threads " + arg);
+                        System.exit(1);
+                    }
+                }
+            },
+            new Opt('c', "no-model-cache", false,
+                    "always parses the input file, ignoring and not writing the binary model snapshot") {
+                @Override
+                void found(String arg) {
+                    Main.modelCache = false;
+                }
+            },
+            new Opt('i', "publish-interval", true,
+                    "milliseconds between updates of the view while loading (0 shows the model only once loaded)") {
+                @Override
+                void found(String arg) {
+                    try {
+                        Main.publishInterval = Integer.parseInt(arg);
+                    } catch (final NumberFormatException ex) {
+                        System.err.println("Invalid publish interval " + arg);
+                        System.exit(1);
+                    }
+                }
+            },
+            new Opt('f', "follow", false,
+                    "keeps reading the input file as it grows, like tail -f") {
+                @Override
+                void found(String arg) {
+                    Main.followFile = true;
+                }
+            },
+            new Opt('o', "spill-line-offsets", true,
+                    "keeps the offsets of the lines of files with more than the given lines in a memory-mapped file in the work directory") {
+                @Override
+                void found(String arg) {
+                    try {
+                        IndexableLineFile.setSpillThreshold(Integer.parseInt(arg));
+                    } catch (final NumberFormatException ex) {
+                        System.err.println("Invalid number of lines " + arg);
+                        System.exit(1);
+                    }
+                }
+            },
+            new Opt('e', "export-png", true,
+                    "saves all the entities, or with path,marked only the marked events, as a PNG image to path, without opening the GUI") {
+                @Override
+                void found(String arg) {
+                    Main.batchMode = true;
+                    final int idx = arg.indexOf(',');
+                    if (idx == -1) {
+                        Main.exportPath = arg;
+                    } else {
+                        Main.exportPath = arg.substring(0, idx);
+                        final String mode = arg.substring(idx + 1);
+                        if (mode.equals("marked"))
+                            Main.exportMode = PNGSaver.SAVE_MARKED;
+                        else if (!mode.equals("all")) {
+                            System.err.println("Invalid export mode " + mode);
+                            System.exit(1);
+                        }
+                    }
+                }
+            }
     };
 
     private Main() {}
@@ -191,8 +269,14 @@ public class Main {
             System.setProperty(PYPATH, Utils.getInstallDir()
                     + "/resources/default/script");
 
-            setupUIDefaults();
             final int idx = processOptions(args);
+            if (batchMode()) {
+                // batch jobs never open a window, and often run on hosts
+                // without a display
+                if (System.getProperty("java.awt.headless") == null)
+                    System.setProperty("java.awt.headless", "true");
+            } else
+                setupUIDefaults();
 
             final String fname = (idx < args.length) ? args[idx] : null;
             final Class<?> cl = Class.forName("com.cisco.mscviewer.io." + loaderClass);
@@ -238,6 +322,8 @@ public class Main {
                     p.eval(batchFun, sr);
                 }
             }
+            if (exportPath != null)
+                PNGSaver.writePNG(exportPath, null, exportMode);
         } catch(Exception t) {
             Report.exception("Exception while executing main program", t);
         }
@@ -409,6 +495,10 @@ public class Main {
     public static void load(String path) throws IOException,
             InvocationTargetException, InterruptedException {
         final Loader l = new JsonLoader();
+        if (batchMode()) {
+            l.load(path, MSCDataModel.getInstance(), true);
+            return;
+        }
         final MainFrame mf = MainFrame.getInstance();
         SwingUtilities.invokeAndWait(new Runnable() {
             @Override
@@ -417,13 +507,14 @@ public class Main {
                 MSCDataModel.getInstance().reset();
             }
         });
-        l.load(path, MSCDataModel.getInstance(), true);
+        l.load(path, MSCDataModel.getInstance(), batchMode());
         l.waitIfLoading();
     }
 
     public static void clearModel() {
         final MainFrame mf = MainFrame.getInstance();
-        mf.getViewModel().reset();
+        if (mf != null)
+            mf.getViewModel().reset();
         MSCDataModel.getInstance().reset();
     }
 
@@ -511,4 +602,44 @@ public class Main {
         topologicalSorting = v;
     }
 
+    public static int getLoaderThreads() {
+        return loaderThreads;
+    }
+
+    public static void setLoaderThreads(int n) {
+        loaderThreads = n;
+    }
+
+    public static boolean useModelCache() {
+        return modelCache;
+    }
+
+    public static void setModelCache(boolean v) {
+        modelCache = v;
+    }
+
+    /**
+     * returns the interval in ms between publications of the model while
+     * it is loaded, or 0 if it is published only once loaded.
+     */
+    public static int getPublishInterval() {
+        return batchMode ? 0 : publishInterval;
+    }
+
+    public static void setPublishInterval(int ms) {
+        publishInterval = ms;
+    }
+
+    /**
+     * returns true if the loaded file is followed as it grows, appending
+     * the new events to the model.
+     */
+    public static boolean shouldFollowFile() {
+        return !batchMode && followFile;
+    }
+
+    public static void setFollowFile(boolean v) {
+        followFile = v;
+    }
+
 }
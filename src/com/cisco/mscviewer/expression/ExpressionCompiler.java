@@ -0,0 +1,259 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.expression;
+
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.cisco.mscviewer.model.Event;
+import com.cisco.mscviewer.model.Interaction;
+
+/**
+ * Compiles a {@link ParsedExpression} to a tree of {@link Predicate}s on
+ * events or interactions, mirroring its token tree. Literal values (strings,
+ * times, durations) are decoded once, at compile time, so evaluating the
+ * predicate on an event only reads its fields.
+ *
+ * Terms that don't apply to the kind of object the expression is compiled
+ * for (e.g. 'duration' for an event) never match.
+ */
+public final class ExpressionCompiler {
+    /** a time or duration given as a number with an optional unit */
+    private static final Pattern TIME_VALUE = Pattern
+            .compile("\\s*(\\d+)\\s*(ns|us|ms|s)?\\s*");
+
+    private static final Predicate<Event> NO_EVENT = new Predicate<Event>() {
+        @Override
+        public boolean test(Event ev) {
+            return false;
+        }
+    };
+
+    private static final Predicate<Interaction> NO_INTERACTION = new Predicate<Interaction>() {
+        @Override
+        public boolean test(Interaction in) {
+            return false;
+        }
+    };
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * returns a predicate matching the events for which the expression is
+     * true.
+     */
+    public static Predicate<Event> compileEventPredicate(ParsedExpression expr) {
+        return eventPredicate(expr.getFirstToken());
+    }
+
+    /**
+     * returns a predicate matching the interactions for which the expression
+     * is true.
+     */
+    public static Predicate<Interaction> compileInteractionPredicate(
+            ParsedExpression expr) {
+        return interactionPredicate(expr.getFirstToken());
+    }
+
+    private static Predicate<Event> eventPredicate(Token t) {
+        switch (t.type) {
+        case OPEN:
+            return eventPredicate(t.l);
+        case AND:
+            return eventPredicate(t.l).and(eventPredicate(t.r));
+        case OR:
+            return eventPredicate(t.l).or(eventPredicate(t.r));
+        case NOT:
+            return eventPredicate(t.l).negate();
+        case EQ:
+        case LT:
+        case GT:
+        case LEQ:
+        case GEQ:
+        case CONTAINS:
+        case STARTSWITH:
+        case ENDSWITH:
+            switch (t.l.type) {
+            case LABEL:
+            case TYPE:
+            case NOTE:
+                return stringPredicate(t.l.type, t.type, unquote(t.r.string));
+            case TIME:
+                return timePredicate(t.type, unquote(t.r.string));
+            default:
+                return NO_EVENT;
+            }
+        default:
+            return NO_EVENT;
+        }
+    }
+
+    private static Predicate<Interaction> interactionPredicate(Token t) {
+        switch (t.type) {
+        case OPEN:
+            return interactionPredicate(t.l);
+        case AND:
+            return interactionPredicate(t.l).and(interactionPredicate(t.r));
+        case OR:
+            return interactionPredicate(t.l).or(interactionPredicate(t.r));
+        case NOT:
+            return interactionPredicate(t.l).negate();
+        case SOURCE:
+        case SINK:
+            return endPredicate(t.type == Token.TT.SOURCE,
+                    eventPredicate(t.l));
+        case EQ:
+        case LT:
+        case GT:
+        case LEQ:
+        case GEQ:
+            if (t.l.type == Token.TT.DURATION)
+                return durationPredicate(t.type, t.r.l.num
+                        * nanosPerUnit(t.r.type));
+            return NO_INTERACTION;
+        default:
+            return NO_INTERACTION;
+        }
+    }
+
+    /**
+     * returns the content of a string literal, without the quotes.
+     */
+    private static String unquote(String s) {
+        if (s.length() >= 2 && s.charAt(0) == '"'
+                && s.charAt(s.length() - 1) == '"')
+            return s.substring(1, s.length() - 1);
+        return s;
+    }
+
+    private static long nanosPerUnit(Token.TT unit) {
+        switch (unit) {
+        case US:
+            return 1000L;
+        case MS:
+            return 1000000L;
+        case S:
+            return 1000000000L;
+        default:
+            return 1L;
+        }
+    }
+
+    /**
+     * returns true if the result c of a comparison satisfies operator op.
+     */
+    private static boolean compare(int c, Token.TT op) {
+        switch (op) {
+        case EQ:
+            return c == 0;
+        case LT:
+            return c < 0;
+        case GT:
+            return c > 0;
+        case LEQ:
+            return c <= 0;
+        case GEQ:
+            return c >= 0;
+        default:
+            return false;
+        }
+    }
+
+    private static Predicate<Event> stringPredicate(final Token.TT field,
+            final Token.TT op, final String value) {
+        return new Predicate<Event>() {
+            @Override
+            public boolean test(Event ev) {
+                final String s;
+                switch (field) {
+                case LABEL:
+                    s = ev.getLabel();
+                    break;
+                case TYPE:
+                    s = ev.getType();
+                    break;
+                default:
+                    s = ev.getNote();
+                    break;
+                }
+                if (s == null)
+                    return false;
+                switch (op) {
+                case CONTAINS:
+                    return s.contains(value);
+                case STARTSWITH:
+                    return s.startsWith(value);
+                case ENDSWITH:
+                    return s.endsWith(value);
+                default:
+                    return compare(s.compareTo(value), op);
+                }
+            }
+        };
+    }
+
+    /**
+     * returns a predicate comparing the event time with value. If value is
+     * a number, optionally followed by a unit, it is compared with the
+     * timestamp. Otherwise it is compared with the timestamp as displayed,
+     * which orders correctly as long as the two have the same format.
+     */
+    private static Predicate<Event> timePredicate(final Token.TT op,
+            final String value) {
+        final Matcher m = TIME_VALUE.matcher(value);
+        if (m.matches()) {
+            final long ts = Long.parseLong(m.group(1))
+                    * (m.group(2) == null ? 1L : nanosPerUnit(Token.TT
+                            .valueOf(m.group(2).toUpperCase())));
+            return new Predicate<Event>() {
+                @Override
+                public boolean test(Event ev) {
+                    return compare(Long.compare(ev.getTimestamp(), ts), op);
+                }
+            };
+        }
+        return new Predicate<Event>() {
+            @Override
+            public boolean test(Event ev) {
+                final String repr = ev.getTimestampRepr();
+                return repr != null && compare(repr.compareTo(value), op);
+            }
+        };
+    }
+
+    private static Predicate<Interaction> durationPredicate(final Token.TT op,
+            final long nanos) {
+        return new Predicate<Interaction>() {
+            @Override
+            public boolean test(Interaction in) {
+                final Event from = in.getFromEvent();
+                final Event to = in.getToEvent();
+                if (from == null || to == null)
+                    return false;
+                final long d = to.getTimestamp() - from.getTimestamp();
+                return compare(Long.compare(d, nanos), op);
+            }
+        };
+    }
+
+    private static Predicate<Interaction> endPredicate(final boolean source,
+            final Predicate<Event> p) {
+        return new Predicate<Interaction>() {
+            @Override
+            public boolean test(Interaction in) {
+                final Event ev = source ? in.getFromEvent() : in.getToEvent();
+                return ev != null && p.test(ev);
+            }
+        };
+    }
+}
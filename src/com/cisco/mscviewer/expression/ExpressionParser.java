@@ -11,16 +11,6 @@ package com.cisco.mscviewer.expression;
 
 import java.util.List;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineFactory;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
-
-import com.cisco.mscviewer.model.Event;
-import com.cisco.mscviewer.model.Interaction;
-import com.cisco.mscviewer.util.MSCViewerError;
-import com.cisco.mscviewer.util.Report;
-
 /**
  * Parser for the expression grammar accepted by search fields. THe grammar is 
  * as follows:
@@ -45,23 +35,6 @@ import com.cisco.mscviewer.util.Report;
  */
 
 public class ExpressionParser {
-    private static ScriptEngine engine;
-    static {
-        final ScriptEngineManager mgr = new ScriptEngineManager();
-        final List<ScriptEngineFactory> factories = mgr.getEngineFactories();
-        for (final ScriptEngineFactory factory : factories) {
-            final String langName = factory.getLanguageName();
-
-            if ("ECMAScript".equals(langName)) {
-                engine = factory.getScriptEngine();
-                break;
-            }
-        }
-        if (engine == null) {
-            throw new MSCViewerError("Unable to retrieve JavaScript engine.");
-        }
-    }
-
     static final int LEFT = 0;
     static final int RIGHT = 1;
 
@@ -147,53 +120,6 @@ public class ExpressionParser {
         }
     }
 
-    public boolean evaluateAsJavaScriptonEvent(Event ev, ParsedExpression expr) {
-        try {
-            engine.put("label", ev.getLabel());
-            engine.put("type", ev.getType());
-            engine.put("time", ev.getTimestampRepr());
-            final String type = ev.getType();
-            engine.put("type", type);
-            final String note = ev.getNote();
-            if (note != null)
-                engine.put("note", note);
-            else
-                engine.put("note", "____@@@@invalid node@@@@____");
-            final String js = toJS(expr.getFirstToken());
-            final boolean b = (Boolean) engine.eval(js);
-            return b;
-        } catch (final ScriptException e) {
-            Report.exception("Exception while running script", e);
-        }
-        return false;
-    }
-
-    public boolean evaluateAsJavaScriptonInteraction(Interaction in,
-            ParsedExpression expr) {
-        try {
-            Event ev = in.getFromEvent();
-            if (ev != null) {
-                engine.put("source.label", ev.getLabel());
-                engine.put("source.type", ev.getType());
-                engine.put("source.time", ev.getTimestampRepr());
-                engine.put("source.type", ev.getType());
-            }
-            ev = in.getToEvent();
-            if (ev != null) {
-                engine.put("sink.label", ev.getLabel());
-                engine.put("sink.type", ev.getType());
-                engine.put("sink.time", ev.getTimestampRepr());
-                engine.put("sink.type", ev.getType());
-            }
-            final String js = toJS(expr.getFirstToken());
-            final boolean b = (Boolean) engine.eval(js);
-            return b;
-        } catch (final ScriptException e) {
-            Report.exception("Exception while running script", e);
-        }
-        return false;
-    }
-
     /*
      * start ::= evorexp | orexp
      */
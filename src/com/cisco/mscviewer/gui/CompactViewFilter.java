@@ -19,23 +19,27 @@ import com.cisco.mscviewer.model.ViewModel;
  * @since Jan 2012
  */
 class CompactViewFilter implements MSCDataModelEventFilter {
-    private final ViewModel m;
-    private Matcher matcher;
+    /** one matcher per thread, as filters are evaluated concurrently */
+    private ThreadLocal<Matcher> matcher;
 
     public CompactViewFilter(ViewModel m, String filterRegExp) {
-        this.m = m;
         if (m == null)
             throw new NullPointerException("null EntityHeaderModel");
         if (filterRegExp != null) {
-            matcher = Pattern.compile(filterRegExp).matcher("");
+            final Pattern pattern = Pattern.compile(filterRegExp);
+            matcher = new ThreadLocal<Matcher>() {
+                @Override
+                protected Matcher initialValue() {
+                    return pattern.matcher("");
+                }
+            };
         }
     }
 
     @Override
     public boolean filter(Event ev) {
-        return m.indexOf(ev.getEntity()) != -1
-                && (matcher != null ? matcher.reset(ev.getLabel()).matches()
-                        : true);
+        return matcher != null ? matcher.get().reset(ev.getLabel()).matches()
+                : true;
     }
 
 }
@@ -10,6 +10,7 @@ package com.cisco.mscviewer.gui;
 import java.awt.Component;
 
 import javax.swing.JScrollPane;
+import javax.swing.JViewport;
 
 import com.cisco.mscviewer.util.PNGSnapshotTarget;
 
@@ -21,6 +22,9 @@ import com.cisco.mscviewer.util.PNGSnapshotTarget;
 class CustomJScrollPane extends JScrollPane implements PNGSnapshotTarget {
     public CustomJScrollPane(Component view) {
         super(view);
+        // scrolling copies the visible area and repaints only the exposed
+        // strip, which MSCRenderer limits drawing to
+        getViewport().setScrollMode(JViewport.BLIT_SCROLL_MODE);
     }
 
     @Override
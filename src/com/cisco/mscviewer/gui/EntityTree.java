@@ -46,6 +46,8 @@ class EntityTreeModel implements TreeModel, MSCDataModelListener {
     private final Vector<TreeModelListener> listeners;
     private final MSCDataModel dm;
     private HashMap<String, ArrayList<Entity>> sortedModel;
+    /** number of entities in the model when the tree was last rebuilt */
+    private int entityCount;
 
     public EntityTreeModel(MSCDataModel dm) {
         this.dm = dm;
@@ -240,6 +242,7 @@ class EntityTreeModel implements TreeModel, MSCDataModelListener {
 
     @Override
     public void modelChanged(MSCDataModel mscDataModel) {
+        entityCount = mscDataModel.getEntityCount();
         final Object o[] = new Object[1];
         o[0] = getRoot();
         final TreeModelEvent ev = new TreeModelEvent(this, o);
@@ -253,6 +256,14 @@ class EntityTreeModel implements TreeModel, MSCDataModelListener {
 
     }
 
+    @Override
+    public void eventsAppended(MSCDataModel mscDataModel, int fromIdx,
+            int toIdx) {
+        // the tree is rebuilt only if new entities appeared
+        if (mscDataModel.getEntityCount() != entityCount)
+            modelChanged(mscDataModel);
+    }
+
 }
 
 @SuppressWarnings("serial")
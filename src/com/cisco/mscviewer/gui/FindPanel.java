@@ -14,13 +14,15 @@ package com.cisco.mscviewer.gui;
 import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.function.Predicate;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 
-import com.cisco.mscviewer.expression.ExpressionParser;
+import com.cisco.mscviewer.expression.ExpressionCompiler;
 import com.cisco.mscviewer.expression.ParsedExpression;
+import com.cisco.mscviewer.model.Event;
 import com.cisco.mscviewer.model.ViewModel;
 
 @SuppressWarnings("serial")
@@ -77,11 +79,10 @@ class FindPanel extends JPanel {
             int idx = r.getViewModelSelectedEventIndex();
             idx++;
             final ViewModel vm = r.getViewModel();
+            final Predicate<Event> p = ExpressionCompiler
+                    .compileEventPredicate(expr);
             for (; idx < vm.getEventCount(); idx++) {
-                final ExpressionParser exp = new ExpressionParser();
-                final boolean v = exp.evaluateAsJavaScriptonEvent(vm.getEventAt(idx),
-                        expr);
-                if (v) {
+                if (p.test(vm.getEventAt(idx))) {
                     r.setSelectedEventByViewIndex(idx);
                     break;
                 }
@@ -96,11 +97,10 @@ class FindPanel extends JPanel {
             final ViewModel vm = r.getViewModel();
             if (idx < 0)
                 idx = vm.getEventCount() - 1;
+            final Predicate<Event> p = ExpressionCompiler
+                    .compileEventPredicate(expr);
             for (; idx >= 0; idx--) {
-                final ExpressionParser exp = new ExpressionParser();
-                final boolean v = exp.evaluateAsJavaScriptonEvent(vm.getEventAt(idx),
-                        expr);
-                if (v) {
+                if (p.test(vm.getEventAt(idx))) {
                     r.setSelectedEventByViewIndex(idx);
                     break;
                 }
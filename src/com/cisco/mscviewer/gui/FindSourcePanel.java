@@ -12,22 +12,86 @@
 package com.cisco.mscviewer.gui;
 
 import java.awt.BorderLayout;
+import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.JButton;
+import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.JTextField;
+import javax.swing.KeyStroke;
 import javax.swing.ListModel;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
 
+import com.cisco.mscviewer.model.MSCDataModel;
+import com.cisco.mscviewer.model.SourceSearch;
+
+/**
+ * Finds lines of the source file matching a regular expression. Searches
+ * run in the background through {@link SourceSearch}: the next or previous
+ * matching line is selected when found, while all the matching lines are
+ * listed below the search field as they are found. Starting a search, or
+ * pressing escape, cancels the one in progress.
+ */
 @SuppressWarnings("serial")
 class FindSourcePanel extends JPanel {
+    /** maximum number of lines listed by a search for all the matches */
+    private static final int MAX_RESULTS = 100000;
     private final JList<String> list;
+    private final JButton all;
+    private final JLabel status;
+    private final ResultListModel resultModel = new ResultListModel();
+    private final JPanel resultPanel;
+    private SourceSearch search;
+
+    /**
+     * the lines found by a search, in order.
+     */
+    private static class ResultListModel extends AbstractListModel<Integer> {
+        private int[] lines = new int[0];
+        private int count;
+
+        @Override
+        public int getSize() {
+            return count;
+        }
+
+        @Override
+        public Integer getElementAt(int index) {
+            return lines[index];
+        }
+
+        void add(int[] l) {
+            if (l.length == 0)
+                return;
+            if (count + l.length > lines.length)
+                lines = Arrays.copyOf(lines, Math.max(count + l.length,
+                        lines.length * 2));
+            System.arraycopy(l, 0, lines, count, l.length);
+            count += l.length;
+            fireIntervalAdded(this, count - l.length, count - 1);
+        }
+
+        void clear() {
+            final int cnt = count;
+            lines = new int[0];
+            count = 0;
+            if (cnt > 0)
+                fireIntervalRemoved(this, 0, cnt - 1);
+        }
+    }
 
     public FindSourcePanel(final JList<String> list) {
         this.list = list;
@@ -40,11 +104,51 @@ class FindSourcePanel extends JPanel {
         add(p, BorderLayout.CENTER);
         final JButton prev = new JButton("<");
         final JButton next = new JButton(">");
+        all = new JButton("All");
         final JTextField tf = new JTextField();
 
+        final JPanel buttons = new JPanel();
+        buttons.setLayout(new BorderLayout());
+        buttons.add(next, BorderLayout.WEST);
+        buttons.add(all, BorderLayout.EAST);
         p.add(prev, BorderLayout.WEST);
         p.add(tf, BorderLayout.CENTER);
-        p.add(next, BorderLayout.EAST);
+        p.add(buttons, BorderLayout.EAST);
+
+        final JList<Integer> results = new JList<Integer>(resultModel);
+        results.setVisibleRowCount(6);
+        results.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> l,
+                    Object value, int index, boolean isSelected,
+                    boolean cellHasFocus) {
+                final int line = (Integer) value;
+                final String text = line < list.getModel().getSize() ? list
+                        .getModel().getElementAt(line) : null;
+                final String s = (line + 1) + ": "
+                        + (text != null ? text.trim() : "");
+                return super.getListCellRendererComponent(l, s, index,
+                        isSelected, cellHasFocus);
+            }
+        });
+        results.addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                final Integer line = results.getSelectedValue();
+                if (e.getValueIsAdjusting() || line == null
+                        || line >= list.getModel().getSize())
+                    return;
+                list.setSelectedIndex(line);
+                list.ensureIndexIsVisible(line);
+            }
+        });
+        status = new JLabel(" ");
+        resultPanel = new JPanel();
+        resultPanel.setLayout(new BorderLayout());
+        resultPanel.add(new JScrollPane(results), BorderLayout.CENTER);
+        resultPanel.add(status, BorderLayout.SOUTH);
+        resultPanel.setVisible(false);
+        add(resultPanel, BorderLayout.SOUTH);
 
         tf.addActionListener(new ActionListener() {
             @Override
@@ -53,6 +157,14 @@ class FindSourcePanel extends JPanel {
                 findNext(expr);
             }
         });
+        tf.getInputMap(JComponent.WHEN_FOCUSED).put(
+                KeyStroke.getKeyStroke("ESCAPE"), "cancelSearch");
+        tf.getActionMap().put("cancelSearch", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cancelSearch();
+            }
+        });
 
         prev.addActionListener(new ActionListener() {
             @Override
@@ -69,6 +181,16 @@ class FindSourcePanel extends JPanel {
                 findNext(txt);
             }
         });
+
+        all.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (search != null)
+                    cancelSearch();
+                else
+                    findAll(tf.getText());
+            }
+        });
     }
 
     private Pattern getPattern(String txt) {
@@ -82,47 +204,105 @@ class FindSourcePanel extends JPanel {
         return null;
     }
 
-    private void findNext(String txt) {
-        if (txt != null) {
-            final Pattern p = getPattern(txt);
-            final ListModel<String> m = list.getModel();
-            int idx = list.getSelectedIndex() + 1;
-            while (idx < m.getSize()) {
-                if (p.matcher(m.getElementAt(idx)).find()) {
-                    list.setSelectedIndex(idx);
-                    list.ensureIndexIsVisible(idx);
-                    return;
-                }
-                idx++;
-            }
-            JOptionPane.showMessageDialog(this,
-                    "No more elements matching expression", "Error",
-                    JOptionPane.ERROR_MESSAGE);
+    private void cancelSearch() {
+        if (search != null) {
+            search.cancel();
+            search = null;
         }
+        all.setText("All");
+    }
+
+    /**
+     * selects the first line found searching for txt from line from.
+     */
+    private void find(String txt, int from, boolean forward) {
+        cancelSearch();
+        final Pattern p = getPattern(txt);
+        if (p == null)
+            return;
+        search = SourceSearch.start(MSCDataModel.getInstance(), p, from,
+                forward, 1, new SourceSearch.Listener() {
+                    private boolean found;
+
+                    @Override
+                    public void linesFound(SourceSearch s, int[] lines) {
+                        found = true;
+                        list.setSelectedIndex(lines[0]);
+                        list.ensureIndexIsVisible(lines[0]);
+                    }
+
+                    @Override
+                    public void searchDone(SourceSearch s, boolean cancelled) {
+                        if (search == s)
+                            search = null;
+                        if (!found && !cancelled)
+                            JOptionPane.showMessageDialog(FindSourcePanel.this,
+                                    "No more elements matching expression",
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
+    }
+
+    private void findNext(String txt) {
+        if (txt != null)
+            find(txt, list.getSelectedIndex() + 1, true);
     }
 
     private void findPrev(String txt) {
         if (txt != null) {
-            final Pattern p = getPattern(txt);
             final ListModel<String> m = list.getModel();
             int idx = list.getSelectedIndex();
             if (idx < 0)
                 idx = m.getSize() - 1;
             else
                 idx--;
-            while (idx >= 0) {
-                if (p.matcher(m.getElementAt(idx)).find()) {
-                    list.setSelectedIndex(idx);
-                    list.ensureIndexIsVisible(idx);
-                    return;
-                }
-                idx--;
-            }
-            JOptionPane.showMessageDialog(this,
-                    "No more elements matching expression", "Error",
-                    JOptionPane.ERROR_MESSAGE);
+            if (idx < 0)
+                JOptionPane.showMessageDialog(this,
+                        "No more elements matching expression", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+            else
+                find(txt, idx, false);
         }
+    }
+
+    /**
+     * lists all the lines matching txt, as they are found.
+     */
+    private void findAll(String txt) {
+        cancelSearch();
+        final Pattern p = getPattern(txt);
+        if (p == null)
+            return;
+        resultModel.clear();
+        resultPanel.setVisible(true);
+        revalidate();
+        status.setText("Searching...");
+        all.setText("Stop");
+        search = SourceSearch.start(MSCDataModel.getInstance(), p, 0, true,
+                MAX_RESULTS, new SourceSearch.Listener() {
+                    @Override
+                    public void linesFound(SourceSearch s, int[] lines) {
+                        resultModel.add(lines);
+                        status.setText("Searching... " + resultModel.getSize()
+                                + " lines found");
+                    }
 
+                    @Override
+                    public void searchDone(SourceSearch s, boolean cancelled) {
+                        // another search may have started in the meantime
+                        if (search != null && search != s)
+                            return;
+                        search = null;
+                        all.setText("All");
+                        final int cnt = resultModel.getSize();
+                        String msg = cnt + " lines found";
+                        if (cancelled)
+                            msg += ", search stopped";
+                        else if (cnt == MAX_RESULTS)
+                            msg += ", only the first " + MAX_RESULTS + " shown";
+                        status.setText(msg);
+                    }
+                });
     }
 
 }
@@ -11,7 +11,9 @@
  */
 package com.cisco.mscviewer.gui;
 
-import com.cisco.mscviewer.expression.ExpressionParser;
+import java.util.function.Predicate;
+
+import com.cisco.mscviewer.expression.ExpressionCompiler;
 import com.cisco.mscviewer.expression.ParsedExpression;
 import com.cisco.mscviewer.model.Event;
 import com.cisco.mscviewer.model.MSCDataModel;
@@ -19,23 +21,16 @@ import com.cisco.mscviewer.model.MSCDataModelEventFilter;
 import com.cisco.mscviewer.model.ViewModel;
 
 class JSViewFilter implements MSCDataModelEventFilter {
-    private final boolean filterEvents;
-    private final ExpressionParser exp = new ExpressionParser();
-    private final ParsedExpression expr;
-    private final ViewModel ehm;
+    private final Predicate<Event> predicate;
 
     public JSViewFilter(MSCDataModel dm, ViewModel ehm, ParsedExpression e) {
-        this.ehm = ehm;
-        this.expr = e;
-        filterEvents = (expr != null); // &&
-                                       // expr.getFirstToken().toString().equals("event");
+        predicate = (e != null) ? ExpressionCompiler.compileEventPredicate(e)
+                : null;
     }
 
     @Override
     public boolean filter(Event ev) {
-        return ehm.indexOf(ev.getEntity()) != -1
-                && (filterEvents ? exp.evaluateAsJavaScriptonEvent(ev, expr)
-                        : true);
+        return predicate != null ? predicate.test(ev) : true;
     }
 
 }
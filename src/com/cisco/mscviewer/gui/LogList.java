@@ -239,9 +239,8 @@ class LogListCellRenderer implements ListCellRenderer<String> {
             }
         }
         final String str = value;
-        Color c = Color.black;
-        if (str != null && (str.contains("@msc_event") || str.contains("@event"))) 
-            c = Color.blue;
+        // event line indices are 1-based
+        final Color c = dm.isEventLine(index + 1) ? Color.blue : Color.black;
 
         r.setNum(index+1);
         r.setForeground(c);
@@ -430,6 +429,14 @@ public class LogList extends JList<String> implements SelectionListener,
     public void eventsChanged(MSCDataModel mscDataModel) {
         // ((LogListModel)getModel()).fireContentsChanged();
     }
+
+    @Override
+    public void eventsAppended(MSCDataModel mscDataModel, int fromIdx,
+            int toIdx) {
+        // the published lines have already been added to the list model,
+        // only the cell width may change
+        updateFixedSize();
+    }
     
     public void updateFixedSize() {
         BufferedImage bim = new BufferedImage(320, 200, BufferedImage.TYPE_INT_ARGB);
@@ -25,7 +25,9 @@ import java.awt.RenderingHints;
 import java.awt.Stroke;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Vector;
 
 import javax.swing.JPanel;
@@ -47,7 +49,7 @@ import com.cisco.mscviewer.model.MSCDataModelEventFilter;
 import com.cisco.mscviewer.model.OutputUnit;
 import com.cisco.mscviewer.model.ViewModel;
 import com.cisco.mscviewer.tree.Interval;
-import com.cisco.mscviewer.tree.IntervalTree;
+import com.cisco.mscviewer.tree.IntervalVisitor;
 import com.cisco.mscviewer.util.PersistentPrefs;
 import com.cisco.mscviewer.util.StyledDocumentUtils;
 
@@ -70,9 +72,19 @@ public class MSCRenderer  {
     private MSCDataModelEventFilter filter;
     private final ViewModel viewModel;
     private int zoomFactor = 100;
-    private Font font;
-    private Font mainFont;
     private final boolean timeProportional = false;
+    /** geometry of the rows, see {@link RenderCache} */
+    private final RenderCache cache;
+    /** note bubbles, by note text, the most recently drawn first */
+    private final LinkedHashMap<String, BufferedImage> noteImages = new LinkedHashMap<String, BufferedImage>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> e) {
+            return size() > NOTE_IMAGES;
+        }
+    };
 
     final static BasicStroke basicStroke = new BasicStroke();
     final static BasicStroke selStroke = new BasicStroke(2.0f);
@@ -80,6 +92,16 @@ public class MSCRenderer  {
             BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 1.0f, new float[] {
                     3.0f, 3.0f, 3.0f, 3.0f }, 0.0f);
     final static int STUB_LEN = 40;
+    private final static int NOTE_IMAGES = 64;
+    /**
+     * below this event height events and interactions are not drawn one by
+     * one, but as density marks, see {@link #renderDensity}.
+     */
+    final static int LOD_EVENT_HEIGHT = 8;
+    /** the height of the pixel rows events are aggregated in */
+    private final static int LOD_BUCKET_HEIGHT = 4;
+    /** the number of intensity levels of density marks */
+    private final static int LOD_LEVELS = 8;
 
     class Segment {
         int x1, y1;
@@ -95,6 +117,7 @@ public class MSCRenderer  {
 
     public MSCRenderer(ViewModel eh) {
         viewModel = eh;
+        cache = new RenderCache(eh);
     }
 
     // public MSCRenderer() {
@@ -105,30 +128,49 @@ public class MSCRenderer  {
     // updateForTimeUnitChanges();
     // }
 
+    /**
+     * returns the preferences of the main frame, or the default ones when
+     * running without one, e.g. exporting an image in batch mode.
+     */
+    public static PersistentPrefs getPrefs() {
+        final MainFrame mf = MainFrame.getInstance();
+        return mf != null ? mf.getPrefs() : PersistentPrefs.getInstance();
+    }
+
+    /**
+     * returns the height of the entity names drawn above the diagram when
+     * rendering for export on g2d.
+     */
+    public int getExportHeaderHeight(Graphics2D g2d) {
+        return g2d.getFontMetrics().getHeight() + 4;
+    }
+
+    public int getZoomFactor() {
+        return zoomFactor;
+    }
+
     public int getEventHeight() {
         return eventHeight;
     }
 
-    private Rectangle getEventBoundingBox(Event ev, int eventIndex,
-            Dimension maxDim) {
-        final int entityIndex = viewModel.indexOf(ev.getEntity());
-        if (entityIndex < 0)
-            return new Rectangle(-1, -1, 0, 0);
-        final EventRenderer rn = ev.getRenderer();
-        final Rectangle r = new Rectangle();
-        final int x = viewModel.getEntityCenterX(entityIndex);
-        final int y = (timeProportional) ? (int) ev.getTimestamp() : eventIndex
-                * eventHeight + eventHeight / 2;
-        rn.getBoundingBox(maxDim, x, y, r);
+    /**
+     * returns the bounding box of the event with view index eventIndex,
+     * from the render cache, which must have been validated.
+     */
+    private Rectangle getEventBoundingBox(int eventIndex) {
+        final Rectangle r = new Rectangle(-1, -1, 0, 0);
+        if (eventIndex >= 0 && eventIndex < viewModel.getEventCount())
+            cache.page(eventIndex).getBoundingBox(eventIndex, r);
         return r;
     }
 
-    private void drawLifeLines(Graphics2D g2d, boolean export, int minIdx,
-            int maxIdx) {
-        final int hdEntityCount = viewModel.entityCount();
-        g2d.setColor(MainFrame.getInstance().getPrefs().getLifelineColor());
+    private void drawLifeLines(Graphics2D g2d, RenderSnapshot s,
+            boolean export, int minIdx, int maxIdx) {
+        final int hdEntityCount = s.entityCount();
+        g2d.setColor(getPrefs().getLifelineColor());
         for (int i = 0; i < hdEntityCount; i++) {
-            final int x = viewModel.getEntityCenterX(i);
+            final Entity en = s.entities[i];
+            final int x = s.getEntityCenterX(i);
             int y0, y1;
             if (export) {
                 y0 = 0;
@@ -136,13 +178,13 @@ public class MSCRenderer  {
             } else {
                 if (timeProportional) {
                     y0 = (int) viewModel.getEventAt(
-                            viewModel.getEntityBirthIndex(i)).getTimestamp();
+                            viewModel.getFirstEventIndexForEntity(en)).getTimestamp();
                     y1 = (int) viewModel.getEventAt(
-                            viewModel.getEntityBirthIndex(i)).getTimestamp();
+                            viewModel.getFirstEventIndexForEntity(en)).getTimestamp();
                 } else {
-                    y0 = viewModel.getEntityBirthIndex(i) * eventHeight
+                    y0 = viewModel.getFirstEventIndexForEntity(en) * eventHeight
                             + eventHeight / 2;
-                    y1 = viewModel.getEntityDeathIndex(i) * eventHeight
+                    y1 = viewModel.getLastEventIndexForEntity(en) * eventHeight
                             + eventHeight / 2;
                 }
                 if (y0 < 0)
@@ -180,123 +222,267 @@ public class MSCRenderer  {
 //    }
 //
     public String getTimeRepr(long timestamp) {
-        PersistentPrefs p = MainFrame.getInstance().getPrefs();  
+        PersistentPrefs p = getPrefs();  
         OutputUnit ou = p.getTimeOutputUnit();
         return ou.format(timestamp);
     }
 
     public void updateForTimeUnitChanges() {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
-            final int cnt = dataModel.getEventCount();
-            for (int i = 0; i < cnt; i++) {
-                final Event ev = dataModel.getEventAt(i);
-                ev.setTimestampRepr(getTimeRepr(ev.getTimestamp()));
+        PersistentPrefs p = getPrefs();  
+        // timestamps are formatted on demand by Event.getTimestampRepr()
+        dataModel.setTimestampOutputUnit(p.getTimeOutputUnit());
+    }
+
+    private void renderBlock(Graphics2D g2d, RenderSnapshot s,
+            MSCDataModel dataModel, Interval block, Dimension max) {
+        final int beginIdx = block.getStart();
+        final int endIdx = block.getEnd();
+        final int beginViewIdx = viewModel
+                .getViewIndexFromModelIndex(beginIdx);
+        final int endViewIdx = viewModel
+                .getViewIndexFromModelIndex(endIdx);
+        final Event beginEv = dataModel.getEventAt(beginIdx);
+        final Event endEv = dataModel.getEventAt(endIdx);
+        final Entity entity = beginEv.getEntity();
+        final int entityIndex = s.indexOf(entity);
+        if (entityIndex < 0)
+            return;
+        final int x = s.getEntityCenterX(entityIndex);
+        final int y0 = beginViewIdx * eventHeight + eventHeight / 2;
+        final int y1 = endViewIdx * eventHeight + eventHeight / 2;
+        final Rectangle rb = beginEv.getRenderer().getBoundingBox(max, x,
+                y0, null);
+        final Rectangle re = endEv.getRenderer().getBoundingBox(max, x,
+                y1, null);
+        final Rectangle r = rb.union(re);
+        g2d.setColor(Color.lightGray);
+        g2d.fillRect(x - 3, r.y, 7, r.height - 4);
+        g2d.setColor(Color.gray);
+        g2d.drawRect(x - 3, r.y, 7, r.height - 4);
+    }
+
+    private void renderInteraction(Graphics2D g2d, MSCDataModel dataModel,
+            Interaction in) {
+        Rectangle r1, r2;
+        final int sourceModelIdx = in.getFromIndex();
+        final int sourceViewIdx = viewModel
+                .getViewIndexFromModelIndex(sourceModelIdx);
+        final int sinkModelIdx = in.getToIndex();
+        final int sinkViewIdx = viewModel
+                .getViewIndexFromModelIndex(sinkModelIdx);
+        // if neither source nor sink entity is open in view, skip this interaction
+        if (sourceViewIdx < 0 && sinkViewIdx < 0)
+            return;
+
+        if (sourceViewIdx >= 0)
+            r1 = getEventBoundingBox(sourceViewIdx);
+        else
+            r1 = new Rectangle(-1, 0, 0, 0);
+        if (sinkViewIdx >= 0)
+            r2 = getEventBoundingBox(sinkViewIdx);
+        else
+            r2 = new Rectangle(-1, 0, 0, 0);
+        final InteractionRenderer ir = in.getIRenderer();
+        final Marker m = in.getMarker();
+        ir.render(in, r1, r2, g2d, in == selectedInteraction, m);
+    }
+
+    /**
+     * returns LOD_LEVELS shades of c, from faint to opaque.
+     */
+    private static Color[] densityRamp(Color c) {
+        final Color[] ramp = new Color[LOD_LEVELS];
+        for (int i = 0; i < LOD_LEVELS; i++)
+            ramp[i] = new Color(c.getRed(), c.getGreen(), c.getBlue(),
+                    64 + 191 * i / (LOD_LEVELS - 1));
+        return ramp;
+    }
+
+    /**
+     * returns the shade in ramp for count items.
+     */
+    private static Color densityColor(Color[] ramp, int count) {
+        return ramp[Math.min(count, LOD_LEVELS) - 1];
+    }
+
+    /**
+     * renders the events with view index in [viewMinIdx, viewMaxIdx], and
+     * the interactions starting there, when zoomed out. Rather
+     * than drawing each item, the events are counted per pixel row of
+     * LOD_BUCKET_HEIGHT pixels and entity, and drawn as one mark on the
+     * lifeline whose intensity depends on the count. Interactions are
+     * counted in the same rows, at their source, for each pair of adjacent
+     * entities they span, and drawn as one segment per pair. The cost of
+     * drawing is then bounded by the size of the area drawn, however dense
+     * the diagram is.
+     */
+    private void renderDensity(Graphics2D g2d, RenderSnapshot s,
+            int viewMinIdx, int viewMaxIdx) {
+        final int cols = s.entityCount();
+        if (cols == 0 || viewMaxIdx < viewMinIdx)
+            return;
+        final int b0 = viewMinIdx * eventHeight / LOD_BUCKET_HEIGHT;
+        final int b1 = ((viewMaxIdx + 1) * eventHeight - 1) / LOD_BUCKET_HEIGHT;
+        final int buckets = b1 - b0 + 1;
+        // events, by bucket and entity
+        final int[] events = new int[buckets * cols];
+        // interactions, by bucket and entity, as differences: the number of
+        // interactions spanning entities k and k+1 is the sum of the first
+        // k+1 entries of the bucket
+        final int[] spans = new int[buckets * (cols + 1)];
+        final int[] xs = new int[cols];
+        for (int k = 0; k < cols; k++)
+            xs[k] = s.getEntityCenterX(k);
+        final MSCDataModel dataModel = MSCDataModel.getInstance();
+        final PersistentPrefs prefs = getPrefs();
+        Rectangle sel = null;
+        dataModel.getReadLock().lock();
+        try {
+            cache.validate(eventHeight, s);
+            // the rows in the first and last bucket may extend beyond the
+            // range, all must be counted for the marks not to depend on it
+            final int minIdx = Math.max(0, viewMinIdx - LOD_BUCKET_HEIGHT
+                    / eventHeight - 1);
+            final int maxIdx = Math.min(viewModel.getEventCount() - 1,
+                    viewMaxIdx + LOD_BUCKET_HEIGHT / eventHeight + 1);
+            RenderCache.Page page = null;
+            for (int i = minIdx; i <= maxIdx; i++) {
+                if (page == null || !page.contains(i))
+                    page = cache.page(i);
+                final int entityIndex = page.entity[i - page.first];
+                final int b = (i * eventHeight + eventHeight / 2)
+                        / LOD_BUCKET_HEIGHT - b0;
+                if (entityIndex == -1 || b < 0 || b >= buckets)
+                    continue;
+                events[b * cols + entityIndex]++;
+            }
+            final int modelMinIdx = viewModel.getModelIndexFromViewIndex(minIdx);
+            final int modelMaxIdx = viewModel.getModelIndexFromViewIndex(maxIdx);
+            dataModel.visitInteractionsInInterval(modelMinIdx, modelMaxIdx,
+                    new IntervalVisitor() {
+                        @Override
+                        public boolean visit(Interval it) {
+                            final Interaction in = (Interaction) it;
+                            final int from = viewModel
+                                    .getViewIndexFromModelIndex(in.getFromIndex());
+                            final int to = viewModel
+                                    .getViewIndexFromModelIndex(in.getToIndex());
+                            if (from < 0 || to < 0)
+                                return false;
+                            final int b = (from * eventHeight + eventHeight / 2)
+                                    / LOD_BUCKET_HEIGHT - b0;
+                            if (b < 0 || b >= buckets)
+                                return false;
+                            final int c0 = cache.page(from).entity[from
+                                    % RenderCache.PAGE_ROWS];
+                            final int c1 = cache.page(to).entity[to
+                                    % RenderCache.PAGE_ROWS];
+                            if (c0 < 0 || c1 < 0 || c0 == c1)
+                                return false;
+                            spans[b * (cols + 1) + Math.min(c0, c1)]++;
+                            spans[b * (cols + 1) + Math.max(c0, c1)]--;
+                            return false;
+                        }
+                    });
+            final int selIdx = viewModelSelectedEventIndex;
+            if (selIdx >= viewMinIdx && selIdx <= viewMaxIdx
+                    && selIdx < viewModel.getEventCount()) {
+                sel = new Rectangle();
+                cache.page(selIdx).getBoundingBox(selIdx, sel);
+            }
+        } finally {
+            dataModel.getReadLock().unlock();
+        }
+        final Color[] eventRamp = densityRamp(prefs.getEventLabelColor());
+        final Color[] interactionRamp = densityRamp(prefs
+                .getDefaultInteractionColor());
+        for (int b = 0; b < buckets; b++) {
+            final int y = (b0 + b) * LOD_BUCKET_HEIGHT;
+            final int ym = y + LOD_BUCKET_HEIGHT / 2;
+            int count = 0;
+            for (int k = 0; k < cols - 1; k++) {
+                count += spans[b * (cols + 1) + k];
+                if (count > 0) {
+                    g2d.setColor(densityColor(interactionRamp, count));
+                    g2d.drawLine(xs[k], ym, xs[k + 1], ym);
+                }
+            }
+            for (int k = 0; k < cols; k++) {
+                final int n = events[b * cols + k];
+                if (n > 0) {
+                    g2d.setColor(densityColor(eventRamp, n));
+                    g2d.fillRect(xs[k] - 3, y, 7, LOD_BUCKET_HEIGHT);
+                }
             }
         }
+        if (sel != null && sel.x >= 0) {
+            g2d.setColor(Color.red);
+            g2d.setStroke(selStroke);
+            g2d.drawRect(sel.x - 2, sel.y, sel.width + 4, sel.height);
+            g2d.setStroke(basicStroke);
+        }
     }
 
-    private void render(Graphics2D g2d, int viewMinIdx, int viewMaxIdx) {
-        if (mainFont == null) {
-            mainFont = g2d.getFont();
-        }
+    /**
+     * renders blocks, interactions and events with view index in
+     * [viewMinIdx, viewMaxIdx], and the notes of the events with view index
+     * in [noteMinIdx, noteMaxIdx]. Notes are drawn from a wider range since
+     * their bubble may extend over the following rows.
+     */
+    private void render(Graphics2D g2d, RenderSnapshot s, int viewMinIdx,
+            int viewMaxIdx, int noteMinIdx, int noteMaxIdx) {
         final AffineTransform tf = new AffineTransform();
         tf.scale(1, zoomFactor / 100.0);
-        font = mainFont.deriveFont(tf);
+        final Font font = g2d.getFont().deriveFont(tf);
         g2d.setFont(font);
-        final int ascent = g2d.getFontMetrics().getAscent();
+        final FontMetrics fm = g2d.getFontMetrics();
+        final int ascent = fm.getAscent();
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        PersistentPrefs prefs = MainFrame.getInstance().getPrefs();
-        synchronized (dataModel) {
+        PersistentPrefs prefs = getPrefs();
+        dataModel.getReadLock().lock();
+        try {
+            cache.validate(eventHeight, s);
             // render blocks first
             final Dimension max = new Dimension(64, eventHeight);
             int modelMinIdx = viewModel.getModelIndexFromViewIndex(viewMinIdx);
             final int modelMaxIdx = viewModel.getModelIndexFromViewIndex(viewMaxIdx);
             if (showBlocks) {
-                IntervalTree.dbg = true;
-                final ArrayList<Interval> al = dataModel.getBlocksInInterval(
-                        modelMinIdx, modelMaxIdx);
-                IntervalTree.dbg = false;
-                for (final Interval block : al) {
-                    final int beginIdx = block.getStart();
-                    final int endIdx = block.getEnd();
-                    final int beginViewIdx = viewModel
-                            .getViewIndexFromModelIndex(beginIdx);
-                    final int endViewIdx = viewModel
-                            .getViewIndexFromModelIndex(endIdx);
-                    final Event beginEv = dataModel.getEventAt(beginIdx);
-                    final Event endEv = dataModel.getEventAt(endIdx);
-                    final Entity entity = beginEv.getEntity();
-                    final int entityIndex = viewModel.indexOf(entity);
-                    if (entityIndex < 0)
-                        continue;
-                    final int x = viewModel.getEntityCenterX(entityIndex);
-                    final int y0 = beginViewIdx * eventHeight + eventHeight / 2;
-                    final int y1 = endViewIdx * eventHeight + eventHeight / 2;
-                    final Rectangle rb = beginEv.getRenderer().getBoundingBox(max, x,
-                            y0, null);
-                    final Rectangle re = endEv.getRenderer().getBoundingBox(max, x,
-                            y1, null);
-                    final Rectangle r = rb.union(re);
-                    g2d.setColor(Color.lightGray);
-                    g2d.fillRect(x - 3, r.y, 7, r.height - 4);
-                    g2d.setColor(Color.gray);
-                    g2d.drawRect(x - 3, r.y, 7, r.height - 4);
-                }
+                dataModel.visitBlocksInInterval(modelMinIdx, modelMaxIdx,
+                        new IntervalVisitor() {
+                            @Override
+                            public boolean visit(Interval block) {
+                                renderBlock(g2d, s, dataModel, block, max);
+                                return false;
+                            }
+                        });
             }
 
             // render interactions
-            final ArrayList<Interaction> inter = dataModel.getInteractionsInInterval(
-                    modelMinIdx, modelMaxIdx);
-            Rectangle r1, r2;
-            for (final Interaction in : inter) {
-                final int sourceModelIdx = in.getFromIndex();
-                final int sourceViewIdx = viewModel
-                        .getViewIndexFromModelIndex(sourceModelIdx);
-                final int sinkModelIdx = in.getToIndex();
-                final int sinkViewIdx = viewModel
-                        .getViewIndexFromModelIndex(sinkModelIdx);
-                // if neither source nor sink entity is open in view, skip this interaction
-                if (sourceViewIdx < 0 && sinkViewIdx < 0)
-                    continue;
-
-                if (sourceViewIdx >= 0) {
-                    final Event source = dataModel.getEventAt(sourceModelIdx);
-                    final Entity sourceEn = source.getEntity();
-                    final int sourceEntityIndex = viewModel.indexOf(sourceEn);
-                    final Dimension maxDim = new Dimension(
-                            viewModel.getEntityWidth(sourceEntityIndex),
-                            eventHeight);
-                    r1 = getEventBoundingBox(source, sourceViewIdx, maxDim);
-                } else
-                    r1 = new Rectangle(-1, 0, 0, 0);
-                if (sinkViewIdx >= 0) {
-                    final Event sink = dataModel.getEventAt(sinkModelIdx);
-                    final Entity sinkEn = sink.getEntity();
-                    final int sinkEntityIndex = viewModel.indexOf(sinkEn);
-                    final Dimension maxDim = new Dimension(
-                            viewModel.getEntityWidth(sinkEntityIndex),
-                            eventHeight);
-                    r2 = getEventBoundingBox(sink, sinkViewIdx, maxDim);
-                } else
-                    r2 = new Rectangle(-1, 0, 0, 0);
-                final InteractionRenderer ir = in.getIRenderer();
-                final Marker m = in.getMarker();
-                ir.render(r1, r2, g2d, in == selectedInteraction, m);
-            }
+            dataModel.visitInteractionsInInterval(modelMinIdx, modelMaxIdx,
+                    new IntervalVisitor() {
+                        @Override
+                        public boolean visit(Interval in) {
+                            renderInteraction(g2d, dataModel, (Interaction) in);
+                            return false;
+                        }
+                    });
 
             // render events 
+            final Dimension maxDim = new Dimension();
+            RenderCache.Page page = null;
             for (int i = viewMinIdx; i <= viewMaxIdx; i++) {
-                final Event ev = viewModel.getEventAt(i);
-                final Entity en = ev.getEntity();
-                final int entityIndex = viewModel.indexOf(en);
+                if (page == null || !page.contains(i))
+                    page = cache.page(i);
+                final int row = i - page.first;
+                final int entityIndex = page.entity[row];
                 if (entityIndex == -1)
                     continue;
-                final int entityWidth = viewModel.getEntityWidth(entityIndex);
-                final Dimension maxDim = new Dimension(entityWidth, eventHeight);
+                final Event ev = viewModel.getEventAt(i);
+                maxDim.setSize(page.width[row], eventHeight);
                 final EventRenderer r = ev.getRenderer();
                 if (entityIndex >= 0) {
-                    final int x = viewModel.getEntityCenterX(entityIndex);
+                    final int x = page.x[row];
                     final int y = i * eventHeight + eventHeight / 2;
                     final AffineTransform t = g2d.getTransform();
                     g2d.translate(x, y);
@@ -309,7 +495,7 @@ public class MSCRenderer  {
                     r.render(g2d, maxDim);
                     if (scaled)
                         g2d.setTransform(t1);
-                    if (ev == selectedEvent) {
+                    if (ev.equals(selectedEvent)) {
                         g2d.setColor(Color.red);
                         g2d.setStroke(selStroke);
                         g2d.drawRect(-maxBBwidth / 2, -eventHeight / 2,
@@ -324,13 +510,11 @@ public class MSCRenderer  {
                                 maxBBwidth, eventHeight);
                     }
                     g2d.setTransform(t);
-                    final Rectangle bb = new Rectangle();
-                    r.getBoundingBox(maxDim, x, y, bb);
                     if (showTime) {
                         final String time = ev.getTimestampRepr();
                         if (time != null) {
                             g2d.setColor(prefs.getEventTimestampColor());
-                            final int w = g2d.getFontMetrics().stringWidth(time);
+                            final int w = fm.stringWidth(time);
                             g2d.drawString(time,
                                     x - maxBBwidth / 2 - w - 4, i * eventHeight
                                     + ascent);
@@ -344,29 +528,20 @@ public class MSCRenderer  {
                         String label = ev.getLabel();
                         g2d.drawString(label, x + maxBBwidth, i
                                 * eventHeight + ascent);
-                        final int w = g2d.getFontMetrics().stringWidth(label);
                     }
                 }
             }
             // render notes
-            if (viewMinIdx > 4)
-                viewMinIdx -= 4;
-            else
-                viewMinIdx = 0;
-            for (int i = viewMinIdx; i <= viewMaxIdx; i++) {
-                final Event ev = viewModel.getEventAt(i);
-                final Entity en = ev.getEntity();
-                final int entityIndex = viewModel.indexOf(en);
-                if (entityIndex == -1)
+            final Rectangle bb = new Rectangle();
+            for (int i = noteMinIdx; i <= noteMaxIdx; i++) {
+                if (page == null || !page.contains(i))
+                    page = cache.page(i);
+                if (page.entity[i - page.first] == -1)
                     continue;
-                final int entityWidth = viewModel.getEntityWidth(entityIndex);
-                final Dimension maxDim = new Dimension(entityWidth, eventHeight);
-                final EventRenderer r = ev.getRenderer();
-                final Rectangle bb = new Rectangle();
-                final int x = viewModel.getEntityCenterX(entityIndex);
-                final int y = i * eventHeight + eventHeight / 2;
-                r.getBoundingBox(maxDim, x, y, bb);            
-                if (ev.getNote() != null) {
+                final Event ev = viewModel.getEventAt(i);
+                final String n = ev.getNote();
+                if (n != null) {
+                    page.getBoundingBox(i, bb);
                     g2d.setColor(Color.yellow);
                     final int W = 10;
                     int miniStickX = bb.x;
@@ -375,33 +550,16 @@ public class MSCRenderer  {
                     g2d.setColor(Color.black);
                     g2d.drawRect(miniStickX, miniStickY, W, W);
                     //AffineTransform at = g2d.getTransform();
+                    // the default position is stored by snapshot()
                     Point p = ev.getNoteOffset();
-                    if (p.x == -1 && p.y == -1) {
-                        p.x = bb.width+16;
-                        p.y = 0;
-                        ev.setNotePosition(p);
-                    }
-                    if (showNotes) {
-                        String n = ev.getNote();
-                        StyledDocument doc = new DefaultStyledDocument();
-                        StyledDocumentUtils.importXML(n, doc);                        
-                        JTextPane tp = new JTextPane(doc);
-                        Dimension bubbleDim = tp.getPreferredSize();
-                        tp.setSize(bubbleDim);
-                        BufferedImage bi = new BufferedImage(
-                                bubbleDim.width+4,
-                                bubbleDim.height+4,
-                                BufferedImage.TYPE_INT_ARGB);
-                        Graphics g = bi.getGraphics();
-                        g.setColor(Color.yellow);
-                        g.fillRect(0,  0,  bi.getWidth(), bi.getHeight());
-                        g.setColor(Color.black);
-                        g.drawRect(0,  0,  bi.getWidth()-1, bi.getHeight()-1);
-                        g.translate(2, 2);
-                        tp.paint(g);
+                    if (p.x == -1 && p.y == -1)
+                        p = new Point(bb.width+16, 0);
+                    final BufferedImage bi = s.getNoteImage(n);
+                    if (showNotes && bi != null) {
                         g2d.drawImage(bi, bb.x+p.x, bb.y+p.y, null);
+                        final int bubbleHeight = bi.getHeight() - 4;
                         int[] xpts = new int[]{miniStickX+W/2, bb.x+p.x, bb.x+p.x, bb.x+p.x-W};
-                        int[] ypts = new int[]{miniStickY+W/2, bb.y+p.y, bb.y+p.y+bubbleDim.height, bb.y+p.y+W};
+                        int[] ypts = new int[]{miniStickY+W/2, bb.y+p.y, bb.y+p.y+bubbleHeight, bb.y+p.y+W};
                         g2d.setColor(Color.yellow);
                         Polygon poly = new Polygon(xpts, ypts, 4);
                         g2d.fillPolygon(poly);
@@ -410,9 +568,46 @@ public class MSCRenderer  {
                     }
                 }
             }
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
+    /**
+     * returns the image of the bubble showing note n. The images of the
+     * notes drawn last are cached, so that repaints don't lay out the
+     * note text again. As this lays out the note in a text component, it
+     * must be called on the event dispatch thread.
+     */
+    private BufferedImage getNoteImage(String n) {
+        synchronized (noteImages) {
+            final BufferedImage cached = noteImages.get(n);
+            if (cached != null)
+                return cached;
+        }
+        StyledDocument doc = new DefaultStyledDocument();
+        StyledDocumentUtils.importXML(n, doc);                        
+        JTextPane tp = new JTextPane(doc);
+        Dimension bubbleDim = tp.getPreferredSize();
+        tp.setSize(bubbleDim);
+        BufferedImage bi = new BufferedImage(
+                bubbleDim.width+4,
+                bubbleDim.height+4,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics g = bi.getGraphics();
+        g.setColor(Color.yellow);
+        g.fillRect(0,  0,  bi.getWidth(), bi.getHeight());
+        g.setColor(Color.black);
+        g.drawRect(0,  0,  bi.getWidth()-1, bi.getHeight()-1);
+        g.translate(2, 2);
+        tp.paint(g);
+        g.dispose();
+        synchronized (noteImages) {
+            noteImages.put(n, bi);
+        }
+        return bi;
+    }
+
     
 //    public int getRightMargin() {
 //        return rightMargin;
@@ -420,7 +615,8 @@ public class MSCRenderer  {
 //    
      private void computeMaxBBWidth() {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             final int cnt = viewModel.getEventCount();
             final Rectangle r = new Rectangle();
             for (int i = 0; i < cnt; i++) {
@@ -434,22 +630,79 @@ public class MSCRenderer  {
                 if (r.width > maxBBwidth)
                     maxBBwidth = r.width;
             }
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
     public void updateCache() {
+        cache.invalidate();
         computeMaxBBWidth();
     }
 
     public void render(Graphics2D g2d, boolean export, int viewY, int viewHeight) {
-        if (getWidth() == 0)
-            return;
+        render(g2d, export, viewY, viewHeight, snapshot(viewY, viewHeight));
+    }
+
+    /**
+     * takes the snapshot of the entity headers and notes needed to render
+     * the rows in [viewY, viewY + viewHeight), and updates the state that
+     * depends on the view, i.e. the width of event bounding boxes and the
+     * default position of notes. This must be called on the event dispatch
+     * thread, and the snapshot may then be rendered on any.
+     */
+    RenderSnapshot snapshot(int viewY, int viewHeight) {
         final MSCDataModelEventFilter f = viewModel.getFilter();
         if (this.filter != f) {
             computeMaxBBWidth();
             this.filter = f;
         }
-        PersistentPrefs prefs = MainFrame.getInstance().getPrefs();
+        // filled before the snapshot is handed out, and only read afterwards
+        final Map<String, BufferedImage> notes = new HashMap<String, BufferedImage>();
+        final RenderSnapshot s = new RenderSnapshot(viewModel, notes);
+        if (eventHeight < LOD_EVENT_HEIGHT)
+            return s;
+        final int minIdx = Math.max(viewY / eventHeight - 4, 0);
+        final MSCDataModel dataModel = MSCDataModel.getInstance();
+        dataModel.getReadLock().lock();
+        try {
+            final int maxIdx = Math.min((viewY + viewHeight - 1) / eventHeight
+                    + 1, viewModel.getEventCount() - 1);
+            cache.validate(eventHeight, s);
+            final Rectangle bb = new Rectangle();
+            for (int i = minIdx; i <= maxIdx; i++) {
+                final Event ev = viewModel.getEventAt(i);
+                final String n = ev.getNote();
+                if (n == null)
+                    continue;
+                final Point p = ev.getNoteOffset();
+                if (p.x == -1 && p.y == -1) {
+                    cache.page(i).getBoundingBox(i, bb);
+                    if (bb.x < 0)
+                        continue;
+                    p.x = bb.width+16;
+                    p.y = 0;
+                    ev.setNotePosition(p);
+                }
+                if (showNotes)
+                    notes.put(n, getNoteImage(n));
+            }
+        } finally {
+            dataModel.getReadLock().unlock();
+        }
+        return s;
+    }
+
+    /**
+     * renders the rows in [viewY, viewY + viewHeight) from snapshot s,
+     * taken by {@link #snapshot}. This doesn't touch any Swing component,
+     * so it may run on a thread other than the event dispatch thread.
+     */
+    void render(Graphics2D g2d, boolean export, int viewY, int viewHeight,
+            RenderSnapshot s) {
+        if (s.totalWidth == 0)
+            return;
+        PersistentPrefs prefs = getPrefs();
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
                 RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
@@ -462,41 +715,55 @@ public class MSCRenderer  {
 
         if (maxIdx > evCount - 1)
             maxIdx = evCount - 1;
+        // only the rows intersecting the clip are drawn, e.g. the strip
+        // exposed by scrolling, the rest of the viewport being blitted.
+        // Labels and interaction stubs may extend over the next row.
+        int drawMinIdx = minIdx, drawMaxIdx = maxIdx;
+        final Rectangle clip = export ? null : g2d.getClipBounds();
+        if (clip != null) {
+            drawMinIdx = Math.max(minIdx, clip.y / eventHeight - 1);
+            drawMaxIdx = Math.min(maxIdx, (clip.y + clip.height - 1)
+                    / eventHeight + 1);
+        }
 
         int height = getHeight();
-        final int fontHeight = g2d.getFontMetrics().getHeight();
+        final int headerHeight = getExportHeaderHeight(g2d);
         if (export)
-            height += fontHeight + 4;
+            height += headerHeight;
         g2d.setColor(prefs.getEvenEventBackgroundColor());
-        g2d.fillRect(0, 0, viewModel.getTotalWidth() + 10, height);
+        g2d.fillRect(0, 0, s.totalWidth + 10, height);
         if ((!export) && drawBands) {
             g2d.setColor(prefs.getOddEventBackgroundColor());
-            for (int i = minIdx; i <= maxIdx; i++) {
+            for (int i = drawMinIdx; i <= drawMaxIdx; i++) {
                 if (i % 2 == 1) {
                     final int h = i * eventHeight;
-                    g2d.fillRect(0, h, viewModel.getTotalWidth(),
+                    g2d.fillRect(0, h, s.totalWidth,
                             eventHeight - 1);
                 }
             }
         }
         g2d.setColor(new Color(248,248,248,80));
-        g2d.fillRect(viewModel.getTotalWidth()-viewModel.getRighMarginWidth(), 0, viewModel.getRighMarginWidth(), getHeight());
+        g2d.fillRect(s.totalWidth-s.rightMargin, 0, s.rightMargin, getHeight());
         g2d.setColor(Color.BLACK);
-        final int enCnt = viewModel.entityCount();
+        final int enCnt = s.entityCount();
         if (export) {
             for (int i = 0; i < enCnt; i++) {
-                final Entity en = viewModel.get(i);
-                final int enx = viewModel.getEntityCenterX(i);
+                final Entity en = s.entities[i];
+                final int enx = s.getEntityCenterX(i);
                 final int w = g2d.getFontMetrics().stringWidth(en.getPath());
                 final int ascent = g2d.getFontMetrics().getAscent();
                 g2d.drawString(en.getPath(), enx - w / 2, ascent + 2);
                 g2d.drawRect(enx - w / 2 - 1, 0, w + 1, g2d.getFontMetrics()
                         .getHeight());
             }
-            g2d.translate(0, fontHeight + 4);
+            g2d.translate(0, headerHeight);
         }
-        drawLifeLines(g2d, export, minIdx, maxIdx);
-        render(g2d, minIdx, maxIdx);
+        drawLifeLines(g2d, s, export, minIdx, maxIdx);
+        if (eventHeight < LOD_EVENT_HEIGHT)
+            renderDensity(g2d, s, drawMinIdx, drawMaxIdx);
+        else
+            render(g2d, s, drawMinIdx, drawMaxIdx, Math.max(minIdx - 4, 0),
+                    maxIdx);
     }
 
     public int getHeight() {
@@ -540,7 +807,8 @@ public class MSCRenderer  {
         final int minIdx = viewY / eventHeight;
         int maxIdx = (viewY + viewHeight - 1) / eventHeight + 1;
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             if (maxIdx > viewModel.getEventCount() - 1)
                 maxIdx = viewModel.getEventCount() - 1;
             for (int i = minIdx; i <= maxIdx; i++) {
@@ -558,6 +826,8 @@ public class MSCRenderer  {
                     return i;
                 }
             }
+        } finally {
+            dataModel.getReadLock().unlock();
         }
         return -1;
     }
@@ -574,49 +844,55 @@ public class MSCRenderer  {
         final int modelMinIdx = viewModel.getModelIndexFromViewIndex(viewMinIdx);
         final int modelMaxIdx = viewModel.getModelIndexFromViewIndex(viewMaxIdx);
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        final ArrayList<Interaction> al = dataModel.getInteractionsInInterval(
-                modelMinIdx, modelMaxIdx);
-        for (final Interaction in : al) {
-            final InteractionRenderer ir = in.getIRenderer();
-
-            final Event ev1 = in.getFromEvent();
-            int w1, w2;
-            Entity en1, en2;
-            if (ev1 != null) {
-                en1 = ev1.getEntity();
-                w1 = viewModel.getEntityWidth(en1);
-            } else {
-                en1 = null;
-                w1 = -1;
-            }
-            final Event ev2 = in.getToEvent();
-            if (ev2 != null) {
-                en2 = ev2.getEntity();
-                w2 = viewModel.getEntityWidth(en2);
-            } else {
-                en2 = null;
-                w2 = -1;
-            }
-            if (w1 < 0 && w2 < 0)
-                continue;
-            final Dimension maxDim1 = new Dimension(w1, eventHeight);
-            final Rectangle r1 = ev1 != null ? getEventBoundingBox(ev1,
-                    viewModel.getViewIndexFromModelIndex(ev1.getIndex()),
-                    maxDim1) : new Rectangle(-1, -1, 0, 0);
-            final Dimension maxDim2 = new Dimension(w2, eventHeight);
-            final Rectangle r2 = ev2 != null ? getEventBoundingBox(ev2,
-                    viewModel.getViewIndexFromModelIndex(ev2.getIndex()),
-                    maxDim2) : new Rectangle(-1, -1, 0, 0);
-            if (ir.inSelectionArea(r1, r2, x, y, en1 == en2)) {
-                return in;
+        final Interaction[] found = new Interaction[1];
+        cache.validate(eventHeight);
+        dataModel.visitInteractionsInInterval(modelMinIdx, modelMaxIdx,
+                new IntervalVisitor() {
+            @Override
+            public boolean visit(Interval iv) {
+                final Interaction in = (Interaction) iv;
+                final InteractionRenderer ir = in.getIRenderer();
+
+                final Event ev1 = in.getFromEvent();
+                int w1, w2;
+                Entity en1, en2;
+                if (ev1 != null) {
+                    en1 = ev1.getEntity();
+                    w1 = viewModel.getEntityWidth(en1);
+                } else {
+                    en1 = null;
+                    w1 = -1;
+                }
+                final Event ev2 = in.getToEvent();
+                if (ev2 != null) {
+                    en2 = ev2.getEntity();
+                    w2 = viewModel.getEntityWidth(en2);
+                } else {
+                    en2 = null;
+                    w2 = -1;
+                }
+                if (w1 < 0 && w2 < 0)
+                    return false;
+                final Rectangle r1 = ev1 != null ? getEventBoundingBox(
+                        viewModel.getViewIndexFromModelIndex(ev1.getIndex()))
+                        : new Rectangle(-1, -1, 0, 0);
+                final Rectangle r2 = ev2 != null ? getEventBoundingBox(
+                        viewModel.getViewIndexFromModelIndex(ev2.getIndex()))
+                        : new Rectangle(-1, -1, 0, 0);
+                if (ir.inSelectionArea(in, r1, r2, x, y, en1 == en2)) {
+                    found[0] = in;
+                    return true;
+                }
+                return false;
             }
-        }
-        return null;
+        });
+        return found[0];
     }
 
     public Object getClosest(int x, int y, int viewY, int viewHeight) {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             final int evCount = viewModel.getEventCount();
             final int minIdx = viewY / eventHeight;
             int maxIdx = (viewY + viewHeight - 1) / eventHeight + 1;
@@ -639,12 +915,15 @@ public class MSCRenderer  {
             }
             final Interaction in = getClosestInteraction(x, y, minIdx, maxIdx);
             return in;
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
     public int getClosestEventViewIndex(int x, int y, int viewY, int viewHeight) {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             final int evCount = viewModel.getEventCount();
             final int minIdx = viewY / eventHeight;
             int maxIdx = (viewY + viewHeight - 1) / eventHeight + 1;
@@ -666,6 +945,8 @@ public class MSCRenderer  {
                 }
             }
             return -1;
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
@@ -773,13 +1054,13 @@ public class MSCRenderer  {
     }
 
     public void selectByLineNumber(int lineIndex) {
-        final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
-            for (int i = 0; i < viewModel.getEventCount(); i++) {
-                if (viewModel.getEventAt(i).getLineIndex() == lineIndex)
-                    setSelectedEventByViewIndex(i);
-            }
-        }
+        final Event ev = MSCDataModel.getInstance().getEventByLineIndex(
+                lineIndex);
+        if (ev == null)
+            return;
+        final int idx = viewModel.getViewIndexFromModelIndex(ev.getIndex());
+        if (idx >= 0)
+            setSelectedEventByViewIndex(idx);
     }
 
     public ViewModel getViewModel() {
@@ -815,7 +1096,8 @@ public class MSCRenderer  {
      */
     public void cursorDown(boolean ctrl) {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             if (selectedEvent != null) {
                 final Entity en = selectedEvent.getEntity();
                 for (int i = viewModelSelectedEventIndex + 1; i < viewModel
@@ -829,13 +1111,15 @@ public class MSCRenderer  {
             }
             if (selectedInteraction != null) {
                 if (ctrl) {
-                    final Event fromEv = selectedInteraction.getFromEvent();
-                    final Interaction[] inters = dataModel
-                            .getOutgoingInteractions(fromEv);
+                    final int fromIdx = selectedInteraction.getFromIndex();
+                    final int cnt = dataModel
+                            .getOutgoingInteractionCount(fromIdx);
                     final int evIdx = selectedInteraction.getToIndex();
                     Interaction nextDown = selectedInteraction;
                     int nextDownIdx = Integer.MAX_VALUE;
-                    for (final Interaction in : inters) {
+                    for (int j = 0; j < cnt; j++) {
+                        final Interaction in = dataModel
+                                .getOutgoingInteraction(fromIdx, j);
                         if (in == selectedInteraction)
                             continue;
                         final int toIdx = in.getToIndex();
@@ -883,6 +1167,8 @@ public class MSCRenderer  {
                     }
                 }
             }
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
@@ -895,7 +1181,8 @@ public class MSCRenderer  {
      */
     public void cursorUp(boolean ctrl) {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             if (selectedEvent != null) {
                 final Entity en = selectedEvent.getEntity();
                 for (int i = viewModelSelectedEventIndex - 1; i >= 0; i--) {
@@ -908,13 +1195,15 @@ public class MSCRenderer  {
             }
             if (selectedInteraction != null) {
                 if (ctrl) {
-                    final Event fromEv = selectedInteraction.getFromEvent();
-                    final Interaction[] inters = dataModel
-                            .getOutgoingInteractions(fromEv);
+                    final int fromIdx = selectedInteraction.getFromIndex();
+                    final int cnt = dataModel
+                            .getOutgoingInteractionCount(fromIdx);
                     final int evIdx = selectedInteraction.getToIndex();
                     Interaction nextUp = selectedInteraction;
                     int nextUpIdx = Integer.MIN_VALUE;
-                    for (final Interaction in : inters) {
+                    for (int j = 0; j < cnt; j++) {
+                        final Interaction in = dataModel
+                                .getOutgoingInteraction(fromIdx, j);
                         if (in == selectedInteraction)
                             continue;
                         final int toIdx = in.getToIndex();
@@ -962,6 +1251,8 @@ public class MSCRenderer  {
                     }
                 }
             }
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
@@ -977,49 +1268,51 @@ public class MSCRenderer  {
      */
     public void cursorLeft(boolean ctrl) {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             if (selectedEvent != null) {
                 final Entity selEn = selectedEvent.getEntity();
                 final int selEnIdx = viewModel.indexOf(selEn);
-                final Interaction[] incoming = dataModel
-                        .getIncomingInteractions(selectedEvent);
-                if (incoming != null) {
-                    for (final Interaction in : incoming) {
-                        if (in.getIRenderer() instanceof BlockInteractionRenderer)
-                            continue;
-                        final Event otherEv = in.getOtherEvent(selectedEvent);
-                        final int otherEnIdx = (otherEv != null) ? viewModel
-                                .indexOf(otherEv.getEntity()) : -1;
-                        if (otherEnIdx < selEnIdx) {
-                            setSelectedInteraction(in);
-                            setSelectedEventByViewIndex(-1);
-                            return;
-                        }
-                    }
-                }
-                final Interaction[] outgoings = dataModel
-                        .getOutgoingInteractions(selectedEvent);
-                if (outgoings != null) {
-                    int otherEvIdx = Integer.MAX_VALUE;
-                    int otherEnIdx = Integer.MAX_VALUE;
-                    Interaction inter = null;
-                    for (final Interaction in : outgoings) {
-                        if (in.getIRenderer() instanceof BlockInteractionRenderer)
-                            continue;
-                        final int v = in.getOtherEventIndex(selectedEvent);
-                        if (v >= 0 && v < otherEvIdx) {
-                            inter = in;
-                            otherEvIdx = v;
-                            final Entity otherEn = in.getOtherEvent(selectedEvent)
-                                    .getEntity();
-                            otherEnIdx = viewModel.indexOf(otherEn);
-                        }
-                    }
+                final int selIdx = selectedEvent.getIndex();
+                final int inCount = dataModel
+                        .getIncomingInteractionCount(selIdx);
+                for (int j = 0; j < inCount; j++) {
+                    final Interaction in = dataModel
+                            .getIncomingInteraction(selIdx, j);
+                    if (in.getIRenderer() instanceof BlockInteractionRenderer)
+                        continue;
+                    final Event otherEv = in.getOtherEvent(selectedEvent);
+                    final int otherEnIdx = (otherEv != null) ? viewModel
+                            .indexOf(otherEv.getEntity()) : -1;
                     if (otherEnIdx < selEnIdx) {
+                        setSelectedInteraction(in);
                         setSelectedEventByViewIndex(-1);
-                        setSelectedInteraction(inter);
+                        return;
                     }
                 }
+                final int outCount = dataModel
+                        .getOutgoingInteractionCount(selIdx);
+                int otherEvIdx = Integer.MAX_VALUE;
+                int otherEnIdx = Integer.MAX_VALUE;
+                Interaction inter = null;
+                for (int j = 0; j < outCount; j++) {
+                    final Interaction in = dataModel
+                            .getOutgoingInteraction(selIdx, j);
+                    if (in.getIRenderer() instanceof BlockInteractionRenderer)
+                        continue;
+                    final int v = in.getOtherEventIndex(selectedEvent);
+                    if (v >= 0 && v < otherEvIdx) {
+                        inter = in;
+                        otherEvIdx = v;
+                        final Entity otherEn = in.getOtherEvent(selectedEvent)
+                                .getEntity();
+                        otherEnIdx = viewModel.indexOf(otherEn);
+                    }
+                }
+                if (otherEnIdx < selEnIdx) {
+                    setSelectedEventByViewIndex(-1);
+                    setSelectedInteraction(inter);
+                }
             } else if (selectedInteraction != null) {
                 int fromEnIdx = -1, toEnIdx = -1;
                 int fromEvIdx = -1, toEvIdx = -1;
@@ -1058,6 +1351,8 @@ public class MSCRenderer  {
                     }
                 }
             }
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
@@ -1073,33 +1368,35 @@ public class MSCRenderer  {
      */
     public void cursorRight(boolean ctrl) {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             if (selectedEvent != null) {
                 final Entity selEn = selectedEvent.getEntity();
                 final int selEnIdx = viewModel.indexOf(selEn);
-                final Interaction[] incoming = dataModel
-                        .getIncomingInteractions(selectedEvent);
-                if (incoming != null) {
-                    for (final Interaction in : incoming) {
-                        if (in.getIRenderer() instanceof BlockInteractionRenderer)
-                            continue;
-                        final Event otherEv = in.getOtherEvent(selectedEvent);
-                        final int otherEnIdx = (otherEv != null) ? viewModel
-                                .indexOf(otherEv.getEntity()) : -1;
-                        if (otherEnIdx >= selEnIdx) {
-                            setSelectedInteraction(in);
-                            return;
-                        }
+                final int selIdx = selectedEvent.getIndex();
+                final int inCount = dataModel
+                        .getIncomingInteractionCount(selIdx);
+                for (int j = 0; j < inCount; j++) {
+                    final Interaction in = dataModel
+                            .getIncomingInteraction(selIdx, j);
+                    if (in.getIRenderer() instanceof BlockInteractionRenderer)
+                        continue;
+                    final Event otherEv = in.getOtherEvent(selectedEvent);
+                    final int otherEnIdx = (otherEv != null) ? viewModel
+                            .indexOf(otherEv.getEntity()) : -1;
+                    if (otherEnIdx >= selEnIdx) {
+                        setSelectedInteraction(in);
+                        return;
                     }
                 }
-                final Interaction[] outgoings = dataModel
-                        .getOutgoingInteractions(selectedEvent);
-                if (outgoings != null) {
-                    for (final Interaction in : outgoings) {
-                        if (!(in.getIRenderer() instanceof BlockInteractionRenderer)) {
-                            setSelectedInteraction(in);
-                            return;
-                        }
+                final int outCount = dataModel
+                        .getOutgoingInteractionCount(selIdx);
+                for (int j = 0; j < outCount; j++) {
+                    final Interaction in = dataModel
+                            .getOutgoingInteraction(selIdx, j);
+                    if (!(in.getIRenderer() instanceof BlockInteractionRenderer)) {
+                        setSelectedInteraction(in);
+                        return;
                     }
                 }
             } else if (selectedInteraction != null) {
@@ -1143,12 +1440,15 @@ public class MSCRenderer  {
                     setSelectedEventByViewIndex(toEvIdx);
                 }
             }
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
     public Rectangle getEventBoundingRect(int evIdx) {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             if (evIdx >= viewModel.getEventCount())
                 return null;
             final Event ev = viewModel.getEventAt(evIdx);
@@ -1162,12 +1462,15 @@ public class MSCRenderer  {
             final Rectangle bb = new Rectangle();
             ev.getRenderer().getBoundingBox(maxDim, x, y, bb);
             return bb;
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
     public Point getEventPoint(int evIdx) {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             final Event ev = viewModel.getEventAt(evIdx);
             final int enIdx = viewModel.indexOf(ev.getEntity());
             if (enIdx < 0)
@@ -1175,6 +1478,8 @@ public class MSCRenderer  {
             final int x = viewModel.getEntityCenterX(enIdx);
             final int y = evIdx * eventHeight + eventHeight / 2;
             return new Point(x, y);
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
@@ -1188,7 +1493,8 @@ public class MSCRenderer  {
 
     public String getSelectedStatusString() {
         final MSCDataModel dataModel = MSCDataModel.getInstance();
-        synchronized (dataModel) {
+        dataModel.getReadLock().lock();
+        try {
             if (selectedEvent != null) {
                 return "Event: local, t="
                         + getTimeRepr(selectedEvent.getTimestamp());
@@ -1210,6 +1516,8 @@ public class MSCRenderer  {
                 return s;
             }
             return "";
+        } finally {
+            dataModel.getReadLock().unlock();
         }
     }
 
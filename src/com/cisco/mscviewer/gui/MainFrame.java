@@ -53,6 +53,7 @@ import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JComponent;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -516,6 +517,8 @@ public class MainFrame extends JFrame implements PNGSnapshotTarget, PersistentPr
         if (!SwingUtilities.isEventDispatchThread())
             throw new Error("loadFile() should be called in EDT");
         final MSCDataModel dm = MSCDataModel.getInstance();
+        // the file being followed, if any, must not change the model anymore
+        JsonLoader.discardFollower();
         // we want to execute both viewModel and DataModel reset in the context of 
         //event dispatch thread!
         viewModel.reset();            
@@ -786,6 +789,20 @@ public class MainFrame extends JFrame implements PNGSnapshotTarget, PersistentPr
                 ActionEvent.ALT_MASK));
         fileMenu.add(reloadMI);
 
+        final JCheckBoxMenuItem followMI = new JCheckBoxMenuItem(
+                "Follow Log File", Main.shouldFollowFile());
+        followMI.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Main.setFollowFile(followMI.isSelected());
+                if (!followMI.isSelected())
+                    JsonLoader.stopFollowing();
+                else if (MSCDataModel.getInstance().getFilePath() != null)
+                    reloadFile();
+            }
+        });
+        fileMenu.add(followMI);
+
         recentFilesMenu = new JMenu("Recent Log Files");
         updateRecentModelsMenu();
         fileMenu.add(recentFilesMenu);
@@ -899,6 +916,15 @@ public class MainFrame extends JFrame implements PNGSnapshotTarget, PersistentPr
                 }
             }
         }));
+        final JCheckBoxMenuItem tiledMI = new JCheckBoxMenuItem(
+                "Tiled Rendering");
+        tiledMI.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                mainPanel.setTiledRendering(tiledMI.isSelected());
+            }
+        });
+        viewMenu.add(tiledMI);
         final JMenu helpMenu = new JMenu("Help");
         helpMenu.add(new JMenuItem(new AbstractAction("About MSCViewer") {
             @Override
@@ -38,8 +38,11 @@ import com.cisco.mscviewer.model.EntityHeaderModelListener;
 import com.cisco.mscviewer.model.Event;
 import com.cisco.mscviewer.model.Interaction;
 import com.cisco.mscviewer.model.MSCDataModel;
+import com.cisco.mscviewer.model.MSCDataModelEventFilter;
 import com.cisco.mscviewer.model.MSCDataModelListener;
 import com.cisco.mscviewer.model.ViewModel;
+import com.cisco.mscviewer.util.ProgressReport;
+import com.cisco.mscviewer.util.Utils;
 
 //@SuppressWarnings("serial")
 //class TimeHeader extends JPanel {
@@ -78,6 +81,10 @@ public class MainPanel extends JPanel implements Scrollable, KeyListener,
     private final EntityHeader entityHeader;
     private final ViewModel viewModel;
     private int rightMargin;
+    /** progress of the filter being applied, if any */
+    private ProgressReport filterProgress;
+    /** the rendered tiles, if tiled rendering is enabled */
+    private TileCache tiles;
 
     public MainPanel(final MainFrame mf, EntityHeader entityHeader,
             ViewModel viewModel) {
@@ -108,7 +115,54 @@ public class MainPanel extends JPanel implements Scrollable, KeyListener,
         final Graphics2D g2d = (Graphics2D) g;
         final JViewport jvp = getAncestorViewport();
         final Rectangle rec = jvp.getViewRect();
-        r.render(g2d, false, rec.y, rec.height);
+        if (tiles != null) {
+            Rectangle clip = g2d.getClipBounds();
+            if (clip == null)
+                clip = rec;
+            tiles.paint(g2d, clip, mf.getPrefs().getEvenEventBackgroundColor());
+        } else
+            r.render(g2d, false, rec.y, rec.height);
+    }
+
+    /**
+     * repaints the panel. With tiled rendering, this also marks the tiles
+     * as stale: explicit repaints are how changes to the model, the view or
+     * the selection are shown, while scrolling paints the panel directly.
+     */
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+        if (tiles != null)
+            tiles.invalidate();
+        super.repaint(tm, x, y, width, height);
+    }
+
+    /**
+     * repaints a rectangle whose tiles have just been rendered.
+     */
+    void repaintTile(int x, int y, int width, int height) {
+        super.repaint(0, x, y, width, height);
+    }
+
+    /**
+     * enables or disables tiled rendering. When enabled, the diagram is
+     * rendered in tiles by background threads, and painting only draws the
+     * tiles already rendered, so that the time spent painting doesn't
+     * depend on how dense the diagram is.
+     */
+    public void setTiledRendering(boolean tiled) {
+        if (tiled == (tiles != null))
+            return;
+        if (tiled) {
+            tiles = new TileCache(this, r);
+        } else {
+            tiles.clear();
+            tiles = null;
+        }
+        repaint();
+    }
+
+    public boolean isTiledRendering() {
+        return tiles != null;
     }
 
     @Override
@@ -326,6 +380,15 @@ public class MainPanel extends JPanel implements Scrollable, KeyListener,
         modelChanged(m);
     }
 
+    @Override
+    public void eventsAppended(MSCDataModel m, int fromIdx, int toIdx) {
+        // the view model has already added the events, being registered
+        // first. The selection is left where it is.
+        getMSCRenderer().updateCache();
+        revalidate();
+        repaint();
+    }
+
     private JViewport getAncestorViewport() {
         Component c;
         for (c = getParent(); !(c instanceof JViewport); c = c.getParent())
@@ -333,14 +396,47 @@ public class MainPanel extends JPanel implements Scrollable, KeyListener,
         return (JViewport) c;
     }
 
+    /**
+     * applies the current filter to the view. The filter is evaluated on a
+     * background thread, cancelling any filter still being evaluated, and
+     * the view is updated when it is done.
+     */
     public void updateViewForFilter() {
         // String exp = mf.getCurrentFilterRegExp();
+        final MSCDataModelEventFilter filter;
         if (mf.filteringEnabled())
-            viewModel.setFilter(new JSViewFilter(MSCDataModel.getInstance(),
-                    viewModel, mf.getFilterExpression()));
+            filter = new JSViewFilter(MSCDataModel.getInstance(),
+                    viewModel, mf.getFilterExpression());
         else
-            viewModel.setFilter(new CompactViewFilter(viewModel, ".*"));
-        updateView();
+            filter = new CompactViewFilter(viewModel, ".*");
+        if (filterProgress != null)
+            filterProgress.cancel();
+        final ProgressReport pr = new ProgressReport("Filtering events", "",
+                0, 100);
+        filterProgress = pr;
+        final Thread t = new Thread("Filter") {
+            @Override
+            public void run() {
+                boolean applied = false;
+                try {
+                    applied = viewModel.setFilter(filter, pr);
+                } finally {
+                    pr.progressDone();
+                }
+                if (applied) {
+                    Utils.dispatchOnAWTThreadLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (filterProgress == pr)
+                                filterProgress = null;
+                            updateView();
+                        }
+                    });
+                }
+            }
+        };
+        t.setDaemon(true);
+        t.start();
     }
 
     public void updateView() {
@@ -0,0 +1,178 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.gui;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.cisco.mscviewer.gui.renderer.EventRenderer;
+import com.cisco.mscviewer.model.Entity;
+import com.cisco.mscviewer.model.Event;
+import com.cisco.mscviewer.model.ViewModel;
+
+/**
+ * Geometry of the rows drawn by {@link MSCRenderer}, by view index: the
+ * entity column of each event, its center and its bounding box.
+ *
+ * Rows are computed in pages of {@link #PAGE_ROWS} the first time one of
+ * them is needed, and kept until the zoom, the events in the view (e.g.
+ * because of a filter) or the bounds of the entities change. Only the
+ * {@link #MAX_PAGES} most recently used pages are kept, so the cache stays
+ * small on huge diagrams.
+ *
+ * Pages are immutable once built, and may be read by several threads;
+ * they must be requested holding the data model read lock.
+ */
+final class RenderCache {
+    static final int PAGE_ROWS = 256;
+    private static final int MAX_PAGES = 256;
+
+    /**
+     * the geometry of PAGE_ROWS consecutive rows. Rows past the end of the
+     * view, or whose entity is not open, have entity -1.
+     */
+    static final class Page {
+        final int first;
+        final int[] entity = new int[PAGE_ROWS];
+        final int[] x = new int[PAGE_ROWS];
+        final int[] width = new int[PAGE_ROWS];
+        final int[] bbX = new int[PAGE_ROWS];
+        final int[] bbY = new int[PAGE_ROWS];
+        final int[] bbWidth = new int[PAGE_ROWS];
+        final int[] bbHeight = new int[PAGE_ROWS];
+
+        Page(int first) {
+            this.first = first;
+        }
+
+        boolean contains(int row) {
+            return row >= first && row < first + PAGE_ROWS;
+        }
+
+        /**
+         * sets r to the bounding box of row, or to (-1, -1, 0, 0) if the row
+         * is not drawn.
+         */
+        void getBoundingBox(int row, Rectangle r) {
+            final int i = row - first;
+            if (entity[i] < 0)
+                r.setBounds(-1, -1, 0, 0);
+            else
+                r.setBounds(bbX[i], bbY[i], bbWidth[i], bbHeight[i]);
+        }
+    }
+
+    private final ViewModel viewModel;
+    private int eventHeight;
+    private int eventsVersion;
+    /** center and width of each entity, alternated */
+    private int[] layout = new int[0];
+    /** the open entities, by identity, and their index */
+    private Entity[] entities = new Entity[0];
+    private final IdentityHashMap<Entity, Integer> columns = new IdentityHashMap<Entity, Integer>();
+    private final LinkedHashMap<Integer, Page> pages = new LinkedHashMap<Integer, Page>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page> e) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    RenderCache(ViewModel viewModel) {
+        this.viewModel = viewModel;
+    }
+
+    /**
+     * drops the cached rows if the zoom, the events in the view or the
+     * bounds of the entities have changed since they were computed. This
+     * reads the entity headers, so it must be called on the event dispatch
+     * thread; other threads pass the snapshot they were given.
+     */
+    void validate(int eventHeight) {
+        validate(eventHeight, new RenderSnapshot(viewModel));
+    }
+
+    /**
+     * drops the cached rows if the zoom, the events in the view or the
+     * entity bounds in snapshot s differ from the ones they were computed
+     * for.
+     */
+    synchronized void validate(int eventHeight, RenderSnapshot s) {
+        final int version = viewModel.getEventsVersion();
+        if (eventHeight != this.eventHeight || version != eventsVersion
+                || !Arrays.equals(s.layout, layout)
+                || !Arrays.equals(s.entities, entities)) {
+            pages.clear();
+            this.eventHeight = eventHeight;
+            eventsVersion = version;
+            layout = s.layout;
+            entities = s.entities;
+            columns.clear();
+            for (int i = 0; i < entities.length; i++)
+                columns.put(entities[i], i);
+        }
+    }
+
+    /**
+     * drops all the cached rows.
+     */
+    synchronized void invalidate() {
+        pages.clear();
+    }
+
+    /**
+     * returns the page containing row, computing it if needed.
+     */
+    synchronized Page page(int row) {
+        final int first = row - row % PAGE_ROWS;
+        Page p = pages.get(first);
+        if (p == null) {
+            p = build(first);
+            pages.put(first, p);
+        }
+        return p;
+    }
+
+    private Page build(int first) {
+        final Page p = new Page(first);
+        final int cnt = viewModel.getEventCount();
+        final Dimension maxDim = new Dimension();
+        final Rectangle bb = new Rectangle();
+        for (int i = 0; i < PAGE_ROWS; i++) {
+            final int row = first + i;
+            final Event ev = row < cnt ? viewModel.getEventAt(row) : null;
+            final Integer col = ev != null ? columns.get(ev.getEntity()) : null;
+            final int entityIndex = col != null ? col : -1;
+            p.entity[i] = entityIndex;
+            if (entityIndex < 0)
+                continue;
+            final int x = layout[2 * entityIndex];
+            final int w = layout[2 * entityIndex + 1];
+            final int y = row * eventHeight + eventHeight / 2;
+            maxDim.setSize(w, eventHeight);
+            final EventRenderer r = ev.getRenderer();
+            r.getBoundingBox(maxDim, x, y, bb);
+            p.x[i] = x;
+            p.width[i] = w;
+            p.bbX[i] = bb.x;
+            p.bbY[i] = bb.y;
+            p.bbWidth[i] = bb.width;
+            p.bbHeight[i] = bb.height;
+        }
+        return p;
+    }
+}
@@ -0,0 +1,86 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.gui;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.Map;
+
+import com.cisco.mscviewer.model.Entity;
+import com.cisco.mscviewer.model.ViewModel;
+
+/**
+ * The part of the state {@link MSCRenderer} draws from that lives in Swing
+ * components: the bounds of the entity headers, and the images of the note
+ * bubbles, which are laid out by a text component.
+ *
+ * A snapshot is taken on the event dispatch thread and is immutable, so
+ * that it can be handed to the threads rendering tiles, which must not
+ * touch the components.
+ */
+final class RenderSnapshot {
+    /** the open entities, by index */
+    final Entity[] entities;
+    /** center and width of each entity, alternated */
+    final int[] layout;
+    final int totalWidth;
+    final int rightMargin;
+    /** the images of the notes to draw, by note text */
+    private final Map<String, BufferedImage> notes;
+
+    RenderSnapshot(ViewModel viewModel) {
+        this(viewModel, Collections.<String, BufferedImage> emptyMap());
+    }
+
+    RenderSnapshot(ViewModel viewModel, Map<String, BufferedImage> notes) {
+        final int cnt = viewModel.entityCount();
+        entities = new Entity[cnt];
+        layout = new int[cnt * 2];
+        for (int i = 0; i < cnt; i++) {
+            entities[i] = viewModel.get(i);
+            layout[2 * i] = viewModel.getEntityCenterX(i);
+            layout[2 * i + 1] = viewModel.getEntityWidth(i);
+        }
+        totalWidth = viewModel.getTotalWidth();
+        rightMargin = viewModel.getRighMarginWidth();
+        this.notes = notes;
+    }
+
+    int entityCount() {
+        return entities.length;
+    }
+
+    /**
+     * returns the index of entity en, or -1 if it is not open.
+     */
+    int indexOf(Entity en) {
+        for (int i = 0; i < entities.length; i++) {
+            if (entities[i] == en)
+                return i;
+        }
+        return -1;
+    }
+
+    int getEntityCenterX(int idx) {
+        return layout[2 * idx];
+    }
+
+    int getEntityWidth(int idx) {
+        return idx >= 0 && idx < entities.length ? layout[2 * idx + 1] : -1;
+    }
+
+    /**
+     * returns the image of note n, or null if it wasn't prepared.
+     */
+    BufferedImage getNoteImage(String n) {
+        return notes.get(n);
+    }
+}
@@ -0,0 +1,227 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.gui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.cisco.mscviewer.util.Utils;
+
+/**
+ * Off-screen rendering of a {@link MainPanel}, in tiles of
+ * {@link #TILE_SIZE} pixels square.
+ *
+ * A tile is identified by its position and by the event height (i.e. the
+ * zoom), which together determine the range of view indices and the x range
+ * it covers. Tiles are rendered into images by {@link MSCRenderer} on a pool
+ * of background threads, from a {@link RenderSnapshot} of the entity
+ * headers and notes taken when the tile is requested; the event dispatch
+ * thread only draws the images
+ * already rendered, and for a tile that isn't yet it draws the image of a
+ * previous rendering, if any, or the plain background. The panel is
+ * repainted as tiles complete.
+ *
+ * Rendered tiles become stale when {@link #invalidate()} is called, and
+ * are rendered again the next time they are painted. Only the
+ * {@link #MAX_TILES} most recently painted tiles are kept.
+ *
+ * Except for rendering and {@link #invalidate()}, all the methods must be
+ * called on the event dispatch thread.
+ */
+final class TileCache {
+    static final int TILE_SIZE = 256;
+    private static final int MAX_TILES = 192;
+    private static final ExecutorService workers = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread t = new Thread(r, "Tile Renderer");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                }
+            });
+
+    private static final class Key {
+        final int col, row, eventHeight;
+
+        Key(int col, int row, int eventHeight) {
+            this.col = col;
+            this.row = row;
+            this.eventHeight = eventHeight;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            final Key k = (Key) o;
+            return k.col == col && k.row == row
+                    && k.eventHeight == eventHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            return (col * 31 + row) * 31 + eventHeight;
+        }
+    }
+
+    private static final class Tile {
+        final Key key;
+        /** the last image rendered, and the generation it was rendered at */
+        BufferedImage image;
+        int generation = -1;
+        /** the rendering in progress, if any */
+        Future<?> pending;
+
+        Tile(Key key) {
+            this.key = key;
+        }
+    }
+
+    private final MainPanel panel;
+    private final MSCRenderer renderer;
+    private volatile int generation;
+    private final LinkedHashMap<Key, Tile> tiles = new LinkedHashMap<Key, Tile>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Tile> e) {
+            if (size() <= MAX_TILES)
+                return false;
+            final Future<?> f = e.getValue().pending;
+            if (f != null)
+                f.cancel(false);
+            return true;
+        }
+    };
+
+    TileCache(MainPanel panel, MSCRenderer renderer) {
+        this.panel = panel;
+        this.renderer = renderer;
+    }
+
+    /**
+     * marks all the tiles as stale. This may be called on any thread.
+     */
+    void invalidate() {
+        generation++;
+    }
+
+    /**
+     * drops all the tiles, cancelling the ones not yet rendered.
+     */
+    void clear() {
+        for (final Tile t : tiles.values()) {
+            if (t.pending != null)
+                t.pending.cancel(false);
+        }
+        tiles.clear();
+    }
+
+    /**
+     * draws the tiles intersecting clip, requesting the ones missing or
+     * stale.
+     */
+    void paint(Graphics2D g2d, Rectangle clip, Color background) {
+        final int eventHeight = renderer.getEventHeight();
+        final int c0 = clip.x / TILE_SIZE;
+        final int c1 = (clip.x + clip.width - 1) / TILE_SIZE;
+        final int r0 = clip.y / TILE_SIZE;
+        final int r1 = (clip.y + clip.height - 1) / TILE_SIZE;
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                final Key k = new Key(col, row, eventHeight);
+                Tile t = tiles.get(k);
+                if (t == null) {
+                    t = new Tile(k);
+                    tiles.put(k, t);
+                }
+                final int x = col * TILE_SIZE;
+                final int y = row * TILE_SIZE;
+                if (t.image != null) {
+                    g2d.drawImage(t.image, x, y, null);
+                } else {
+                    g2d.setColor(background);
+                    g2d.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+                }
+                if (t.generation != generation && t.pending == null)
+                    submit(t, panel.getFont(),
+                            renderer.snapshot(y, TILE_SIZE));
+            }
+        }
+    }
+
+    private void submit(final Tile t, final Font font,
+            final RenderSnapshot s) {
+        final int gen = generation;
+        t.pending = workers.submit(new Runnable() {
+            @Override
+            public void run() {
+                BufferedImage img = null;
+                try {
+                    img = render(t.key, font, s);
+                } finally {
+                    final BufferedImage rendered = img;
+                    Utils.dispatchOnAWTThreadLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            t.pending = null;
+                            if (rendered == null || tiles.get(t.key) != t)
+                                return;
+                            t.image = rendered;
+                            t.generation = gen;
+                            panel.repaintTile(t.key.col * TILE_SIZE,
+                                    t.key.row * TILE_SIZE, TILE_SIZE,
+                                    TILE_SIZE);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * renders the tile with key k, or returns null if the zoom has changed
+     * in the meantime.
+     */
+    private BufferedImage render(Key k, Font font, RenderSnapshot s) {
+        if (renderer.getEventHeight() != k.eventHeight)
+            return null;
+        final int x = k.col * TILE_SIZE;
+        final int y = k.row * TILE_SIZE;
+        final BufferedImage img = new BufferedImage(TILE_SIZE, TILE_SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = img.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+            g.setFont(font);
+            g.translate(-x, -y);
+            g.setClip(x, y, TILE_SIZE, TILE_SIZE);
+            renderer.render(g, false, y, TILE_SIZE, s);
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+}
@@ -24,11 +24,16 @@ public class BirthInteractionRenderer extends DefaultInteractionRenderer {
      */
     @Override
     public void setup(JSonObject props, Event ev) {
-        props.clear();
-        props.set("color", new JSonStringValue("000000"));
-        props.set("dashed", new JSonStringValue("true"));
-        props.set("draw_tip", new JSonStringValue("false"));
-        props.set("stroke_width", new JSonStringValue("2.0"));
-        super.setup(props, ev);
+        final JSonObject p = new JSonObject();
+        p.set("color", new JSonStringValue("000000"));
+        p.set("dashed", new JSonStringValue("true"));
+        p.set("draw_tip", new JSonStringValue("false"));
+        p.set("stroke_width", new JSonStringValue("2.0"));
+        super.setup(p, ev);
+    }
+
+    @Override
+    public String[] getSetupKeys() {
+        return NO_SETUP_KEYS;
     }
 }
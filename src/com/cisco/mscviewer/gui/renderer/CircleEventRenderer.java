@@ -37,6 +37,11 @@ public class CircleEventRenderer extends EventRenderer {
         color1 = color.darker();
     }
 
+    @Override
+    public String[] getSetupKeys() {
+        return new String[] { "radius", "color" };
+    }
+
     @Override
     public void render(Graphics2D g2d, Dimension maxDim) {
         final int radius = (int) (maxDim.height / 2 * factor);
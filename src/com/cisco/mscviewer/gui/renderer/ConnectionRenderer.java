@@ -33,6 +33,11 @@ public class ConnectionRenderer extends EventRenderer {
         setScaleSource(false);
     }
 
+    @Override
+    public String[] getSetupKeys() {
+        return new String[] { "completed" };
+    }
+
     @Override
     public void render(Graphics2D g2d, Dimension maxDim) {
         final int H = maxDim.height * 2 / 3;
@@ -18,9 +18,10 @@ import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.geom.Arc2D;
 
-import com.cisco.mscviewer.gui.MainFrame;
+import com.cisco.mscviewer.gui.MSCRenderer;
 import com.cisco.mscviewer.gui.Marker;
 import com.cisco.mscviewer.model.Event;
+import com.cisco.mscviewer.model.Interaction;
 import com.cisco.mscviewer.model.JSonObject;
 import com.cisco.mscviewer.model.JSonValue;
 
@@ -73,6 +74,12 @@ public class DefaultInteractionRenderer extends InteractionRenderer {
         thickStroke = getBasicStroke(sw + 6, false);
     }
 
+    @Override
+    public String[] getSetupKeys() {
+        return new String[] { "straight", "stroke_width", "draw_tip", "dashed",
+                "color" };
+    }
+
     private void drawArrow(Graphics2D g2d, int x1, int y1, int x2, int y2,
             boolean self) {
         double theta;
@@ -154,15 +161,15 @@ public class DefaultInteractionRenderer extends InteractionRenderer {
     }
 
     @Override
-    public void render(Rectangle b1, Rectangle b2, Graphics2D g2d,
-            boolean isSelected, Marker m) {
+    public void render(Interaction inter, Rectangle b1, Rectangle b2,
+            Graphics2D g2d, boolean isSelected, Marker m) {
         // a bounding box where x = -1 indicates the event is either not there,
         // or the entity for
         // the event is not being displayed
         // a null event indicates the event matching the other one is not in the
         // data set
-        final Event fev = getInteraction().getFromEvent();
-        final Event tev = getInteraction().getToEvent();
+        final Event fev = inter.getFromEvent();
+        final Event tev = inter.getToEvent();
         final boolean self = (fev != null && tev != null && fev.getEntity() == tev
                 .getEntity());
         final Segment s = new Segment();
@@ -173,7 +180,7 @@ public class DefaultInteractionRenderer extends InteractionRenderer {
             g2d.setColor(EventRenderer.SELECTION_COLOR);
             drawArrow(g2d, s.x1, s.y1, s.x2, s.y2, self);
         }
-        g2d.setColor(color != null ? color : MainFrame.getInstance().getPrefs().getDefaultInteractionColor());
+        g2d.setColor(color != null ? color : MSCRenderer.getPrefs().getDefaultInteractionColor());
         if (fev == null || tev == null) {
             g2d.setStroke(dashedStroke);
             drawArrow(g2d, s.x1, s.y1, s.x2, s.y2, self);
@@ -219,11 +226,11 @@ public class DefaultInteractionRenderer extends InteractionRenderer {
     }
 
     @Override
-    public boolean inSelectionArea(Rectangle b1, Rectangle b2, int px, int py,
-            boolean self) {
+    public boolean inSelectionArea(Interaction inter, Rectangle b1,
+            Rectangle b2, int px, int py, boolean self) {
         final Segment s = new Segment();
-        final Event fev = getInteraction().getFromEvent();
-        final Event tev = getInteraction().getToEvent();
+        final Event fev = inter.getFromEvent();
+        final Event tev = inter.getToEvent();
         getSegment(fev, b1, tev, b2, s);
         double d;
         if ((!self) || straight) {
@@ -20,6 +20,7 @@ import com.cisco.mscviewer.model.JSonObject;
 
 abstract public class EventRenderer {
     public final static Color SELECTION_COLOR = Color.red;
+    protected final static String[] NO_SETUP_KEYS = new String[0];
     private boolean scaleSource;
 
     /**
@@ -68,6 +69,17 @@ abstract public class EventRenderer {
         // }
     }
 
+    /**
+     * returns the names of the properties {@link #setup(JSonObject)} depends
+     * on. Events with the same renderer class and the same values for
+     * these properties share one renderer instance (see
+     * {@link RendererRegistry}). Returns null if the setup depends on
+     * anything else, in which case every event gets its own instance.
+     */
+    public String[] getSetupKeys() {
+        return NO_SETUP_KEYS;
+    }
+
     // public int getLabelStyle() {
     // return labelStyle;
     // }
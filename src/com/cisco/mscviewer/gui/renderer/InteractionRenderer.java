@@ -24,6 +24,7 @@ import com.cisco.mscviewer.model.JSonObject;
 
 abstract public class InteractionRenderer {
     private final static HashMap<String, BasicStroke> bs = new HashMap<String, BasicStroke>();
+    protected final static String[] NO_SETUP_KEYS = new String[0];
     private Interaction inter;
 
     protected final static BasicStroke getBasicStroke(int width, boolean dashed) {
@@ -56,15 +57,33 @@ abstract public class InteractionRenderer {
 
     abstract public void setup(JSonObject props, Event ev);
 
+    /**
+     * returns the names of the properties {@link #setup(JSonObject, Event)}
+     * depends on. Interactions with the same renderer class and the same
+     * values for these properties share one renderer instance (see
+     * {@link RendererRegistry}). Returns null if the setup depends on
+     * anything else (e.g. the interaction or the event), in which case
+     * every interaction gets its own instance.
+     */
+    public String[] getSetupKeys() {
+        return null;
+    }
+
+    /**
+     * returns the interaction this renderer was initialized with. For
+     * shared renderers this is just the first interaction using it, so
+     * rendering code should rely on the interaction passed to
+     * {@link #render} and {@link #inSelectionArea} instead.
+     */
     public Interaction getInteraction() {
         return inter;
     }
 
-    public abstract void render(Rectangle fb, Rectangle tb, Graphics2D g2d,
-            boolean isSelected, Marker m);
+    public abstract void render(Interaction inter, Rectangle fb,
+            Rectangle tb, Graphics2D g2d, boolean isSelected, Marker m);
 
-    public abstract boolean inSelectionArea(Rectangle b1, Rectangle b2, int px,
-            int py, boolean self);
+    public abstract boolean inSelectionArea(Interaction inter, Rectangle b1,
+            Rectangle b2, int px, int py, boolean self);
 
     public abstract void setColor(Color color);
 }
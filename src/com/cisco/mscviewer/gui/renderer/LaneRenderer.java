@@ -21,6 +21,7 @@ import java.util.HashMap;
 import com.cisco.mscviewer.gui.Marker;
 import com.cisco.mscviewer.model.Entity;
 import com.cisco.mscviewer.model.Event;
+import com.cisco.mscviewer.model.Interaction;
 import com.cisco.mscviewer.model.JSonNumberValue;
 import com.cisco.mscviewer.model.JSonObject;
 import com.cisco.mscviewer.model.JSonValue;
@@ -54,7 +55,7 @@ public class LaneRenderer extends InteractionRenderer {
         basic2 = new BasicStroke(strokeWidth + 2);
         thickStroke = getBasicStroke((int) strokeWidth + 6, false);
 
-        if (getInteraction().getFromEvent() == ev) {
+        if (ev.equals(getInteraction().getFromEvent())) {
             final Entity en = ev.getEntity();
             String lanes[] = hm.get(en);
             if (lanes == null) {
@@ -134,8 +135,8 @@ public class LaneRenderer extends InteractionRenderer {
     }
 
     @Override
-    public void render(Rectangle b1, Rectangle b2, Graphics2D g2d,
-            boolean isSelected, Marker m) {
+    public void render(Interaction inter, Rectangle b1, Rectangle b2,
+            Graphics2D g2d, boolean isSelected, Marker m) {
         final int count = computePoints(xp, yp, b1, b2);
         final Stroke st = g2d.getStroke();
         if (isSelected) {
@@ -165,8 +166,8 @@ public class LaneRenderer extends InteractionRenderer {
     }
 
     @Override
-    public boolean inSelectionArea(Rectangle b1, Rectangle b2, int px, int py,
-            boolean self) {
+    public boolean inSelectionArea(Interaction inter, Rectangle b1,
+            Rectangle b2, int px, int py, boolean self) {
         final int count = computePoints(xp, yp, b1, b2);
         for (int i = 0; i < count - 1; i++) {
             if (xp[i] == xp[i + 1]
@@ -19,6 +19,7 @@ import java.awt.Stroke;
 
 import com.cisco.mscviewer.gui.Marker;
 import com.cisco.mscviewer.model.Event;
+import com.cisco.mscviewer.model.Interaction;
 import com.cisco.mscviewer.model.JSonBooleanValue;
 import com.cisco.mscviewer.model.JSonNumberValue;
 import com.cisco.mscviewer.model.JSonObject;
@@ -71,6 +72,11 @@ public class RectangleInteractionRenderer extends InteractionRenderer {
         thickStroke = new BasicStroke(strokeWidth + 6);
     }
 
+    @Override
+    public String[] getSetupKeys() {
+        return new String[] { "stroke_width", "dashed", "color" };
+    }
+
     @SuppressWarnings("unused")
     private void getSegment(Event fev, Rectangle b1, Event tev, Rectangle b2,
             Segment s) {
@@ -108,8 +114,8 @@ public class RectangleInteractionRenderer extends InteractionRenderer {
     }
 
     @Override
-    public void render(Rectangle b1, Rectangle b2, Graphics2D g2d,
-            boolean isSelected, Marker m) {
+    public void render(Interaction inter, Rectangle b1, Rectangle b2,
+            Graphics2D g2d, boolean isSelected, Marker m) {
         Rectangle r;
         if (b1.x >= 0) {
             r = new Rectangle(b1);
@@ -146,8 +152,8 @@ public class RectangleInteractionRenderer extends InteractionRenderer {
     }
 
     @Override
-    public boolean inSelectionArea(Rectangle b1, Rectangle b2, int px, int py,
-            boolean self) {
+    public boolean inSelectionArea(Interaction inter, Rectangle b1,
+            Rectangle b2, int px, int py, boolean self) {
         return false;
     }
 
@@ -0,0 +1,154 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.gui.renderer;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.cisco.mscviewer.model.Event;
+import com.cisco.mscviewer.model.Interaction;
+import com.cisco.mscviewer.model.JSonObject;
+import com.cisco.mscviewer.model.JSonStringValue;
+import com.cisco.mscviewer.model.JSonValue;
+
+/**
+ * Creates and shares the renderers of events and interactions.
+ *
+ * Renderer classes are looked up by type name once. Renderers are keyed by
+ * their class plus the values of the properties their setup depends on
+ * (see {@link EventRenderer#getSetupKeys()} and
+ * {@link InteractionRenderer#getSetupKeys()}), so that all the events and
+ * interactions with the same configuration share one instance, which must
+ * not be modified after its setup. Renderers whose setup keys are null are
+ * instantiated and initialized for every event or interaction.
+ *
+ * All methods can be invoked concurrently.
+ */
+public final class RendererRegistry {
+    private static final String PACKAGE = "com.cisco.mscviewer.gui.renderer.";
+    /** marks a type name without a renderer class */
+    private static final Class<?> NO_CLASS = Void.class;
+    /** marks a renderer class whose instances cannot be shared */
+    private static final String[] UNSHARED = new String[0];
+
+    private static final ConcurrentHashMap<String, Class<?>> classes = new ConcurrentHashMap<String, Class<?>>();
+    private static final ConcurrentHashMap<Class<?>, String[]> setupKeys = new ConcurrentHashMap<Class<?>, String[]>();
+    private static final ConcurrentHashMap<String, EventRenderer> eventRenderers = new ConcurrentHashMap<String, EventRenderer>();
+    private static final ConcurrentHashMap<String, InteractionRenderer> interactionRenderers = new ConcurrentHashMap<String, InteractionRenderer>();
+
+    private RendererRegistry() {
+    }
+
+    /**
+     * returns the class implementing the renderer for the specified type,
+     * i.e. the class named <type>Renderer in this package, or null if there
+     * is no such class.
+     */
+    public static Class<?> getRendererClass(String type) {
+        Class<?> c = classes.get(type);
+        if (c == null) {
+            try {
+                c = Class.forName(PACKAGE + type + "Renderer");
+            } catch (final ClassNotFoundException e) {
+                c = NO_CLASS;
+            }
+            classes.put(type, c);
+        }
+        return c == NO_CLASS ? null : c;
+    }
+
+    /**
+     * returns an initialized event renderer of the specified class for an
+     * event with the specified properties.
+     */
+    public static EventRenderer getEventRenderer(Class<?> c, JSonObject props)
+            throws InstantiationException, IllegalAccessException {
+        String[] keys = setupKeys.get(c);
+        if (keys == null) {
+            keys = unsharedIfNull(((EventRenderer) c.newInstance())
+                    .getSetupKeys());
+            setupKeys.put(c, keys);
+        }
+        if (keys == UNSHARED) {
+            final EventRenderer r = (EventRenderer) c.newInstance();
+            r.initialize(props);
+            return r;
+        }
+        final String key = key(c, keys, props);
+        EventRenderer r = eventRenderers.get(key);
+        if (r == null) {
+            r = (EventRenderer) c.newInstance();
+            r.initialize(props);
+            final EventRenderer prev = eventRenderers.putIfAbsent(key, r);
+            if (prev != null)
+                r = prev;
+        }
+        return r;
+    }
+
+    /**
+     * returns an initialized interaction renderer of the specified class
+     * for the specified interaction, created by event ev with properties
+     * props. A shared renderer is initialized with the first interaction
+     * using it.
+     */
+    public static InteractionRenderer getInteractionRenderer(Class<?> c,
+            Interaction inter, JSonObject props, Event ev)
+            throws InstantiationException, IllegalAccessException {
+        String[] keys = setupKeys.get(c);
+        if (keys == null) {
+            keys = unsharedIfNull(((InteractionRenderer) c.newInstance())
+                    .getSetupKeys());
+            setupKeys.put(c, keys);
+        }
+        if (keys == UNSHARED) {
+            final InteractionRenderer r = (InteractionRenderer) c
+                    .newInstance();
+            r.initialize(inter, props, ev);
+            return r;
+        }
+        final String key = key(c, keys, props);
+        InteractionRenderer r = interactionRenderers.get(key);
+        if (r == null) {
+            r = (InteractionRenderer) c.newInstance();
+            r.initialize(inter, props, ev);
+            final InteractionRenderer prev = interactionRenderers
+                    .putIfAbsent(key, r);
+            if (prev != null)
+                r = prev;
+        }
+        return r;
+    }
+
+    private static String[] unsharedIfNull(String[] keys) {
+        return keys == null ? UNSHARED : keys;
+    }
+
+    /**
+     * returns the canonical form of the configuration: the class name
+     * followed by the properties in keys that are present in props. String
+     * values are marked differently from other values with the same
+     * representation, since renderers may distinguish between them.
+     */
+    private static String key(Class<?> c, String[] keys, JSonObject props) {
+        if (keys.length == 0 || props == null)
+            return c.getName();
+        final StringBuilder sb = new StringBuilder(c.getName());
+        for (final String k : keys) {
+            final JSonValue v = props.get(k);
+            if (v == null)
+                continue;
+            sb.append('\0').append(k)
+                    .append(v instanceof JSonStringValue ? '"' : ':')
+                    .append(v.toString());
+        }
+        return sb.toString();
+    }
+}
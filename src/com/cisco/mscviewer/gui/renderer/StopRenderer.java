@@ -35,6 +35,11 @@ public class StopRenderer extends EventRenderer {
         }
     }
 
+    @Override
+    public String[] getSetupKeys() {
+        return new String[] { "color" };
+    }
+
     @Override
     public void render(Graphics2D g2d, Dimension maxDim) {
         final Stroke s = g2d.getStroke();
@@ -33,4 +33,9 @@ public class TransitionRenderer extends DefaultInteractionRenderer {
         super.setup(p, ev);
     }
 
+    @Override
+    public String[] getSetupKeys() {
+        return new String[] { "color", "stroke_width" };
+    }
+
 }
@@ -15,19 +15,27 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Lock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,9 +45,11 @@ import javax.swing.SwingWorker;
 
 import com.cisco.mscviewer.Main;
 import com.cisco.mscviewer.gui.MainFrame;
+import com.cisco.mscviewer.gui.renderer.DefaultEventRenderer;
 import com.cisco.mscviewer.gui.renderer.DefaultInteractionRenderer;
 import com.cisco.mscviewer.gui.renderer.EventRenderer;
 import com.cisco.mscviewer.gui.renderer.InteractionRenderer;
+import com.cisco.mscviewer.gui.renderer.RendererRegistry;
 import com.cisco.mscviewer.model.Entity;
 import com.cisco.mscviewer.model.Event;
 import com.cisco.mscviewer.model.IndexableLineFile;
@@ -51,10 +61,12 @@ import com.cisco.mscviewer.model.JSonValue;
 import com.cisco.mscviewer.model.MSCDataModel;
 import com.cisco.mscviewer.model.SimpleInterval;
 import com.cisco.mscviewer.tree.Interval;
+import com.cisco.mscviewer.util.EventLineParser;
 import com.cisco.mscviewer.util.JSonParser;
 import com.cisco.mscviewer.util.ProgressReport;
 import com.cisco.mscviewer.util.Report;
 import com.cisco.mscviewer.util.Resources;
+import com.cisco.mscviewer.util.Utils;
 
 public class JsonLoader implements Loader {
     public enum TypeEn {
@@ -62,12 +74,10 @@ public class JsonLoader implements Loader {
         SOURCE, SINK, LOCAL
     };
 
-    private static final String MSC_EVENT = "@msc_event";
-    private static final String MSC_EVENT1 = "@event";
-    private static final String MSC_ENTITY = "@msc_entity";
-    private static final String MSC_ENTITY1 = "@entity";
-    private static final String MSC_KEY_SRC = "src";
-    private static final String MSC_KEY_DST = "dst";
+    static final String MSC_EVENT = "@msc_event";
+    static final String MSC_EVENT1 = "@event";
+    static final String MSC_ENTITY = "@msc_entity";
+    static final String MSC_ENTITY1 = "@entity";
     private static final String MSC_KEY_INTER_ID = "id";
     private static final String MSC_KEY_ENT_ID = "id";
     private static final String MSC_KEY_ENT_NAME = "name";
@@ -174,6 +184,31 @@ public class JsonLoader implements Loader {
         }
     }
 
+    /**
+     * returns the initialized renderer of type t for interaction inter,
+     * created by event ev with properties props. Renderers with the same
+     * configuration are shared, see {@link RendererRegistry}.
+     */
+    static InteractionRenderer createInteractionRenderer(String t,
+            Interaction inter, JSonObject props, Event ev, String fname,
+            int lineNum) throws IOException {
+        final String irendererName = t + "Renderer";
+        final Class<?> c = t == null ? DefaultInteractionRenderer.class
+                : RendererRegistry.getRendererClass(t);
+        if (c == null)
+            throw new IOException(fname + ":" + lineNum
+                    + ":Unable to instantiate class " + irendererName + ".");
+        try {
+            return RendererRegistry.getInteractionRenderer(c, inter, props, ev);
+        } catch (final InstantiationException e) {
+            throw new IOException(fname + ":" + lineNum
+                    + ":Unable to instantiate class " + irendererName + ".", e);
+        } catch (final IllegalAccessException e) {
+            throw new IOException(fname + ":" + lineNum
+                    + ":Unable to instantiate class " + irendererName + ".", e);
+        }
+    }
+
     private static Interaction createInteraction(MSCDataModel dm,
             String pairingId, JSonObject props, Event ev, TypeEn type,
             int index, String fname, int lineNum) throws IOException {
@@ -183,37 +218,15 @@ public class JsonLoader implements Loader {
             t = props.get("type").toString();
         else
             t = "DefaultInteraction";
-        InteractionRenderer irenderer;
-        if (t == null) {
-            irenderer = new DefaultInteractionRenderer();
-        } else {
-            final String irendererName = t + "Renderer";
-            try {
-                irenderer = (InteractionRenderer) Class.forName(
-                        "com.cisco.mscviewer.gui.renderer." + irendererName)
-                        .newInstance();
-            } catch (final ClassNotFoundException e) {
-                throw new IOException(
-                        fname + ":" + lineNum + ":Unable to instantiate class "
-                                + irendererName + ".", e);
-            } catch (final InstantiationException e) {
-                throw new IOException(
-                        fname + ":" + lineNum + ":Unable to instantiate class "
-                                + irendererName + ".", e);
-            } catch (final IllegalAccessException e) {
-                throw new IOException(
-                        fname + ":" + lineNum + ":Unable to instantiate class "
-                                + irendererName + ".", e);
-            }
-        }
         if (type == TypeEn.SOURCE) {
-            inter = new Interaction(dm, index, -1, irenderer);
+            inter = new Interaction(dm, index, -1, null);
             // ev.addOutgoingInteraction(inter);
         } else {
-            inter = new Interaction(dm, -1, index, irenderer);
+            inter = new Interaction(dm, -1, index, null);
             // ev.setIncomingInteraction(inter);
         }
-        irenderer.initialize(inter, props, ev);
+        inter.setIRenderer(createInteractionRenderer(t, inter, props, ev,
+                fname, lineNum));
         return inter;
     }
 
@@ -235,394 +248,894 @@ public class JsonLoader implements Loader {
         return null;
     }
 
-    @SuppressWarnings("unchecked")
-    private static void loadInternal(String fname, MSCDataModel dm)
-            throws IOException {
+    /**
+     * minimum file size for which parsing is distributed over a worker pool.
+     * Below this size the cost of starting the pool exceeds the gain.
+     */
+    private static final long PARALLEL_MIN_FILE_SIZE = 1 << 20;
+    private static final int CHUNK_LINES = 4096;
+    /** ms between checks of the size of a followed file */
+    private static final int FOLLOW_POLL_MS = 500;
+
+    /** the file being followed, if any. Guarded by JsonLoader.class */
+    private static Follower follower;
+
+    /**
+     * result of parsing a single line of the input file. A ParsedLine is
+     * built by {@link #parseLine(String, int, String)} without touching the
+     * model, so it can be produced on a worker thread, and is consumed in
+     * file order by {@link #applyLine(ParsedLine, LoadState)}.
+     */
+    private static final class ParsedLine {
+        final int lineNum;
+        Exception error;
+        boolean isEntity;
+        // entity line
+        JSonObject jo;
+        String id;
+        String name;
+        // event line
+        EventLineParser event;
+        long ts = -1;
+        // timestamps in date format are parsed in file order, since
+        // parseDate() reorders the formatters it tries.
+        String dateStr;
+        boolean dateFromTimeKey;
+        EventRenderer renderer;
+
+        ParsedLine(int lineNum) {
+            this.lineNum = lineNum;
+        }
+    }
+
+    /**
+     * a run of consecutive lines of the input file, parsed as a unit on the
+     * worker pool.
+     */
+    private static final class LineChunk {
+        final int firstLineNum;
+        final long[] offsets = new long[CHUNK_LINES];
+        final long[] ends = new long[CHUNK_LINES];
+        final byte[] kinds = new byte[CHUNK_LINES];
+        final String[] payloads = new String[CHUNK_LINES];
+        final ParsedLine[] parsed = new ParsedLine[CHUNK_LINES];
+        int count;
+
+        LineChunk(int firstLineNum) {
+            this.firstLineNum = firstLineNum;
+        }
+    }
+
+    /**
+     * order-sensitive state carried from one line to the next while
+     * building the model.
+     */
+    private static final class LoadState {
+        final String fname;
+        final MSCDataModel dm;
         final HashMap<String, Interaction> pendingSourced = new HashMap<String, Interaction>();
         final HashMap<String, Interaction> pendingSinked = new HashMap<String, Interaction>();
-        final HashMap<String, Interval> pendingBlocks = new HashMap<String, Interval>();
         final HashMap<String, String> alias = new HashMap<String, String>();
-        final File file = new File(fname);
-        final long flen = file.length();
-        dm.reset();
-        dm.setOpenPath(new File(fname).getParent());
-        dm.setFilePath(fname);
-        dm.setLoading(true);
-        final CustomBufferedReader fr = new CustomBufferedReader(new FileReader(file), 32768);
-        String line;
-        int lineNum = 0;
-        // readCnt and writeCnt can differ because we may read different type of line separators,
-        // but we always do println, which will use the system (platform dependent) line separator.
-        final ProgressReport pr = new ProgressReport("Loading file", fname, 0,
-                flen - 1);
+        /** all interactions, in the order they were created */
+        final ArrayList<Interaction> created = new ArrayList<Interaction>();
+        /**
+         * for each created interaction, the index of its attributes in the
+         * "src" or "dst" value of the event creating it (-1 if it has
+         * default attributes), shifted left by one; the lowest bit is set
+         * if the interaction was created by its sink event.
+         */
+        int[] createdAttrs = new int[256];
+        /** the last block of each entity, still open */
+        final HashMap<String, Interval> pendingBlocks = new HashMap<String, Interval>();
+        /** index of the first event not assigned to a block yet */
+        int blocksFrom;
+        int lineNum;
+        /** time of the last publication of the model, in ms */
+        long published = System.currentTimeMillis();
+
+        LoadState(String fname, MSCDataModel dm) {
+            this.fname = fname;
+            this.dm = dm;
+        }
+
+        /**
+         * publishes the events loaded so far to the model listeners, if
+         * {@link Main#getPublishInterval()} ms have elapsed since the last
+         * publication. The user can then navigate them while loading goes
+         * on. Must be called without holding the write lock.
+         */
+        void publishIfDue(ProgressReport pr) {
+            final int interval = Main.getPublishInterval();
+            if (interval <= 0)
+                return;
+            final long now = System.currentTimeMillis();
+            if (now - published >= interval) {
+                published = now;
+                dm.notifyEventsAppended();
+                pr.releaseInput();
+            }
+        }
+
+        void created(Interaction inter, TypeEn type, int attrIdx) {
+            final int n = created.size();
+            if (n == createdAttrs.length)
+                createdAttrs = Arrays.copyOf(createdAttrs, n * 2);
+            createdAttrs[n] = (attrIdx << 1) | (type == TypeEn.SINK ? 1 : 0);
+            created.add(inter);
+        }
+    }
+
+    /**
+     * returns the initialized renderer of type t for an event with
+     * properties props. Falls back to {@link DefaultEventRenderer} if there
+     * is no such renderer.
+     */
+    static EventRenderer createEventRenderer(String t, JSonObject props,
+            String fname, int lineNum) throws IOException {
+        final EventRenderer renderer = Resources.getImageRenderer(t);
+        if (renderer != null)
+            return renderer;
+        String rendererName = "com.cisco.mscviewer.gui.renderer." + t
+                + "Renderer";
+        Class<?> c = RendererRegistry.getRendererClass(t);
+        if (c == null) {
+            System.err.println(fname + ":" + lineNum
+                    + ": Neither an image renderer " + t + ", nor a class "
+                    + rendererName + " was found.");
+            rendererName = "com.cisco.mscviewer.gui.renderer.DefaultEventRenderer";
+            c = DefaultEventRenderer.class;
+        }
         try {
-            IndexableLineFile llm = dm.getLogListModel();
-            llm.setFile(fname);
-            int x = 0;
-            while ((line = fr.readLine()) != null) {
-                dm.addSourceLine(fr.lineStartPosition());
+            return RendererRegistry.getEventRenderer(c, props);
+        } catch (final InstantiationException e) {
+            throw new IOException(fname + ":" + lineNum
+                    + ":Unable to instantiate class " + rendererName + ".", e);
+        } catch (final IllegalAccessException e) {
+            throw new IOException(fname + ":" + lineNum
+                    + ":Unable to instantiate class " + rendererName + ".", e);
+        }
+    }
+
+    /**
+     * parses the payload of a line of the input file containing an event or
+     * entity marker. This method has no side effect on the model and may be
+     * called concurrently on different lines.
+     */
+    private static ParsedLine parseLine(int kind, String payload,
+            long lineStart, long lineEnd, int lineNum, LoadState st)
+            throws IOException {
+        final String fname = st.fname;
+        if (kind == MappedLineScanner.EVENT) {
+            final ParsedLine pl = new ParsedLine(lineNum);
+            EventLineParser ep;
+            try {
+                ep = new EventLineParser(payload, fname, lineNum);
+            } catch (final JSonException ex) {
+                throw new IOException(ex);
+            }
+            pl.event = ep;
+            if (ep.getEntity() == null)
+                throw new IOException(fname + ":" + lineNum
+                        + ":Missing \"entity\" key");
+            final String tm = ep.getTime();
+            if (ep.hasNumericTime()) {
+                pl.ts = ep.getNumericTime();
+            } else if (tm != null) {
+                final String time = tm;
+                if (time.endsWith("s")) {
+                    final int len = time.length();
+                    final char pre = time.charAt(len - 2);
+                    switch (pre) {
+                    case 'n':
+                        pl.ts = Long.parseLong(time.substring(0, len - 2));
+                        break;
+                    case 'u':
+                        pl.ts = Long.parseLong(time.substring(0, len - 2)) * 1000;
+                        break;
+                    case 'm':
+                        pl.ts = Long.parseLong(time.substring(0, len - 2)) * 1000000;
+                        break;
+                    default:
+                        if (Character.isDigit(pre)) {
+                            pl.ts = Long.parseLong(time.substring(0, len - 1)) * 1000000000;
+                        } else {
+                            throw new IOException(fname + ":" + lineNum
+                                    + ":Invalid time unit specifier");
+                        }
+                    }
+                } else {
+                    try {
+                        pl.ts = Long.parseLong(time);
+                    } catch (final NumberFormatException ex) {
+                        pl.dateStr = time;
+                        pl.dateFromTimeKey = true;
+                    }
+                }
+            } else {
+                // parse date from syslog timestamp
+                pl.dateStr = st.dm.getLogListModel().getText(lineStart,
+                        lineEnd);
+            }
+            if (ep.getType() != null)
+                pl.renderer = createEventRenderer(ep.getType(), ep.getProps(),
+                        fname, lineNum);
+            return pl;
+        }
+        final ParsedLine pl = new ParsedLine(lineNum);
+        pl.isEntity = true;
+        try {
+            pl.jo = JSonParser.parseObject(payload, fname, lineNum);
+        } catch (final JSonException ex) {
+            throw new IOException(ex);
+        }
+        pl.id = pl.jo.get(MSC_KEY_ENT_ID).toString();
+        if (pl.id == null)
+            throw new IllegalArgumentException(fname + ":" + lineNum
+                    + ":Missing \"id\" key");
+        pl.name = pl.jo.get(MSC_KEY_ENT_NAME).toString();
+        if (pl.name == null)
+            throw new IllegalArgumentException(fname + ":" + lineNum
+                    + ":Missing \"name\" key");
+        return pl;
+    }
+
+    /**
+     * adds to the model the entity or event described by a parsed line.
+     * Lines must be applied in file order, since aliases, source entity
+     * stacks and interaction pairing depend on the preceding lines.
+     */
+    @SuppressWarnings("unchecked")
+    private static void applyLine(ParsedLine pl, LoadState st)
+            throws IOException {
+        if (pl.error != null) {
+            if (pl.error instanceof IOException)
+                throw (IOException) pl.error;
+            throw (RuntimeException) pl.error;
+        }
+        final MSCDataModel dm = st.dm;
+        final String fname = st.fname;
+        final int lineNum = pl.lineNum;
+        if (pl.isEntity) {
+            st.alias.put(pl.id, pl.name);
+            Entity en = dm.getEntity(pl.id);
+            if (en == null) {
+                en = dm.addEntity(pl.id, pl.name);
+            } else {
+                en.setName(pl.name);
+            }
+            Object o = pl.jo.get(MSC_KEY_ENT_DESCRIPTION);
+            if (o != null)
+                en.setDescription(o.toString());
+            return;
+        }
+        final HashMap<String, Interaction> pendingSourced = st.pendingSourced;
+        final HashMap<String, Interaction> pendingSinked = st.pendingSinked;
+        final EventLineParser ep = pl.event;
+        final String dn = st.alias.get(ep.getEntity());
+        Entity entity = dm.addEntity(ep.getEntity(), dn);
+        final Entity parentEntity = entity.getParentEntity();
+
+        long ts = pl.ts;
+        if (pl.dateStr != null) {
+            final Date d = parseDate(pl.dateStr);
+            if (d != null) {
+                ts = d.getTime() * 1000000;
+                if (pl.dateFromTimeKey)
+                    System.out.println("d = " + d + ", time = " + pl.dateStr
+                            + ", ts = " + ts);
+            }
+        }
+        if (ep.isPushSource() && parentEntity != null) {
+            parentEntity.pushSourceEntityForFromEvents(entity);
+        }
+        if (ep.isPopSource() && parentEntity != null) {
+            parentEntity.popSourceEntityForFromEvents();
+        }
+        entity = entity.getSourceEntityForFromEvents();
+        final String label = ep.getLabel() == null ? "" : ep.getLabel();
+        final Event ev = dm.addEvent(ts, entity, label, lineNum,
+                pl.renderer);
+        // if (entity.getPath().equals("XRVR")) {
+        // System.out.println("{XRVR}: "+ts);
+        // }
+        final int evIdx = ev.getIndex();
+
+        if (ep.hasData()) {
+            ev.setDataSource(ep.getProps());
+        }
+
+        final String block = ep.getBlock();
+        if (block != null) {
+            if (block.equals(MSC_KEY_BLOCK_BEGIN))
+                ev.setBlockBegin();
+            // else
+            // ev.setBlockEnd();
+        }
+
+        // HANDLE "source" KEY
+        try {
+            Interaction inter = null;
+            final ArrayList<JSonObject> interAttrs = new ArrayList<JSonObject>();
+            final ArrayList<String> sourcePairingId = new ArrayList<String>();
+            final JSonValue sourceValue = ep.getSource();
+            if (sourceValue instanceof JSonStringValue) {
+                // this event is source for an interaction with
+                // default
+                // attributes
+                sourcePairingId.add(sourceValue.toString());
+                interAttrs.add(null);
+            } else if (sourceValue instanceof JSonObject) {
+                // this event is source for an interaction with
+                // non-default attributes
+                interAttrs.add((JSonObject) sourceValue);
+                sourcePairingId.add(((JSonObject) sourceValue).get(
+                        MSC_KEY_INTER_ID).toString());
+            } else if (sourceValue instanceof JSonArrayValue) {
+                // this event is source for multiple interactions
+                final List<JSonValue> al = ((JSonArrayValue) sourceValue)
+                        .value();
+                for (final JSonValue j : al) {
+                    interAttrs.add((JSonObject) j);
+                    sourcePairingId.add(((JSonObject) j).get(
+                            MSC_KEY_INTER_ID).toString());
+                }
+            }
+
+            for (int i = 0; i < sourcePairingId.size(); i++) {
+                final String id = sourcePairingId.get(i);
+                final JSonObject attrs = interAttrs.get(i);
+
+                inter = pendingSourced.remove(id);
+                if (inter != null) {
+                    // there is already a pending source for this
+                    // pairingId. add it to
+                    // model as orphaned (no sink)
+                    dm.addInteraction(inter);
+                }
+                inter = pendingSinked.remove(id);
+                // if there is pending sinked interaction with this
+                // pairing Id:
+                // if it is from the same entity, then a (sink,
+                // source) sequence
+                // indicates that sink was orphaned, and we should
+                // remove it.
+                // if not on same entity, pair and add
+                // fix the source and add it to the model.
+                if (inter != null
+                        && inter.getToEvent().getEntity() != ev
+                                .getEntity()) {
+                    inter.setFromIndex(evIdx);
+                    dm.addInteraction(inter);
+                } else {
+                    // new interaction. create and add to
+                    // pendingSourced
+                    inter = createInteraction(dm, id, attrs, ev,
+                            TypeEn.SOURCE, evIdx, fname, lineNum);
+                    st.created(inter, TypeEn.SOURCE, attrs == null ? -1 : i);
+                    pendingSourced.put(id, inter);
+                }
+            }
+        } catch (final NoSuchFieldError ex) {
+        }
+        // HANDLE "dst" KEY
+        try {
+            Interaction inter = null;
+            final ArrayList<JSonObject> interAttrs = new ArrayList<JSonObject>();
+            final ArrayList<String> sinkPairingId = new ArrayList<String>();
+            final JSonValue sinkValue = ep.getSink();
+            if (sinkValue instanceof JSonStringValue) {
+                // this event is sink for an interaction with
+                // default
+                // attributes
+                sinkPairingId.add(((JSonStringValue) sinkValue)
+                        .toString());
+                interAttrs.add(null);
+            } else if (sinkValue instanceof JSonObject) {
+                // this event is sink for an interaction with
+                // non-default attributes
+                final JSonObject jo1 = (JSonObject) sinkValue;
+                sinkPairingId.add(jo1.get(MSC_KEY_INTER_ID)
+                        .toString());
+                interAttrs.add((JSonObject) sinkValue);
+            } else if (sinkValue instanceof JSonArrayValue) {
+                // this event is sink for multiple interactions
+                for (final JSonObject j : (ArrayList<JSonObject>) sinkValue) {
+                    sinkPairingId.add(j.get("id").toString());
+                    interAttrs.add(j);
+                }
+            }
+
+            for (int i = 0; i < sinkPairingId.size(); i++) {
+                final String id = sinkPairingId.get(i);
+                final JSonObject attrs = interAttrs.get(i);
+
+                inter = pendingSinked.remove(id);
+                if (inter != null) {
+                    // there is a pending source for this pairingId.
+                    // add it to
+                    // model as orphaned (no source)
+                    dm.addInteraction(inter);
+                }
+                inter = pendingSourced.remove(id);
+                // if there is a pending sourced interaction with
+                // this pairing Id,
+                // fix the sink and add it to the model
+                if (inter != null) {
+                    inter.setToIndex(evIdx);
+                    dm.addInteraction(inter);
+                } else {
+                    // new interaction. create and add to
+                    // pendingSinked
+                    inter = createInteraction(dm, id, attrs, ev,
+                            TypeEn.SINK, evIdx, fname, lineNum);
+                    st.created(inter, TypeEn.SINK, attrs == null ? -1 : i);
+                    pendingSinked.put(id, inter);
+                }
+            }
+        } catch (final NoSuchFieldError ex) {
+        }
+    }
+
+    private static void parseSequential(MappedLineScanner sc, LoadState st,
+            ProgressReport pr) throws IOException {
+        // lines are applied in batches of CHUNK_LINES, as by parseParallel
+        final Lock lock = st.dm.getWriteLock();
+        int x = 0;
+        lock.lock();
+        try {
+            while (sc.nextLine()) {
+                st.dm.addSourceLine(sc.lineStart());
                 x++;
                 if (x % 1024 == 0) {
-                    pr.progress(fr.position());
+                    pr.progress(sc.position());
                 }
-                lineNum++;
-                int start = line.indexOf(MSC_EVENT);
-                int eventlen = MSC_EVENT.length();
-                if (start < 0) {
-                    start = line.indexOf(MSC_EVENT1);
-                    eventlen = MSC_EVENT1.length();
+                if (x % CHUNK_LINES == 0) {
+                    // let waiting readers in
+                    lock.unlock();
+                    st.publishIfDue(pr);
+                    lock.lock();
                 }
-                if (start >= 0) {
-                    start += eventlen + 1;
-                    JSonObject jo;
-                    try {
-                        jo = JSonParser.parseObject(line.substring(start),
-                                fname, lineNum);
-                    } catch (final JSonException ex) {
-                        throw new IOException(ex);
+                st.lineNum++;
+                if (sc.kind() != MappedLineScanner.NONE) {
+                    final ParsedLine pl = parseLine(sc.kind(), sc.payload(),
+                            sc.lineStart(), sc.lineEnd(), st.lineNum, st);
+                    applyLine(pl, st);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * scans the file in chunks of {@link #CHUNK_LINES} lines and parses them
+     * on a pool of nThreads workers, while the calling thread applies the
+     * parsed chunks to the model in file order. The resulting model is the
+     * same built by {@link #parseSequential}.
+     */
+    private static void parseParallel(MappedLineScanner sc,
+            final LoadState st, ProgressReport pr, int nThreads)
+            throws IOException {
+        final ExecutorService pool = Executors.newFixedThreadPool(nThreads,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread t = new Thread(r, "JsonLoader parser");
+                        t.setDaemon(true);
+                        return t;
                     }
-                    final String entityPath = jo.get("entity").toString();
-                    final String dn = alias.get(entityPath);
-                    Entity entity = dm.addEntity(entityPath, dn);
-                    final Entity parentEntity = entity.getParentEntity();
-
-                    final JSonValue jlabel = jo.get("label");
-                    String label;
-                    if (jlabel == null) {
-                        label = "";
-                    } else
-                        label = jlabel.toString();
-
-                    long ts = -1;
-                    final JSonValue tm = jo.get("time");
-                    if (tm != null) {
-                        final String time = tm.toString();
-                        if (time.endsWith("s")) {
-                            final int len = time.length();
-                            final char pre = time.charAt(len - 2);
-                            switch (pre) {
-                            case 'n':
-                                ts = Long.parseLong(time.substring(0, len - 2));
-                                break;
-                            case 'u':
-                                ts = Long.parseLong(time.substring(0, len - 2)) * 1000;
-                                break;
-                            case 'm':
-                                ts = Long.parseLong(time.substring(0, len - 2)) * 1000000;
-                                break;
-                            default:
-                                if (Character.isDigit(pre)) {
-                                    ts = Long.parseLong(time.substring(0,
-                                            len - 1)) * 1000000000;
-                                } else {
-                                    throw new IOException(fname + ":" + lineNum
-                                            + ":Invalid time unit specifier");
-                                }
-                            }
-                        } else {
-                            try {
-                                ts = Long.parseLong(time);
-                            } catch (final NumberFormatException ex) {
-                                final Date d = parseDate(time);
-                                if (d != null) {
-                                    ts = d.getTime() * 1000000;
-                                    System.out.println("d = " + d + ", time = "
-                                            + time + ", ts = " + ts);
-                                }
-                            }
-                        }
-                    } else {
-                        // parse date from syslog timestamp
-                        final Date d = parseDate(line);
-                        if (d != null)
-                            ts = d.getTime() * 1000000;
+                });
+        final ArrayDeque<Future<LineChunk>> inFlight = new ArrayDeque<Future<LineChunk>>();
+        try {
+            int lineNum = 0;
+            boolean eof = false;
+            while (!eof) {
+                final LineChunk chunk = new LineChunk(lineNum + 1);
+                while (chunk.count < CHUNK_LINES && sc.nextLine()) {
+                    final int i = chunk.count++;
+                    chunk.offsets[i] = sc.lineStart();
+                    chunk.kinds[i] = (byte) sc.kind();
+                    if (sc.kind() != MappedLineScanner.NONE) {
+                        chunk.ends[i] = sc.lineEnd();
+                        chunk.payloads[i] = sc.payload();
                     }
-                    final JSonValue tt = jo.get("type");
-                    EventRenderer renderer = null;
-                    if (tt != null) {
-                        final String t = tt.toString();
-                        renderer = Resources.getImageRenderer(t);
-                        if (renderer == null) {
-                            Class<?> c = null;
-                            String rendererName = "com.cisco.mscviewer.gui.renderer."
-                                    + t + "Renderer";
-                            try {
-                                c = Class.forName(rendererName);
-                            } catch (final ClassNotFoundException e) {
-                                System.err.println(fname + ":" + lineNum
-                                        + ": Neither an image renderer " + t
-                                        + ", nor a class " + rendererName
-                                        + " was found.");
-                                rendererName = "com.cisco.mscviewer.gui.renderer.DefaultEventRenderer";
+                }
+                eof = chunk.count < CHUNK_LINES;
+                lineNum += chunk.count;
+                if (chunk.count > 0) {
+                    inFlight.add(pool.submit(new Callable<LineChunk>() {
+                        @Override
+                        public LineChunk call() {
+                            for (int i = 0; i < chunk.count; i++) {
+                                if (chunk.kinds[i] == MappedLineScanner.NONE)
+                                    continue;
+                                final int ln = chunk.firstLineNum + i;
                                 try {
-                                    c = Class.forName(rendererName);
-                                } catch (final ClassNotFoundException e1) {
-                                    throw new IOException(fname + ":" + lineNum
-                                            + ":Unable to instantiate class "
-                                            + rendererName + ".", e1);
+                                    chunk.parsed[i] = parseLine(chunk.kinds[i],
+                                            chunk.payloads[i], chunk.offsets[i],
+                                            chunk.ends[i], ln, st);
+                                } catch (final IOException | RuntimeException ex) {
+                                    final ParsedLine pl = new ParsedLine(ln);
+                                    pl.error = ex;
+                                    chunk.parsed[i] = pl;
                                 }
+                                chunk.payloads[i] = null;
                             }
-                            try {
-                                renderer = (EventRenderer) c.newInstance();
-                            } catch (final InstantiationException e) {
-                                throw new IOException(fname + ":" + lineNum
-                                        + ":Unable to instantiate class "
-                                        + rendererName + ".", e);
-                            } catch (final IllegalAccessException e) {
-                                throw new IOException(fname + ":" + lineNum
-                                        + ":Unable to instantiate class "
-                                        + rendererName + ".", e);
-                            }
+                            return chunk;
                         }
-                    }
-                    final JSonValue pushSourceVal = jo.get("push_source");
-                    if (pushSourceVal != null && parentEntity != null) {
-                        parentEntity.pushSourceEntityForFromEvents(entity);
-                    }
-                    final JSonValue popSourceVal = jo.get("pop_source");
-                    if (popSourceVal != null && parentEntity != null) {
-                        parentEntity.popSourceEntityForFromEvents();
-                    }
-                    entity = entity.getSourceEntityForFromEvents();
-                    final Event ev = new Event(dm, ts, entity, label, lineNum,
-                            renderer, jo);
-                    // if (entity.getPath().equals("XRVR")) {
-                    // System.out.println("{XRVR}: "+ts);
-                    // }
-                    final int evIdx = dm.addEvent(ev);
-
-                    final JSonValue data = jo.get("data");
-                    if (data != null) {
-                        ev.setData(data);
-                    }
+                    }));
+                }
+                pr.progress(sc.position());
+                while (inFlight.size() > (eof ? 0 : 2 * nThreads)) {
+                    applyChunk(inFlight.remove().get(), st);
+                    st.publishIfDue(pr);
+                }
+            }
+        } catch (final InterruptedException ex) {
+            throw new IOException(st.fname + ":" + st.lineNum
+                    + ":Interrupted while loading", ex);
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
-                    final JSonValue block = jo.get(MSC_KEY_BLOCK);
-                    if (block != null) {
-                        if (block.toString().equals(MSC_KEY_BLOCK_BEGIN))
-                            ev.setBlockBegin();
-                        // else
-                        // ev.setBlockEnd();
-                    }
+    /**
+     * applies a parsed chunk to the model, holding the write lock so that
+     * readers see the whole chunk or none of it.
+     */
+    private static void applyChunk(LineChunk chunk, LoadState st)
+            throws IOException {
+        final Lock lock = st.dm.getWriteLock();
+        lock.lock();
+        try {
+            for (int i = 0; i < chunk.count; i++) {
+                st.dm.addSourceLine(chunk.offsets[i]);
+                st.lineNum = chunk.firstLineNum + i;
+                if (chunk.parsed[i] != null)
+                    applyLine(chunk.parsed[i], st);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-                    // HANDLE "source" KEY
-                    try {
-                        Interaction inter = null;
-                        final ArrayList<JSonObject> interAttrs = new ArrayList<JSonObject>();
-                        final ArrayList<String> sourcePairingId = new ArrayList<String>();
-                        final JSonValue sourceValue = jo.getValue(MSC_KEY_SRC);
-                        if (sourceValue instanceof JSonStringValue) {
-                            // this event is source for an interaction with
-                            // default
-                            // attributes
-                            sourcePairingId.add(sourceValue.toString());
-                            interAttrs.add(null);
-                        } else if (sourceValue instanceof JSonObject) {
-                            // this event is source for an interaction with
-                            // non-default attributes
-                            interAttrs.add((JSonObject) sourceValue);
-                            sourcePairingId.add(((JSonObject) sourceValue).get(
-                                    MSC_KEY_INTER_ID).toString());
-                        } else if (sourceValue instanceof JSonArrayValue) {
-                            // this event is source for multiple interactions
-                            final List<JSonValue> al = ((JSonArrayValue) sourceValue)
-                                    .value();
-                            for (final JSonValue j : al) {
-                                interAttrs.add((JSonObject) j);
-                                sourcePairingId.add(((JSonObject) j).get(
-                                        MSC_KEY_INTER_ID).toString());
-                            }
-                        }
+    /**
+     * assigns the events added since the last call to blocks. A block
+     * starts with an event having incoming interactions or marked as block
+     * begin, and is added to the model when the next one starts on the same
+     * entity.
+     */
+    private static void computeBlocks(LoadState st, ProgressReport subPr) {
+        final MSCDataModel dm = st.dm;
+        final HashMap<String, Interval> pendingBlocks = st.pendingBlocks;
+        final int n = dm.getEventCount();
+        // when following, the sinks of interactions still waiting for their
+        // source will have an incoming interaction
+        final BitSet pendingSinks = new BitSet();
+        for (final Interaction inter : st.pendingSinked.values())
+            pendingSinks.set(inter.getToIndex());
+        for (int i = st.blocksFrom; i < n; i++) {
+            final Event ev = dm.getEventAt(i);
+            final Entity en = ev.getEntity();
+            final String entityPath = en.getPath();
+            final String blkPath = entityPath + "/block";
+            if (subPr != null && i % 1024 == 0)
+                subPr.progress(i);
+            SimpleInterval blk = (SimpleInterval) pendingBlocks
+                    .get(blkPath);
+            if (dm.getIncomingInteractionCount(i) > 0
+                    || pendingSinks.get(i) || ev.isBlockBegin()) {
+                if (blk != null) {
+                    ev.setBlockBegin();
+                    dm.addBlock(blk);
+                }
+                blk = new SimpleInterval(i, i);
+                pendingBlocks.put(entityPath + "/block", blk);
+            } else if (blk != null) {
+                blk.setEnd(i);
+            }
+        }
+        st.blocksFrom = n;
+    }
 
-                        for (int i = 0; i < sourcePairingId.size(); i++) {
-                            final String id = sourcePairingId.get(i);
-                            final JSonObject attrs = interAttrs.get(i);
+    /**
+     * adds to the model the interactions still missing their source or
+     * sink.
+     */
+    private static void addPendingInteractions(LoadState st) {
+        for (final Interaction inter : st.pendingSourced.values()) {
+            st.dm.addInteraction(inter);
+        }
+        for (final Interaction inter : st.pendingSinked.values()) {
+            st.dm.addInteraction(inter);
+        }
+        st.pendingSourced.clear();
+        st.pendingSinked.clear();
+    }
 
-                            inter = pendingSourced.remove(id);
-                            if (inter != null) {
-                                // there is already a pending source for this
-                                // pairingId. add it to
-                                // model as orphaned (no sink)
-                                dm.addInteraction(inter);
-                            }
-                            inter = pendingSinked.remove(id);
-                            // if there is pending sinked interaction with this
-                            // pairing Id:
-                            // if it is from the same entity, then a (sink,
-                            // source) sequence
-                            // indicates that sink was orphaned, and we should
-                            // remove it.
-                            // if not on same entity, pair and add
-                            // fix the source and add it to the model.
-                            if (inter != null
-                                    && inter.getToEvent().getEntity() != ev
-                                            .getEntity()) {
-                                inter.setFromIndex(evIdx);
-                                dm.addInteraction(inter);
-                            } else {
-                                // new interaction. create and add to
-                                // pendingSourced
-                                inter = createInteraction(dm, id, attrs, ev,
-                                        TypeEn.SOURCE, evIdx, fname, lineNum);
-                                pendingSourced.put(id, inter);
-                            }
-                        }
-                    } catch (final NoSuchFieldError ex) {
-                    }
-                    // HANDLE "dst" KEY
-                    try {
-                        Interaction inter = null;
-                        final ArrayList<JSonObject> interAttrs = new ArrayList<JSonObject>();
-                        final ArrayList<String> sinkPairingId = new ArrayList<String>();
-                        // next line will throw exception if no such field
-                        final JSonValue sinkValue = jo.getValue(MSC_KEY_DST);
-                        if (sinkValue instanceof JSonStringValue) {
-                            // this event is sink for an interaction with
-                            // default
-                            // attributes
-                            sinkPairingId.add(((JSonStringValue) sinkValue)
-                                    .toString());
-                            interAttrs.add(null);
-                        } else if (sinkValue instanceof JSonObject) {
-                            // this event is sink for an interaction with
-                            // non-default attributes
-                            final JSonObject jo1 = (JSonObject) sinkValue;
-                            sinkPairingId.add(jo1.get(MSC_KEY_INTER_ID)
-                                    .toString());
-                            interAttrs.add((JSonObject) sinkValue);
-                        } else if (sinkValue instanceof JSonArrayValue) {
-                            // this event is sink for multiple interactions
-                            for (final JSonObject j : (ArrayList<JSonObject>) sinkValue) {
-                                sinkPairingId.add(j.get("id").toString());
-                                interAttrs.add(j);
-                            }
-                        }
+    /**
+     * adds to the model the blocks still open.
+     */
+    private static void addPendingBlocks(LoadState st) {
+        for (final Interval inter : st.pendingBlocks.values()) {
+            st.dm.addBlock(inter);
+        }
+        st.pendingBlocks.clear();
+    }
 
-                        for (int i = 0; i < sinkPairingId.size(); i++) {
-                            final String id = sinkPairingId.get(i);
-                            final JSonObject attrs = interAttrs.get(i);
+    /**
+     * a loaded file followed as it grows. A daemon thread checks the size
+     * of the file every {@link #FOLLOW_POLL_MS} ms, and parses the complete
+     * lines appended since the last check with the state of the initial
+     * load, so that interactions still waiting for their source or sink
+     * are paired with the new events. Each batch of new events is notified
+     * with {@link MSCDataModel#notifyEventsAppended()}.
+     *
+     * When stopped, the same thread loads the rest of the file and
+     * completes the model before exiting, unless the follower is
+     * discarded, in which case it stops changing the model at the next
+     * line.
+     */
+    private static final class Follower implements Runnable {
+        private final LoadState st;
+        private final MappedLineScanner sc;
+        private final Thread thread;
+        /** guarded by this */
+        private boolean stopped;
+        /** true if the model is about to be reset */
+        private volatile boolean discarded;
 
-                            inter = pendingSinked.remove(id);
-                            if (inter != null) {
-                                // there is a pending source for this pairingId.
-                                // add it to
-                                // model as orphaned (no source)
-                                dm.addInteraction(inter);
-                            }
-                            inter = pendingSourced.remove(id);
-                            // if there is a pending sourced interaction with
-                            // this pairing Id,
-                            // fix the sink and add it to the model
-                            if (inter != null) {
-                                inter.setToIndex(evIdx);
-                                dm.addInteraction(inter);
-                            } else {
-                                // new interaction. create and add to
-                                // pendingSinked
-                                inter = createInteraction(dm, id, attrs, ev,
-                                        TypeEn.SINK, evIdx, fname, lineNum);
-                                pendingSinked.put(id, inter);
-                            }
+        Follower(LoadState st, MappedLineScanner sc) {
+            this.st = st;
+            this.sc = sc;
+            thread = new Thread(this, "JsonLoader follower");
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (waitPoll()) {
+                    if (st.dm.getLogListModel().remap())
+                        appendLines();
+                }
+                if (!discarded)
+                    finish();
+            } catch (final IOException | RuntimeException ex) {
+                // e.g. the file was truncated. Reported on the EDT, which
+                // may be waiting for this thread in discard()
+                if (!discarded) {
+                    final String msg = "Error while following input file "
+                            + st.fname + ", line " + st.lineNum;
+                    Utils.dispatchOnAWTThreadLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            Report.exception(msg, ex);
                         }
-                    } catch (final NoSuchFieldError ex) {
-                    }
-                } else {
-                    start = line.indexOf(MSC_ENTITY);
-                    if (start >= 0)
-                        start += MSC_ENTITY.length() + 1;
-                    if (start < 0) {
-                        start = line.indexOf(MSC_ENTITY1);
-                        if (start >= 0)
-                            start += MSC_ENTITY1.length() + 1;
+                    });
+                }
+            } finally {
+                synchronized (JsonLoader.class) {
+                    if (follower == this)
+                        follower = null;
+                }
+            }
+        }
+
+        /**
+         * waits until the next check of the file size. returns false if
+         * following has been stopped.
+         */
+        private synchronized boolean waitPoll() {
+            if (!stopped) {
+                try {
+                    wait(FOLLOW_POLL_MS);
+                } catch (final InterruptedException ex) {
+                    stopped = true;
+                }
+            }
+            return !stopped;
+        }
+
+        synchronized boolean isStopped() {
+            return stopped;
+        }
+
+        private void appendLines() throws IOException {
+            final MSCDataModel dm = st.dm;
+            final IndexableLineFile llm = dm.getLogListModel();
+            sc.refresh();
+            final Lock lock = dm.getWriteLock();
+            int x = 0;
+            lock.lock();
+            try {
+                while (!discarded && sc.nextLine()) {
+                    // set before the line is added, so that the last line
+                    // is never read past its end
+                    llm.setLinesEnd(sc.position());
+                    dm.addSourceLine(sc.lineStart());
+                    x++;
+                    if (x % CHUNK_LINES == 0) {
+                        // let waiting readers in
+                        lock.unlock();
+                        lock.lock();
                     }
-                    if (start >= 0) {
-                        JSonObject jo;
-                        try {
-                            jo = JSonParser.parseObject(line.substring(start),
-                                    fname, lineNum);
-                            alias.put(jo.get("id").toString(), jo.get("name")
-                                    .toString());
-                        } catch (final JSonException ex) {
-                            throw new IOException(ex);
-                        }
-                        final String id = jo.get(MSC_KEY_ENT_ID).toString();
-                        if (id == null)
-                            throw new IllegalArgumentException(fname + ":"
-                                    + lineNum + ":Missing \"id\" key");
-
-                        final String name = jo.get(MSC_KEY_ENT_NAME).toString();
-                        if (name == null)
-                            throw new IllegalArgumentException(fname + ":"
-                                    + lineNum + ":Missing \"name\" key");
-                        Entity en = dm.getEntity(id);
-                        if (en == null) {
-                            en = dm.addEntity(id, name);
-                        } else {
-                            en.setName(name);
-                        }
-                        Object o = jo.get(MSC_KEY_ENT_DESCRIPTION);
-                        if (o != null)
-                            en.setDescription(o.toString());
+                    st.lineNum++;
+                    if (sc.kind() != MappedLineScanner.NONE) {
+                        final ParsedLine pl = parseLine(sc.kind(),
+                                sc.payload(), sc.lineStart(), sc.lineEnd(),
+                                st.lineNum, st);
+                        applyLine(pl, st);
                     }
                 }
+            } finally {
+                lock.unlock();
             }
+            if (discarded)
+                return;
+            if (Main.WITH_BLOCKS)
+                computeBlocks(st, null);
+            dm.notifyEventsAppended();
+        }
+
+        /**
+         * loads the rest of the file, including a last line without
+         * terminator, and completes the model as at the end of a regular
+         * load.
+         */
+        private void finish() throws IOException {
+            sc.setCompleteLines(false);
+            st.dm.getLogListModel().remap();
+            appendLines();
+            if (discarded)
+                return;
+            addPendingInteractions(st);
+            if (Main.WITH_BLOCKS)
+                addPendingBlocks(st);
+            st.dm.notifyModelChanged();
+        }
+
+        /**
+         * stops following the file. The rest of the file is loaded in the
+         * background.
+         */
+        synchronized void stop() {
+            stopped = true;
+            notifyAll();
+        }
+
+        /**
+         * stops following the file without completing the model, and
+         * waits until the thread doesn't change the model anymore, which
+         * happens at the latest after the line being parsed.
+         */
+        void discard() {
+            discarded = true;
+            stop();
+            try {
+                thread.join();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * stops following the file loaded with {@link Main#shouldFollowFile()}
+     * set, if any. The events appended to the file so far are added to the
+     * model in the background, with the interactions still missing their
+     * source or sink.
+     */
+    public static void stopFollowing() {
+        final Follower f;
+        synchronized (JsonLoader.class) {
+            f = follower;
+        }
+        if (f != null)
+            f.stop();
+    }
+
+    /**
+     * stops following the file loaded with {@link Main#shouldFollowFile()}
+     * set, if any, when the model is about to be reset: the lines appended
+     * to the file are not loaded, and the model is left as it is.
+     */
+    public static void discardFollower() {
+        final Follower f;
+        synchronized (JsonLoader.class) {
+            f = follower;
+            follower = null;
+        }
+        if (f != null)
+            f.discard();
+    }
+
+    /**
+     * returns true if a loaded file is being followed as it grows.
+     */
+    public static synchronized boolean isFollowing() {
+        return follower != null && !follower.isStopped();
+    }
+
+    private static void loadInternal(String fname, MSCDataModel dm)
+            throws IOException {
+        discardFollower();
+        final LoadState st = new LoadState(fname, dm);
+        final File file = new File(fname);
+        final long flen = file.length();
+        final boolean follow = Main.shouldFollowFile();
+        Follower fol = null;
+        dm.reset();
+        dm.setOpenPath(new File(fname).getParent());
+        dm.setFilePath(fname);
+        dm.setLoading(true);
+        final ProgressReport pr = new ProgressReport("Loading file", fname, 0,
+                flen - 1);
+        try {
+            IndexableLineFile llm = dm.getLogListModel();
+            llm.setFile(fname);
+            // the snapshot doesn't keep the state needed to follow the file
+            final boolean useSnapshot = Main.useModelCache() && !follow
+                    && !fname.equals(dm.getCausalityLoopFileName());
+            if (useSnapshot && ModelSnapshot.load(fname, dm, pr))
+                return;
+            final MappedLineScanner sc = new MappedLineScanner(llm);
+            sc.setCompleteLines(follow);
+            final int nThreads = Main.getLoaderThreads();
+            if (nThreads > 1 && flen >= PARALLEL_MIN_FILE_SIZE)
+                parseParallel(sc, st, pr, nThreads);
+            else
+                parseSequential(sc, st, pr);
              if (dm != null) {
-                // add all remaining pending
-                for (final Interaction inter : pendingSourced.values()) {
-                    dm.addInteraction(inter);
-                }
-                for (final Interaction inter : pendingSinked.values()) {
-                    dm.addInteraction(inter);
-                }
+                // when following, interactions still missing source or sink
+                // may be paired by the lines appended later
+                if (!follow)
+                    addPendingInteractions(st);
 
-                // sort topologically
-                if (Main.shouldSortTopologically() && ! dm.getFilePath().equals(dm.getCausalityLoopFileName()))
-                    dm.topoSort();
+                // sort topologically. Not done when following, since events
+                // are appended to the model in file order
+                boolean sortFailed = false;
+                if (Main.shouldSortTopologically() && !follow && ! dm.getFilePath().equals(dm.getCausalityLoopFileName()))
+                    sortFailed = !dm.topoSort();
                 if (Main.WITH_BLOCKS) {
                     ProgressReport subPr = pr.subReport("computing blocks", "Computing Blocks", 10, 0, dm.getEventCount(), true);
-                    for (int i = 0; i < dm.getEventCount(); i++) {
-                        final Event ev = dm.getEventAt(i);
-                        final Entity en = ev.getEntity();
-                        final String entityPath = en.getPath();
-                        final String blkPath = entityPath + "/block";
-                        if (i % 1024 == 0)
-                            subPr.progress(i);
-                        SimpleInterval blk = (SimpleInterval) pendingBlocks
-                                .get(blkPath);
-                        if (ev.getIncomingInteractions().length > 0
-                                || ev.isBlockBegin()) {
-                            if (blk != null) {
-                                ev.setBlockBegin();
-                                dm.addBlock(blk);
-                            }
-                            blk = new SimpleInterval(i, i);
-                            pendingBlocks.put(entityPath + "/block", blk);
-                        } else if (blk != null) {
-                            blk.setEnd(i);
-                        }
-                    }
-                    for (final Interval inter : pendingBlocks.values()) {
-                        dm.addBlock(inter);
-                    }
+                    computeBlocks(st, subPr);
+                    if (!follow)
+                        addPendingBlocks(st);
                     subPr.progressDone();
                 }
-
+                // a snapshot of a model that couldn't be sorted would be
+                // reopened without reporting the causality loop again
+                if (useSnapshot && !sortFailed)
+                    ModelSnapshot.save(fname, dm, st.created, st.createdAttrs);
+                if (follow) {
+                    llm.setLinesEnd(sc.position());
+                    fol = new Follower(st, sc);
+                }
             }
         } catch (final IOException ex) {
-            Report.exception("Error while parsing input file "+fname+", line "+lineNum+"\n The file format appears to be incorrect", ex);
+            Report.exception("Error while parsing input file "+fname+", line "+st.lineNum+"\n The file format appears to be incorrect", ex);
         } catch (final NumberFormatException ex) {
-            Report.exception("Error while parsing input file "+fname+", line "+lineNum+"\n The file format appears to be incorrect", ex);
+            Report.exception("Error while parsing input file "+fname+", line "+st.lineNum+"\n The file format appears to be incorrect", ex);
         } catch (final Exception ex) {
-            Report.exception("Error while parsing input file "+fname+", line "+lineNum+"\n The file format appears to be incorrect", ex);
+            Report.exception("Error while parsing input file "+fname+", line "+st.lineNum+"\n The file format appears to be incorrect", ex);
         } finally {
             pr.progressDone();
-            fr.close();
             dm.setLoading(false);
         }
+        if (fol != null) {
+            synchronized (JsonLoader.class) {
+                follower = fol;
+            }
+            fol.thread.start();
+        }
     }
 
     @Override
     public void waitIfLoading() {
-        if (SwingUtilities.isEventDispatchThread())
+        if (!Main.batchMode() && SwingUtilities.isEventDispatchThread())
             throw new Error("waitForLoading() shouldn't be called from EDT");
         if (latch == null) {
             return;
@@ -640,6 +1153,13 @@ public class JsonLoader implements Loader {
     @Override
     public void load(final String fname, final MSCDataModel dm,
             boolean batchMode) throws IOException {
+        if (batchMode) {
+            // there is no GUI to update, and the event dispatch thread
+            // isn't started at all
+            loadInternal(fname, dm);
+            dm.notifyModelChanged();
+            return;
+        }
         if (SwingUtilities.isEventDispatchThread())
             throw new Error("load should not be called from the EDT.");
         loadInternal(fname, dm);
@@ -26,6 +26,7 @@ import com.cisco.mscviewer.gui.MainFrame;
 import com.cisco.mscviewer.gui.renderer.DefaultInteractionRenderer;
 import com.cisco.mscviewer.gui.renderer.EventRenderer;
 import com.cisco.mscviewer.gui.renderer.InteractionRenderer;
+import com.cisco.mscviewer.gui.renderer.RendererRegistry;
 import com.cisco.mscviewer.model.Entity;
 import com.cisco.mscviewer.model.Event;
 import com.cisco.mscviewer.model.Interaction;
@@ -60,7 +61,6 @@ public class LegacyLoader implements Loader {
         final int flen = (int) file.length();
         dm.setLoading(true);
         final BufferedReader fr = new BufferedReader(new FileReader(file));
-        final HashMap<String, Class<?>> classCache = new HashMap<String, Class<?>>();
         String line;
         int lineNum = 0;
         int readCnt = 0;
@@ -172,21 +172,15 @@ public class LegacyLoader implements Loader {
                         if (t != null) {
                             props.remove("type");
                             final String rendererName = t + "Renderer";
-                            final String fqn = "com.cisco.mscviewer.gui.renderer."
-                                    + rendererName;
-                            Class<?> cl = classCache.get(fqn);
-                            if (cl == null) {
-                                try {
-                                    cl = Class.forName(fqn);
-                                    classCache.put(fqn, cl);
-                                } catch (final ClassNotFoundException e) {
-                                    throw new IOException(fname + ":" + lineNum
-                                            + ":Unable to instantiate class "
-                                            + rendererName + ".", e);
-                                }
-                            }
+                            final Class<?> cl = RendererRegistry
+                                    .getRendererClass(t);
+                            if (cl == null)
+                                throw new IOException(fname + ":" + lineNum
+                                        + ":Unable to instantiate class "
+                                        + rendererName + ".");
                             try {
-                                renderer = (EventRenderer) cl.newInstance();
+                                renderer = RendererRegistry.getEventRenderer(
+                                        cl, props);
                             } catch (final IllegalAccessException e) {
                                 throw new IOException(fname + ":" + lineNum
                                         + ":Unable to instantiate class "
@@ -208,9 +202,9 @@ public class LegacyLoader implements Loader {
                             parentEntity.popSourceEntityForFromEvents();
                         }
                         entity = entity.getSourceEntityForFromEvents();
-                        final Event ev = new Event(dm, ts, entity, label, lineNum,
-                                renderer, props);
-                        final int evIndex = dm.addEvent(ev);
+                        final Event ev = dm.addEvent(ts, entity, label, lineNum,
+                                renderer);
+                        final int evIndex = ev.getIndex();
                         final String note = props.get("note").toString();
                         if (note != null) {
                             ev.setNote(note);
@@ -330,8 +324,9 @@ public class LegacyLoader implements Loader {
                                         inter.setToIndex(evIndex);
                                     }
                                     dm.addInteraction(inter);
-                                    inter.getIRenderer().initialize(inter,
-                                            props, ev);
+                                    inter.setIRenderer(
+                                            createInteractionRenderer(inter,
+                                                    props, ev, fname, lineNum));
                                 }
                             }
                         }
@@ -418,40 +413,39 @@ public class LegacyLoader implements Loader {
         }
     }
 
+    private static InteractionRenderer createInteractionRenderer(
+            Interaction inter, JSonObject props, Event ev, String fname,
+            int lineNum) throws IOException {
+        final String t = props.get("type").toString();
+        final String irendererName = t + "Renderer";
+        final Class<?> cl = t == null ? DefaultInteractionRenderer.class
+                : RendererRegistry.getRendererClass(t);
+        if (cl == null)
+            throw new IOException(fname + ":" + lineNum
+                    + ":Unable to instantiate class " + irendererName + ".");
+        try {
+            return RendererRegistry.getInteractionRenderer(cl, inter, props,
+                    ev);
+        } catch (final IllegalAccessException e) {
+            throw new IOException(fname + ":" + lineNum
+                    + ":Unable to instantiate class " + irendererName + ".", e);
+        } catch (final InstantiationException e) {
+            throw new IOException(fname + ":" + lineNum
+                    + ":Unable to instantiate class " + irendererName + ".", e);
+        }
+    }
+
     private static Interaction createInteraction(MSCDataModel dm,
             String pairingId, JSonObject props, Event ev, TypeEn type,
             int index, String fname, int lineNum) throws IOException {
         Interaction inter;
-        final String t = props.get("type").toString();
-        InteractionRenderer irenderer;
-        if (t == null) {
-            irenderer = new DefaultInteractionRenderer();
-        } else {
-            final String irendererName = t + "Renderer";
-            try {
-                irenderer = (InteractionRenderer) Class.forName(
-                        "com.cisco.mscviewer.gui.renderer." + irendererName)
-                        .newInstance();
-            } catch (final ClassNotFoundException e) {
-                throw new IOException(
-                        fname + ":" + lineNum + ":Unable to instantiate class "
-                                + irendererName + ".", e);
-            } catch (final IllegalAccessException e) {
-                throw new IOException(
-                        fname + ":" + lineNum + ":Unable to instantiate class "
-                                + irendererName + ".", e);
-            } catch (final InstantiationException e) {
-                throw new IOException(
-                        fname + ":" + lineNum + ":Unable to instantiate class "
-                                + irendererName + ".", e);
-            }
-        }
         if (type == TypeEn.SOURCE) {
-            inter = new Interaction(dm, index, -1, irenderer);
+            inter = new Interaction(dm, index, -1, null);
         } else {
-            inter = new Interaction(dm, -1, index, irenderer);
+            inter = new Interaction(dm, -1, index, null);
         }
-        irenderer.initialize(inter, props, ev);
+        inter.setIRenderer(createInteractionRenderer(inter, props, ev, fname,
+                lineNum));
         return inter;
     }
 
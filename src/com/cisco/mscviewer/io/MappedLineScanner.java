@@ -0,0 +1,211 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.io;
+
+import java.nio.ByteBuffer;
+
+import com.cisco.mscviewer.model.IndexableLineFile;
+
+/**
+ * Scans the lines of a file directly on the memory-mapped buffers of an
+ * {@link IndexableLineFile}, without decoding them into strings. For each
+ * line the scanner records start and end offset and looks for the
+ * event and entity markers with a byte comparison; only the JSON payload
+ * following a marker is ever turned into a String.
+ *
+ * Lines are terminated by '\n', '\r' or "\r\n", as in
+ * {@link java.io.BufferedReader#readLine()}. When following a file that
+ * is still being written, the scanner can be restricted to complete lines:
+ * a last line without terminator is then left for a later scan, after the
+ * file has grown and {@link #refresh()} has been called.
+ */
+final class MappedLineScanner {
+    static final int NONE = 0;
+    static final int EVENT = 1;
+    static final int ENTITY = 2;
+
+    private static final byte[][] EVENT_MARKERS = {
+        JsonLoader.MSC_EVENT.getBytes(), JsonLoader.MSC_EVENT1.getBytes()
+    };
+    private static final byte[][] ENTITY_MARKERS = {
+        JsonLoader.MSC_ENTITY.getBytes(), JsonLoader.MSC_ENTITY1.getBytes()
+    };
+
+    private final IndexableLineFile file;
+    private long fileSize;
+    private boolean completeLines;
+    private ByteBuffer region;
+    private long regionStart;
+    private long regionEnd;
+    private long pos;
+    private long lineStart;
+    private long lineEnd;
+    private long payloadStart;
+    private int kind;
+
+    MappedLineScanner(IndexableLineFile file) {
+        this.file = file;
+        this.fileSize = file.getFileSize();
+        regionStart = regionEnd = 0;
+    }
+
+    /**
+     * if v is true, {@link #nextLine()} only returns lines followed by a
+     * terminator.
+     */
+    void setCompleteLines(boolean v) {
+        completeLines = v;
+    }
+
+    /**
+     * makes the bytes mapped by the file since the scanner was created or
+     * last refreshed available to {@link #nextLine()}.
+     */
+    void refresh() {
+        fileSize = file.getFileSize();
+    }
+
+    private byte byteAt(long p) {
+        if (p < regionStart || p >= regionEnd) {
+            int i = file.getMappedRegionCount() - 1;
+            while (file.getMappedRegionStart(i) > p)
+                i--;
+            region = file.getMappedRegion(i);
+            regionStart = file.getMappedRegionStart(i);
+            regionEnd = regionStart + region.limit();
+        }
+        return region.get((int) (p - regionStart));
+    }
+
+    private long indexOf(byte[] marker, long from, long to) {
+        final byte first = marker[0];
+        final long last = to - marker.length;
+        outer:
+        for (long p = from; p <= last; p++) {
+            if (byteAt(p) != first)
+                continue;
+            for (int j = 1; j < marker.length; j++) {
+                if (byteAt(p + j) != marker[j])
+                    continue outer;
+            }
+            return p;
+        }
+        return -1;
+    }
+
+    /**
+     * advances to the next line. returns false if the end of file has
+     * been reached, or if only complete lines are returned and the rest of
+     * the file is an incomplete line.
+     */
+    boolean nextLine() {
+        if (pos >= fileSize)
+            return false;
+        lineStart = pos;
+        long firstAt = -1;
+        byte b = 0;
+        long p;
+        for (p = pos; p < fileSize; p++) {
+            b = byteAt(p);
+            if (b == '\n' || b == '\r')
+                break;
+            if (b == '@' && firstAt < 0)
+                firstAt = p;
+        }
+        final long end = p;
+        if (p < fileSize) {
+            p++;
+            if (b == '\r' && p == fileSize && completeLines) {
+                // the terminator may be "\r\n", with '\n' not written yet
+                return false;
+            }
+            if (b == '\r' && p < fileSize && byteAt(p) == '\n')
+                p++;
+        } else if (completeLines) {
+            return false;
+        }
+        lineEnd = end;
+        pos = p;
+        kind = NONE;
+        if (firstAt >= 0) {
+            if (findMarker(EVENT_MARKERS, firstAt))
+                kind = EVENT;
+            else if (findMarker(ENTITY_MARKERS, firstAt))
+                kind = ENTITY;
+        }
+        return true;
+    }
+
+    private boolean findMarker(byte[][] markers, long from) {
+        for (final byte[] marker : markers) {
+            final long idx = indexOf(marker, from, lineEnd);
+            if (idx >= 0) {
+                // the character following the marker is skipped
+                payloadStart = Math.min(idx + marker.length + 1, lineEnd);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * returns the offset in the file of the first byte of the current line.
+     */
+    long lineStart() {
+        return lineStart;
+    }
+
+    /**
+     * returns the offset in the file of the line terminator of the current
+     * line.
+     */
+    long lineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * returns the offset in the file of the beginning of the next line.
+     */
+    long position() {
+        return pos;
+    }
+
+    /**
+     * returns the offset in the file of the text following the marker in
+     * the current line.
+     */
+    long payloadStart() {
+        return payloadStart;
+    }
+
+    /**
+     * moves the scanner so that the next call to {@link #nextLine()} reads
+     * the line starting at the specified offset.
+     */
+    void seek(long offset) {
+        pos = offset;
+    }
+
+    /**
+     * returns {@link #EVENT} or {@link #ENTITY} if the current line contains
+     * an event or entity marker, {@link #NONE} otherwise.
+     */
+    int kind() {
+        return kind;
+    }
+
+    /**
+     * returns the text following the marker in the current line.
+     */
+    String payload() {
+        return file.getText(payloadStart, lineEnd);
+    }
+}
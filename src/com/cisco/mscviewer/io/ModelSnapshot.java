@@ -0,0 +1,450 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import com.cisco.mscviewer.Main;
+import com.cisco.mscviewer.gui.renderer.EventRenderer;
+import com.cisco.mscviewer.model.Entity;
+import com.cisco.mscviewer.model.Event;
+import com.cisco.mscviewer.model.IndexableLineFile;
+import com.cisco.mscviewer.model.Interaction;
+import com.cisco.mscviewer.model.JSonArrayValue;
+import com.cisco.mscviewer.model.JSonObject;
+import com.cisco.mscviewer.model.JSonValue;
+import com.cisco.mscviewer.model.MSCDataModel;
+import com.cisco.mscviewer.model.SimpleInterval;
+import com.cisco.mscviewer.tree.Interval;
+import com.cisco.mscviewer.util.EventLineParser;
+import com.cisco.mscviewer.util.ProgressReport;
+import com.cisco.mscviewer.util.Utils;
+
+/**
+ * Binary snapshot of the model built from an input file. After a file has
+ * been parsed the model is saved in a ".mscidx" file in the cache directory
+ * under {@link Utils#getWorkDirPath()}; when the same file is opened again
+ * with unchanged size and modification time the model is rebuilt from the
+ * memory-mapped snapshot, skipping JSON parsing, topological sorting and
+ * block computation.
+ *
+ * The snapshot is organized in sections, each starting with an element
+ * count:
+ * <ul>
+ * <li>header: magic, version, size and modification time of the input
+ * file, loader flags, canonical path of the input file
+ * <li>offsets of the lines in the input file
+ * <li>string pool (entity ids, names and descriptions, renderer types,
+ * labels)
+ * <li>entities, in creation order
+ * <li>events, in model order, stored by column: timestamp, offset and
+ * length of the JSON payload in the input file, entity, line index,
+ * renderer type, label, flags
+ * <li>interactions, in creation order, stored by column: source and sink
+ * index, renderer type, attributes, position in the model
+ * <li>blocks
+ * </ul>
+ * Event properties and data are not stored: they are parsed lazily from the
+ * input file, which is memory-mapped anyway.
+ */
+final class ModelSnapshot {
+    private static final int MAGIC = 0x4d534349; // "MSCI"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".mscidx";
+    private static final int FLAG_TOPO_SORTED = 1;
+    private static final int FLAG_BLOCKS = 2;
+    private static final byte EV_BLOCK_BEGIN = 1;
+    private static final byte EV_HAS_DATA = 2;
+    private static final String DEFAULT_EVENT_TYPE = "DefaultEvent";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ModelSnapshot() {}
+
+    /**
+     * returns the snapshot file for the specified input file.
+     */
+    static File getSnapshotFile(String fname) throws IOException {
+        final File f = new File(fname).getCanonicalFile();
+        return new File(Utils.getWorkDirPath() + "/cache", f.getName() + "-"
+                + Integer.toHexString(f.getPath().hashCode()) + SUFFIX);
+    }
+
+    private static int flags() {
+        int flags = 0;
+        if (Main.shouldSortTopologically())
+            flags |= FLAG_TOPO_SORTED;
+        if (Main.WITH_BLOCKS)
+            flags |= FLAG_BLOCKS;
+        return flags;
+    }
+
+    /**
+     * collects the strings referenced by the snapshot, each stored once.
+     */
+    private static final class StringPool {
+        private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+        private final ArrayList<String> strings = new ArrayList<String>();
+
+        int id(String s) {
+            if (s == null)
+                return -1;
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = strings.size();
+                ids.put(s, id);
+                strings.add(s);
+            }
+            return id;
+        }
+    }
+
+    private static void writeString(DataOutputStream os, String s)
+            throws IOException {
+        final byte[] b = s.getBytes(UTF8);
+        os.writeInt(b.length);
+        os.write(b);
+    }
+
+    private static String readString(ByteBuffer bb, byte[][] tmp) {
+        final int len = bb.getInt();
+        if (tmp[0].length < len)
+            tmp[0] = new byte[Math.max(len, tmp[0].length * 2)];
+        bb.get(tmp[0], 0, len);
+        return new String(tmp[0], 0, len, UTF8);
+    }
+
+    /**
+     * writes a snapshot of the model just loaded from fname. created contains
+     * all interactions in the order they were created by the loader, and
+     * createdAttrs the position of their attributes in the creating event
+     * (see JsonLoader.LoadState). Failures are reported on stderr, the
+     * snapshot being just an optimization.
+     */
+    static void save(String fname, MSCDataModel dm,
+            List<Interaction> created, int[] createdAttrs) {
+        File tmp = null;
+        try {
+            final File src = new File(fname);
+            final IndexableLineFile llm = dm.getLogListModel();
+            if (src.length() != llm.getFileSize())
+                return;
+            final File out = getSnapshotFile(fname);
+            out.getParentFile().mkdirs();
+            tmp = new File(out.getPath() + ".tmp");
+            final DataOutputStream os = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+            try {
+                write(os, src, dm, created, createdAttrs);
+            } finally {
+                os.close();
+            }
+            if (!tmp.renameTo(out)) {
+                out.delete();
+                if (!tmp.renameTo(out))
+                    throw new IOException("Unable to rename " + tmp + " to " + out);
+            }
+        } catch (final IOException ex) {
+            System.err.println("Unable to write model snapshot for " + fname
+                    + ": " + ex.getMessage());
+            if (tmp != null)
+                tmp.delete();
+        }
+    }
+
+    private static void write(DataOutputStream os, File src, MSCDataModel dm,
+            List<Interaction> created, int[] createdAttrs) throws IOException {
+        final IndexableLineFile llm = dm.getLogListModel();
+        final StringPool pool = new StringPool();
+        os.writeInt(MAGIC);
+        os.writeInt(VERSION);
+        os.writeLong(llm.getFileSize());
+        os.writeLong(src.lastModified());
+        os.writeInt(flags());
+        writeString(os, src.getCanonicalPath());
+
+        final int lineCount = llm.getLineCount();
+        os.writeInt(lineCount);
+        for (int i = 0; i < lineCount; i++)
+            os.writeLong(llm.getElementOffset(i));
+
+        // entities
+        final ArrayList<Entity> entities = new ArrayList<Entity>();
+        final IdentityHashMap<Entity, Integer> entityIdx = new IdentityHashMap<Entity, Integer>();
+        for (final Iterator<Entity> it = dm.getEntityIterator(false); it.hasNext();) {
+            final Entity en = it.next();
+            entityIdx.put(en, entities.size());
+            entities.add(en);
+        }
+        final int[] entityRows = new int[entities.size() * 3];
+        for (int i = 0; i < entities.size(); i++) {
+            final Entity en = entities.get(i);
+            entityRows[i * 3] = pool.id(en.getId());
+            entityRows[i * 3 + 1] = pool.id(en.getName());
+            entityRows[i * 3 + 2] = pool.id(en.getDescription());
+        }
+
+        // events. The payload offsets are found scanning again the event lines.
+        final int evCount = dm.getEventCount();
+        final long[] payloadStart = new long[evCount];
+        final int[] payloadLen = new int[evCount];
+        final int[] evType = new int[evCount];
+        final int[] evLabel = new int[evCount];
+        final MappedLineScanner sc = new MappedLineScanner(llm);
+        for (int i = 0; i < evCount; i++) {
+            final Event ev = dm.getEventAt(i);
+            sc.seek(llm.getElementOffset(ev.getLineIndex() - 1));
+            if (!sc.nextLine() || sc.kind() != MappedLineScanner.EVENT)
+                throw new IOException("no event found at line "
+                        + ev.getLineIndex());
+            payloadStart[i] = sc.payloadStart();
+            payloadLen[i] = (int) (sc.lineEnd() - sc.payloadStart());
+            evType[i] = pool.id(ev.getType());
+            evLabel[i] = pool.id(ev.getLabel());
+        }
+
+        // interactions
+        final IdentityHashMap<Interaction, Integer> modelPos = new IdentityHashMap<Interaction, Integer>();
+        for (final Iterator<Interaction> it = dm.getInteractionIterator(); it.hasNext();)
+            modelPos.put(it.next(), modelPos.size());
+        final int interCount = created.size();
+        final int[] interType = new int[interCount];
+        for (int i = 0; i < interCount; i++)
+            interType[i] = pool.id(created.get(i).getType());
+
+        os.writeInt(pool.strings.size());
+        for (final String s : pool.strings)
+            writeString(os, s);
+
+        os.writeInt(entities.size());
+        for (final int v : entityRows)
+            os.writeInt(v);
+
+        os.writeInt(evCount);
+        for (int i = 0; i < evCount; i++)
+            os.writeLong(dm.getEventAt(i).getTimestamp());
+        for (int i = 0; i < evCount; i++)
+            os.writeLong(payloadStart[i]);
+        for (int i = 0; i < evCount; i++)
+            os.writeInt(payloadLen[i]);
+        for (int i = 0; i < evCount; i++)
+            os.writeInt(entityIdx.get(dm.getEventAt(i).getEntity()));
+        for (int i = 0; i < evCount; i++)
+            os.writeInt(dm.getEventAt(i).getLineIndex());
+        for (int i = 0; i < evCount; i++)
+            os.writeInt(evType[i]);
+        for (int i = 0; i < evCount; i++)
+            os.writeInt(evLabel[i]);
+        for (int i = 0; i < evCount; i++) {
+            final Event ev = dm.getEventAt(i);
+            os.writeByte((ev.isBlockBegin() ? EV_BLOCK_BEGIN : 0)
+                    | (ev.hasData() ? EV_HAS_DATA : 0));
+        }
+
+        os.writeInt(interCount);
+        os.writeInt(modelPos.size());
+        for (int i = 0; i < interCount; i++)
+            os.writeInt(created.get(i).getFromIndex());
+        for (int i = 0; i < interCount; i++)
+            os.writeInt(created.get(i).getToIndex());
+        for (int i = 0; i < interCount; i++)
+            os.writeInt(interType[i]);
+        for (int i = 0; i < interCount; i++)
+            os.writeInt(createdAttrs[i]);
+        for (int i = 0; i < interCount; i++) {
+            final Integer pos = modelPos.get(created.get(i));
+            os.writeInt(pos != null ? pos : -1);
+        }
+
+        final ArrayList<Interval> blocks = dm.getBlocksInInterval(0,
+                Integer.MAX_VALUE);
+        os.writeInt(blocks.size());
+        for (final Interval blk : blocks)
+            os.writeInt(blk.getStart());
+        for (final Interval blk : blocks)
+            os.writeInt(blk.getEnd());
+    }
+
+    private static LongBuffer longColumn(ByteBuffer bb, int n) {
+        final LongBuffer lb = bb.slice().asLongBuffer();
+        bb.position(bb.position() + n * 8);
+        return lb;
+    }
+
+    private static IntBuffer intColumn(ByteBuffer bb, int n) {
+        final IntBuffer ib = bb.slice().asIntBuffer();
+        bb.position(bb.position() + n * 4);
+        return ib;
+    }
+
+    private static ByteBuffer byteColumn(ByteBuffer bb, int n) {
+        final ByteBuffer col = bb.slice();
+        bb.position(bb.position() + n);
+        return col;
+    }
+
+    /**
+     * if an up-to-date snapshot exists for fname, rebuilds from it the model,
+     * whose source file must have already been set, and returns true.
+     * Returns false, leaving the model empty, if there is no usable
+     * snapshot.
+     */
+    static boolean load(String fname, MSCDataModel dm, ProgressReport pr)
+            throws IOException {
+        final File src = new File(fname);
+        final File f = getSnapshotFile(fname);
+        if (!f.isFile())
+            return false;
+        try {
+            final ByteBuffer bb;
+            final RandomAccessFile raf = new RandomAccessFile(f, "r");
+            try {
+                final FileChannel ch = raf.getChannel();
+                bb = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            } finally {
+                raf.close();
+            }
+            final byte[][] tmp = new byte[][] { new byte[256] };
+            if (bb.getInt() != MAGIC || bb.getInt() != VERSION
+                    || bb.getLong() != src.length()
+                    || bb.getLong() != src.lastModified()
+                    || bb.getInt() != flags()
+                    || !readString(bb, tmp).equals(src.getCanonicalPath()))
+                return false;
+            read(bb, fname, dm, pr, tmp);
+            return true;
+        } catch (final Exception ex) {
+            System.err.println("Ignoring invalid model snapshot " + f + ": "
+                    + ex);
+            f.delete();
+            dm.reset();
+            dm.getLogListModel().setFile(fname);
+            return false;
+        }
+    }
+
+    private static void read(ByteBuffer bb, String fname, MSCDataModel dm,
+            ProgressReport pr, byte[][] tmp) throws Exception {
+        final IndexableLineFile llm = dm.getLogListModel();
+        final long flen = llm.getFileSize();
+
+        final int lineCount = bb.getInt();
+        final LongBuffer lines = longColumn(bb, lineCount);
+        for (int i = 0; i < lineCount; i++)
+            dm.addSourceLine(lines.get(i));
+
+        final String[] pool = new String[bb.getInt()];
+        for (int i = 0; i < pool.length; i++)
+            pool[i] = readString(bb, tmp);
+
+        final Entity[] entities = new Entity[bb.getInt()];
+        for (int i = 0; i < entities.length; i++) {
+            final int id = bb.getInt();
+            final int name = bb.getInt();
+            final int descr = bb.getInt();
+            entities[i] = dm.addEntity(pool[id], pool[name]);
+            if (descr >= 0)
+                entities[i].setDescription(pool[descr]);
+        }
+
+        final int evCount = bb.getInt();
+        final LongBuffer ts = longColumn(bb, evCount);
+        final LongBuffer payloadStart = longColumn(bb, evCount);
+        final IntBuffer payloadLen = intColumn(bb, evCount);
+        final IntBuffer entity = intColumn(bb, evCount);
+        final IntBuffer line = intColumn(bb, evCount);
+        final IntBuffer type = intColumn(bb, evCount);
+        final IntBuffer label = intColumn(bb, evCount);
+        final ByteBuffer flags = byteColumn(bb, evCount);
+        for (int i = 0; i < evCount; i++) {
+            if (i % 1024 == 0)
+                pr.progress((flen - 1) * i / evCount);
+            final String t = pool[type.get(i)];
+            final int lineIndex = line.get(i);
+            final byte fl = flags.get(i);
+            final boolean isDefault = DEFAULT_EVENT_TYPE.equals(t);
+            JSonObject props = null;
+            if (!isDefault || (fl & EV_HAS_DATA) != 0) {
+                final long ps = payloadStart.get(i);
+                props = JSonObject.lazy(llm, ps, ps + payloadLen.get(i));
+            }
+            final EventRenderer renderer = isDefault ? null : JsonLoader
+                    .createEventRenderer(t, props, fname, lineIndex);
+            final Event ev = dm.addEvent(ts.get(i), entities[entity.get(i)],
+                    pool[label.get(i)], lineIndex, renderer);
+            if ((fl & EV_BLOCK_BEGIN) != 0)
+                ev.setBlockBegin();
+            if ((fl & EV_HAS_DATA) != 0)
+                ev.setDataSource(props);
+        }
+
+        // interactions are created in the original order, since renderers
+        // may depend on it, and then added to the model in model order.
+        final int interCount = bb.getInt();
+        final Interaction[] inModel = new Interaction[bb.getInt()];
+        final IntBuffer from = intColumn(bb, interCount);
+        final IntBuffer to = intColumn(bb, interCount);
+        final IntBuffer itype = intColumn(bb, interCount);
+        final IntBuffer attrs = intColumn(bb, interCount);
+        final IntBuffer pos = intColumn(bb, interCount);
+        for (int i = 0; i < interCount; i++) {
+            final int fromIdx = from.get(i);
+            final int toIdx = to.get(i);
+            final boolean bySink = (attrs.get(i) & 1) != 0;
+            final int attrIdx = attrs.get(i) >> 1;
+            final int creatorIdx = bySink ? toIdx : fromIdx;
+            final Event creator = dm.getEventAt(creatorIdx);
+            JSonObject props = null;
+            if (attrIdx >= 0) {
+                final long ps = payloadStart.get(creatorIdx);
+                final EventLineParser ep = new EventLineParser(llm.getText(ps,
+                        ps + payloadLen.get(creatorIdx)), fname,
+                        creator.getLineIndex());
+                final JSonValue v = bySink ? ep.getSink() : ep.getSource();
+                if (v instanceof JSonArrayValue)
+                    props = (JSonObject) ((JSonArrayValue) v).value().get(attrIdx);
+                else
+                    props = (JSonObject) v;
+            }
+            final Interaction inter = bySink ? new Interaction(dm, -1, toIdx,
+                    null) : new Interaction(dm, fromIdx, -1, null);
+            inter.setIRenderer(JsonLoader.createInteractionRenderer(
+                    pool[itype.get(i)], inter, props, creator, fname,
+                    creator.getLineIndex()));
+            inter.setFromToIndices(fromIdx, toIdx);
+            if (pos.get(i) >= 0)
+                inModel[pos.get(i)] = inter;
+        }
+        dm.setInteractions(inModel);
+
+        final int blockCount = bb.getInt();
+        final IntBuffer blkStart = intColumn(bb, blockCount);
+        final IntBuffer blkEnd = intColumn(bb, blockCount);
+        final Interval[] blks = new Interval[blockCount];
+        for (int i = 0; i < blockCount; i++)
+            blks[i] = new SimpleInterval(blkStart.get(i), blkEnd.get(i));
+        dm.setBlocks(blks);
+    }
+}
@@ -16,123 +16,45 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriter;
-import javax.imageio.event.IIOWriteProgressListener;
-import javax.imageio.stream.ImageOutputStream;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
 import com.cisco.mscviewer.gui.MSCRenderer;
 import com.cisco.mscviewer.model.Entity;
+import com.cisco.mscviewer.model.Event;
 import com.cisco.mscviewer.model.MSCDataModel;
+import com.cisco.mscviewer.model.MSCDataModelEventFilter;
+import com.cisco.mscviewer.model.ViewModel;
 import com.cisco.mscviewer.util.ProgressReport;
 
+/**
+ * Saves the sequence diagram as a PNG image.
+ *
+ * The image is rendered in horizontal bands of at most
+ * {@link #MAX_BAND_PIXELS} pixels, each written to the file before the
+ * next one is rendered, so the memory needed doesn't depend on the size
+ * of the model.
+ */
 public class PNGSaver {
     public final static int SAVE_MARKED = 1;
     public final static int SAVE_OPENED = 2;
     public final static int SAVE_ALL = 3;
+    private final static int MAX_BAND_PIXELS = 1 << 22;
+    private final static int MAX_BAND_HEIGHT = 1024;
 
     public static void saveMSCasPNG(final String path, final MSCRenderer r,
-            int mode) throws IOException {
+            final int mode) throws IOException {
         final Thread t = new Thread("Image Writer") {
             @Override
             public void run() {
-                ImageOutputStream ios = null;
                 try {
-                    final BufferedImage tmp = new BufferedImage(1, 1,
-                            BufferedImage.TYPE_INT_RGB);
-                    Graphics2D g2d = tmp.createGraphics();
-                    final FontMetrics fm = g2d.getFontMetrics();
-                    int entityWidth = 0;
-                    for (final Iterator<Entity> it = MSCDataModel.getInstance()
-                            .getEntityIterator(false); it.hasNext();) {
-                        final Entity en = it.next();
-                        final int w = fm.stringWidth(en.getName());
-                        if (w > entityWidth)
-                            entityWidth = w;
-                    }
-                    g2d.dispose();
-                    entityWidth += 10;
-
-                    final int width = r.getEntityHeaderModel().getTotalWidth();
-                    final int height = r.getHeight() + 20;
-                    // Create a buffered image in which to draw
-                    System.out
-                            .println("PNGSaver: img: " + width + "x" + height);
-                    final BufferedImage bufferedImage = new BufferedImage(width,
-                            height, BufferedImage.TYPE_INT_RGB);
-                    // Create a graphics contents on the buffered image
-                    g2d = bufferedImage.createGraphics();
-                    g2d.setColor(Color.yellow);
-                    g2d.fillRect(0, 0, width, height);
-                    r.render(g2d, true, 0, height);
-                    g2d.dispose();
-
-                    // Save as PNG
-                    final File file = new File(path);
-                    final Iterator<ImageWriter> it = ImageIO
-                            .getImageWritersByFormatName("png");
-                    if (!it.hasNext())
-                        throw new Error("No PNG ImageWriter was found");
-                    final ImageWriter iw = it.next();
-                    ios = ImageIO.createImageOutputStream(file);
-                    iw.setOutput(ios);
-                    final ProgressReport pr = new ProgressReport(
-                            "Exporting Image", "" + path, 0, 100);
-                    iw.addIIOWriteProgressListener(new IIOWriteProgressListener() {
-
-                        @Override
-                        public void imageStarted(ImageWriter source,
-                                int imageIndex) {
-                            pr.progress("Writing " + path, 0);
-                        }
-
-                        @Override
-                        public void imageProgress(ImageWriter source,
-                                float percentageDone) {
-                            pr.progress((int) (100 * percentageDone));
-                        }
-
-                        @Override
-                        public void imageComplete(ImageWriter source) {
-                            pr.progressDone();
-                        }
-
-                        @Override
-                        public void thumbnailStarted(ImageWriter source,
-                                int imageIndex, int thumbnailIndex) {
-                        }
-
-                        @Override
-                        public void thumbnailProgress(ImageWriter source,
-                                float percentageDone) {
-                        }
-
-                        @Override
-                        public void thumbnailComplete(ImageWriter source) {
-                        }
-
-                        @Override
-                        public void writeAborted(ImageWriter source) {
-                            SwingUtilities.invokeLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    pr.progressDone();
-                                    JOptionPane
-                                            .showMessageDialog(
-                                                    null,
-                                                    "Error while writing image to disk: Write aborted",
-                                                    "Image I/O Error",
-                                                    JOptionPane.ERROR_MESSAGE);
-                                }
-                            });
-                        }
-                    });
-                    iw.write(bufferedImage);
+                    writePNG(path, r, mode);
                 } catch (final IOException ex) {
                     SwingUtilities.invokeLater(new Runnable() {
                         @Override
@@ -145,18 +67,150 @@ public class PNGSaver {
                                     JOptionPane.ERROR_MESSAGE);
                         }
                     });
-
-                } finally {
-                    if (ios != null)
-                        try {
-                            ios.close();
-                        } catch (final IOException e) {
-                            // TODO Auto-generated catch block
-                            e.printStackTrace();
-                        }
                 }
             }
         };
         t.start();
     }
+
+    /**
+     * writes the sequence diagram to path, on the calling thread. In
+     * SAVE_OPENED mode the diagram is the one rendered by r; in SAVE_ALL
+     * mode it shows all the entities of the model, and in SAVE_MARKED mode
+     * only the marked events of the entities open in r, or of all the
+     * entities if r is null, as when running in batch mode.
+     */
+    public static void writePNG(String path, MSCRenderer r, int mode)
+            throws IOException {
+        final MSCDataModel dm = MSCDataModel.getInstance();
+        ViewModel vm = null;
+        final MSCRenderer er;
+        if (mode == SAVE_OPENED) {
+            if (r == null)
+                throw new IOException("No open entities to export");
+            er = r;
+        } else {
+            vm = new ViewModel(dm);
+            er = exportRenderer(vm, mode == SAVE_MARKED ? r : null, r);
+            if (mode == SAVE_MARKED) {
+                vm.setFilter(new MSCDataModelEventFilter() {
+                    @Override
+                    public boolean filter(Event ev) {
+                        return ev.getMarker() != null;
+                    }
+                });
+                er.updateCache();
+            }
+        }
+        try {
+            final BufferedImage tmp = new BufferedImage(1, 1,
+                    BufferedImage.TYPE_INT_RGB);
+            final Graphics2D tg = tmp.createGraphics();
+            final int headerHeight = er.getExportHeaderHeight(tg);
+            tg.dispose();
+            final int width = er.getWidth();
+            final int height = er.getHeight() + headerHeight;
+            if (width <= 0 || er.getHeight() <= 0)
+                throw new IOException("Nothing to export");
+            final int bandHeight = Math.max(1,
+                    Math.min(MAX_BAND_HEIGHT, MAX_BAND_PIXELS / width));
+            System.out.println("PNGSaver: img: " + width + "x" + height
+                    + ", bands of " + bandHeight);
+            writeBands(path, er, width, height, headerHeight, bandHeight);
+        } finally {
+            if (vm != null)
+                dm.removeListener(vm);
+        }
+    }
+
+    private static void writeBands(String path, MSCRenderer r, int width,
+            int height, int headerHeight, int bandHeight) throws IOException {
+        final BufferedImage band = new BufferedImage(width, bandHeight,
+                BufferedImage.TYPE_INT_RGB);
+        final int eventHeight = r.getEventHeight();
+        final ProgressReport pr = new ProgressReport("Exporting Image",
+                "" + path, 0, height);
+        boolean cancelled = false;
+        final PNGStreamWriter w = new PNGStreamWriter(new FileOutputStream(
+                path), width, height);
+        try {
+            for (int y = 0; y < height && !cancelled; y += bandHeight) {
+                final int h = Math.min(bandHeight, height - y);
+                final Graphics2D g2d = band.createGraphics();
+                try {
+                    g2d.setColor(Color.WHITE);
+                    g2d.fillRect(0, 0, width, bandHeight);
+                    g2d.translate(0, -y);
+                    g2d.setClip(0, y, width, h);
+                    // the row before the band is drawn too, as it may
+                    // extend into it
+                    final int viewY = Math.max(0, y - headerHeight
+                            - eventHeight);
+                    r.render(g2d, true, viewY, h + eventHeight);
+                } finally {
+                    g2d.dispose();
+                }
+                w.writeRows(band, h);
+                pr.progress(y + h);
+                cancelled = pr.isCancelled();
+            }
+        } finally {
+            pr.progressDone();
+            try {
+                w.close();
+            } catch (final IOException ex) {
+                if (!cancelled)
+                    throw ex;
+            }
+            if (cancelled)
+                new File(path).delete();
+        }
+    }
+
+    /**
+     * returns a renderer for vm, populated with the entities open in
+     * layout, or all the entities of the model if layout is null, and
+     * zoomed as zoom, if not null.
+     */
+    private static MSCRenderer exportRenderer(ViewModel vm,
+            MSCRenderer layout, MSCRenderer zoom) {
+        final ArrayList<Entity> ens = new ArrayList<Entity>();
+        int entityWidth = 0;
+        if (layout != null) {
+            final ViewModel lvm = layout.getEntityHeaderModel();
+            for (int i = 0; i < lvm.entityCount(); i++)
+                ens.add(lvm.get(i));
+        } else {
+            final BufferedImage tmp = new BufferedImage(1, 1,
+                    BufferedImage.TYPE_INT_RGB);
+            final Graphics2D g2d = tmp.createGraphics();
+            final FontMetrics fm = g2d.getFontMetrics();
+            for (final Iterator<Entity> it = MSCDataModel.getInstance()
+                    .getEntityIterator(false); it.hasNext();) {
+                final Entity en = it.next();
+                final int w = fm.stringWidth(en.getPath());
+                if (w > entityWidth)
+                    entityWidth = w;
+                ens.add(en);
+            }
+            g2d.dispose();
+            entityWidth += 10;
+        }
+        vm.add(ens.toArray(new Entity[ens.size()]));
+        // entities are laid out in the order of vm
+        for (int i = 0; i < vm.entityCount(); i++) {
+            final JLabel c = new JLabel();
+            if (layout != null) {
+                final ViewModel lvm = layout.getEntityHeaderModel();
+                c.setBounds(lvm.getEntityBounds(lvm.indexOf(vm.get(i))));
+            } else
+                c.setBounds(i * entityWidth, 0, entityWidth, 0);
+            vm.setEntityComponent(i, c);
+        }
+        final MSCRenderer r = new MSCRenderer(vm);
+        if (zoom != null)
+            r.setZoomFactor(zoom.getZoomFactor());
+        r.updateCache();
+        return r;
+    }
 }
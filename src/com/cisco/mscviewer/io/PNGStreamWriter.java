@@ -0,0 +1,168 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.io;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an RGB PNG image one row at a time, so that the image never
+ * needs to be in memory as a whole. Rows are compressed as they are
+ * written, and the compressed data is written in IDAT chunks of
+ * {@link #IDAT_SIZE} bytes.
+ */
+final class PNGStreamWriter implements Closeable {
+    private static final byte[] SIGNATURE = { (byte) 137, 'P', 'N', 'G',
+            '\r', '\n', 26, '\n' };
+    private static final int IDAT_SIZE = 1 << 16;
+    /** the "sub" filter: each byte is stored as the difference with the
+     * same component of the pixel on its left */
+    private static final int FILTER_SUB = 1;
+
+    private final DataOutputStream out;
+    private final int width, height;
+    private final Deflater deflater = new Deflater();
+    private final DeflaterOutputStream zout;
+    private final int[] pixels;
+    private final byte[] line;
+    private int rows;
+
+    /**
+     * the compressed image data, written as IDAT chunks.
+     */
+    private class IDATStream extends OutputStream {
+        private final byte[] buf = new byte[IDAT_SIZE];
+        private int len;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (len == buf.length)
+                flush();
+            buf[len++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int n) throws IOException {
+            while (n > 0) {
+                if (len == buf.length)
+                    flush();
+                final int cnt = Math.min(n, buf.length - len);
+                System.arraycopy(b, off, buf, len, cnt);
+                len += cnt;
+                off += cnt;
+                n -= cnt;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (len > 0) {
+                writeChunk("IDAT", buf, len);
+                len = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    PNGStreamWriter(OutputStream os, int width, int height)
+            throws IOException {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Invalid image size " + width
+                    + "x" + height);
+        this.width = width;
+        this.height = height;
+        out = new DataOutputStream(new BufferedOutputStream(os));
+        out.write(SIGNATURE);
+        final byte[] hdr = new byte[13];
+        putInt(hdr, 0, width);
+        putInt(hdr, 4, height);
+        hdr[8] = 8; // bits per component
+        hdr[9] = 2; // RGB
+        // compression, filter and interlace method are all 0
+        writeChunk("IHDR", hdr, hdr.length);
+        zout = new DeflaterOutputStream(new IDATStream(), deflater, IDAT_SIZE);
+        pixels = new int[width];
+        line = new byte[1 + width * 3];
+        line[0] = FILTER_SUB;
+    }
+
+    /**
+     * writes the first count rows of img, which must be as wide as the
+     * image.
+     */
+    void writeRows(BufferedImage img, int count) throws IOException {
+        if (rows + count > height)
+            throw new IOException("Writing past the end of the image");
+        for (int y = 0; y < count; y++) {
+            img.getRGB(0, y, width, 1, pixels, 0, width);
+            int prev = 0;
+            for (int x = 0, i = 1; x < width; x++, i += 3) {
+                final int p = pixels[x];
+                line[i] = (byte) ((p >> 16) - (prev >> 16));
+                line[i + 1] = (byte) ((p >> 8) - (prev >> 8));
+                line[i + 2] = (byte) (p - prev);
+                prev = p;
+            }
+            zout.write(line);
+        }
+        rows += count;
+    }
+
+    /**
+     * completes the image and closes the underlying stream. The image is
+     * invalid if fewer rows than its height have been written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            zout.close();
+            writeChunk("IEND", new byte[0], 0);
+            out.flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+        if (rows != height)
+            throw new IOException("Image truncated at row " + rows + " of "
+                    + height);
+    }
+
+    private void writeChunk(String type, byte[] data, int len)
+            throws IOException {
+        final byte[] t = type.getBytes(StandardCharsets.US_ASCII);
+        final CRC32 crc = new CRC32();
+        crc.update(t);
+        crc.update(data, 0, len);
+        out.writeInt(len);
+        out.write(t);
+        out.write(data, 0, len);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+}
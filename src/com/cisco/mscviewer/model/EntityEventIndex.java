@@ -0,0 +1,51 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.model;
+
+/**
+ * The model indices of the events of each entity, in increasing order,
+ * built with a single pass over the events.
+ *
+ * The index is immutable, and is rebuilt by {@link MSCDataModel} when the
+ * events change.
+ */
+final class EntityEventIndex {
+    private static final int[] NO_EVENTS = new int[0];
+
+    private final EventStore events;
+    /** event indices of each entity, by entity id */
+    private final int[][] indices;
+
+    EntityEventIndex(EventStore events) {
+        this.events = events;
+        final int n = events.size();
+        final int[] counts = new int[events.entityIdCount()];
+        for (int i = 0; i < n; i++)
+            counts[events.entityId(events.row(i))]++;
+        indices = new int[counts.length][];
+        for (int id = 0; id < counts.length; id++) {
+            indices[id] = new int[counts[id]];
+            counts[id] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            final int id = events.entityId(events.row(i));
+            indices[id][counts[id]++] = i;
+        }
+    }
+
+    /**
+     * returns the indices of the events of en, which must not be modified.
+     */
+    int[] get(Entity en) {
+        final int id = events.entityIdOf(en);
+        return id >= 0 && id < indices.length ? indices[id] : NO_EVENTS;
+    }
+}
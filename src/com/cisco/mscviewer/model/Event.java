@@ -14,7 +14,6 @@ package com.cisco.mscviewer.model;
 import java.awt.Point;
 
 import com.cisco.mscviewer.gui.Marker;
-import com.cisco.mscviewer.gui.renderer.DefaultEventRenderer;
 import com.cisco.mscviewer.gui.renderer.EventRenderer;
 import com.cisco.mscviewer.gui.renderer.ImageRenderer;
 import com.cisco.mscviewer.io.Session;
@@ -25,67 +24,36 @@ import com.cisco.mscviewer.io.Session;
  * 
  * An Event is characterized by a timestamp, a label, a type.
  * 
+ * Events are stored by the model in columnar form (see {@link EventStore});
+ * an <code>Event</code> object is just a view on the stored event, created
+ * on demand. Different views on the same event are equal.
+ * 
  * @author rattias
  */
 public class Event {
 
-    private final MSCDataModel model;
     /** model the event belongs to */
-    private final long timestamp;
-    /** timestamp when the event occurred */
-    private final Entity en;
-    /** Entity the event belongs to */
-    private final int lineIndex;
-    /** index of the line in the source file this event was generated from */
-    private int index;
-    /** index of this event within the model */
-    private String ts;
-    /** cached timestamp representation */
-    private Marker marker;
-    /** marker this Event is marked with (see {@link Marker}) */
-    private EventRenderer renderer;
-    /** renderer object associated to this event */
-    private final String label;
-    /** label for the Event */
-    private Note note;
-    /** note associated to the Event */
-    private JSonValue data;
-    /** some data */
-    private boolean blockBegin;
+    private final MSCDataModel model;
+    /** row of the {@link EventStore} this event is stored in */
+    private final int row;
 
     /**
-     * Instantiates an Event with the specified parameters.
+     * Instantiates a view on the event stored in the specified row. Events
+     * are added to a model with
+     * {@link MSCDataModel#addEvent(long, Entity, String, int, EventRenderer)}.
      * 
      * @param dm
      *            the {@link MSCDataModel} this Event belongs to
-     * @param timestamp
-     *            the timestamp the event occurred at
-     * @param en
-     *            the {@link Entity} the event belong to
-     * @param label
-     *            the label associated to the event
-     * @param lineIndex
-     *            the index of the source line this event was generated from
-     * @param renderer
-     *            the {@link EventRenderer} associated to the event
-     * @param props
-     *            properties for the renderer
+     * @param row
+     *            the row of the event in the model store
      */
-    public Event(MSCDataModel dm, long timestamp, Entity en, String label,
-            int lineIndex, EventRenderer renderer, JSonObject props) {
-        if (en == null)
-            throw new NullPointerException("Null entity");
+    Event(MSCDataModel dm, int row) {
         model = dm;
-        this.timestamp = timestamp;
-        this.en = en;
-        this.label = label;
-        this.lineIndex = lineIndex;
-        if (renderer == null)
-            this.renderer = new DefaultEventRenderer();
-        else
-            this.renderer = renderer;
-        this.renderer.initialize(props);
-        this.blockBegin = false;
+        this.row = row;
+    }
+
+    private EventStore store() {
+        return model.getEventStore();
     }
 
     /**
@@ -94,7 +62,7 @@ public class Event {
      * @return the {@link Entity} this event belongs to
      */
     public Entity getEntity() {
-        return en;
+        return store().entity(row);
     }
 
     /**
@@ -105,14 +73,14 @@ public class Event {
      *         generated from
      */
     public int getLineIndex() {
-        return lineIndex;
+        return store().lineIndex(row);
     }
 
     /**
      * returns the {@link EventRenderer} associated to this event
      */
     public final EventRenderer getRenderer() {
-        return renderer;
+        return store().renderer(row);
     }
 
     /**
@@ -122,16 +90,22 @@ public class Event {
      * @param timestamp
      */
     public void setTimestampRepr(String timestamp) {
-        ts = timestamp;
+        store().setTimestampRepr(row, timestamp);
     }
 
     /**
-     * returns the cached timestamp representation
+     * returns the cached timestamp representation or, if none was set, the
+     * timestamp formatted according to the output unit of the model (see
+     * {@link MSCDataModel#setTimestampOutputUnit(OutputUnit)})
      * 
      * @return
      */
     public String getTimestampRepr() {
-        return ts;
+        final String ts = store().getTimestampRepr(row);
+        if (ts != null)
+            return ts;
+        final OutputUnit ou = model.getTimestampOutputUnit();
+        return ou != null ? ou.format(getTimestamp()) : null;
     }
 
     /**
@@ -140,7 +114,7 @@ public class Event {
      * @return
      */
     public long getTimestamp() {
-        return timestamp;
+        return store().timestamp(row);
     }
 
     /**
@@ -149,7 +123,7 @@ public class Event {
      * @return
      */
     public String getLabel() {
-        return label;
+        return store().label(row);
     }
 
     /**
@@ -159,15 +133,13 @@ public class Event {
      *            the note
      */
     public void setNote(String n) {
-        if (note == null)
-            note = new Note(n);
-        else
-            note.setText(n);
+        store().getNote(row, true).setText(n);
         Session.setUpToDate(false);
     }
     
 
     public boolean noteIsVisible() {
+        final Note note = store().getNote(row, false);
         return note != null && note.isVisible();
     }
 
@@ -177,24 +149,22 @@ public class Event {
      * @return the note
      */
     public String getNote() {
+        final Note note = store().getNote(row, false);
         return note != null ? note.getText() : null;
     }
 
     public void setNoteVisible(boolean v) {
-        if (note == null) 
-            note = new Note("");
-        note.setVisible(v);
+        store().getNote(row, true).setVisible(v);
         Session.setUpToDate(false);
     }
     
     public Point getNoteOffset() {
+        final Note note = store().getNote(row, false);
         return note == null ? new Point(-1, -1) : note.getPosition();
     }
 
     public void setNotePosition(Point  p) {
-        if (note == null) 
-            note = new Note("");
-        note.setPosition(p);
+        store().getNote(row, true).setPosition(p);
         Session.setUpToDate(false);
     }
     
@@ -217,9 +187,23 @@ public class Event {
 
     @Override
     public String toString() {
-        return "Event [timestamp=" + timestamp + ", label=" + label + ", note="
-                + note + ", entity=" + en.getPath() + ", lineIndex="
-                + lineIndex + "]";
+        return "Event [timestamp=" + getTimestamp() + ", label=" + getLabel()
+                + ", note=" + store().getNote(row, false) + ", entity="
+                + getEntity().getPath() + ", lineIndex=" + getLineIndex()
+                + "]";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Event))
+            return false;
+        final Event ev = (Event) o;
+        return ev.row == row && ev.model == model;
+    }
+
+    @Override
+    public int hashCode() {
+        return row;
     }
 
     /**
@@ -229,7 +213,7 @@ public class Event {
      *            a value from {@link Marker}
      */
     public void setMarker(Marker m) {
-        marker = m;
+        store().setMarker(row, m);
         Session.setUpToDate(false);
     }
 
@@ -240,7 +224,7 @@ public class Event {
      * @return
      */
     public Marker getMarker() {
-        return marker;
+        return store().getMarker(row);
     }
 
     /**
@@ -250,7 +234,19 @@ public class Event {
      * @param data
      */
     public void setData(JSonValue data) {
-        this.data = data;
+        store().setData(row, data, false);
+    }
+
+    /**
+     * sets the object holding the data for this event under the "data" key.
+     * The data is extracted only when first requested with
+     * {@link #getData()}, so that it is not parsed for events that are never
+     * inspected.
+     * 
+     * @param src
+     */
+    public void setDataSource(JSonObject src) {
+        store().setData(row, src, src != null);
     }
 
     /**
@@ -266,16 +262,17 @@ public class Event {
         // } catch (JSonException ex) {
         // throw new Error(ex);
         // }
-        return data;
+        return store().getData(row);
     }
 
     /**
-     * sets the model index of this event.
+     * returns <code>true</code> if data is associated to this event,
+     * without extracting it.
      * 
-     * @param index
+     * @return
      */
-    void setIndex(int index) {
-        this.index = index;
+    public boolean hasData() {
+        return store().hasData(row);
     }
 
     /**
@@ -284,7 +281,7 @@ public class Event {
      * @return
      */
     public int getIndex() {
-        return index;
+        return store().index(row);
     }
 
     /**
@@ -306,9 +303,10 @@ public class Event {
     }
 
     public Event getPreviousEventForEntity() {
+        final Entity en = getEntity();
         for (int i = getIndex() - 1; i >= 0; i--) {
             final Event ev = model.getEventAt(i);
-            if (ev.getEntity() == getEntity())
+            if (ev.getEntity() == en)
                 return ev;
         }
         return null;
@@ -323,10 +321,11 @@ public class Event {
 
     public Event getNextEventForEntity() {
         final int cnt = model.getEventCount();
+        final Entity en = getEntity();
 
         for (int i = getIndex() + 1; i < cnt; i++) {
             final Event ev = model.getEventAt(i);
-            if (ev.getEntity() == getEntity())
+            if (ev.getEntity() == en)
                 return ev;
         }
         return null;
@@ -340,7 +339,7 @@ public class Event {
     }
 
     public void setBlockBegin() {
-        blockBegin = true;
+        store().setBlockBegin(row);
     }
 
     // public void setBlockEnd() {
@@ -348,7 +347,7 @@ public class Event {
     // }
 
     public boolean isBlockBegin() {
-        return blockBegin;
+        return store().isBlockBegin(row);
     }
 
 }
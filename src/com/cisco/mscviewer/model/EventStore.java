@@ -0,0 +1,352 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.cisco.mscviewer.gui.Marker;
+import com.cisco.mscviewer.gui.renderer.DefaultEventRenderer;
+import com.cisco.mscviewer.gui.renderer.EventRenderer;
+
+/**
+ * Column-oriented storage for the events of an {@link MSCDataModel}.
+ *
+ * Events are stored in rows, in the order they are added. Timestamp,
+ * entity, line index, label, renderer and flags of each row are kept in
+ * primitive arrays; entities, labels and renderers are stored once in
+ * tables and referenced by id. Attributes that only few events have
+ * (markers, notes, explicit timestamp representations) are kept in
+ * concurrent maps keyed by row, since they are set while the model is only
+ * read locked.
+ *
+ * The model order of the events may differ from the row order (see
+ * {@link MSCDataModel#topoSort()}), so the store also maps model indices to
+ * rows and back. {@link Event}s are lightweight views on a row, created on
+ * demand.
+ *
+ * Rows are also indexed by line index: since the lines of a source file are
+ * parsed in order, the line indices of the rows are normally sorted and
+ * are binary searched. Otherwise a sorted (line index, row) index is built
+ * on demand. Both stay valid when the model order changes, since rows
+ * don't move.
+ */
+final class EventStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte BLOCK_BEGIN = 1;
+    private static final byte DATA_SOURCE = 2;
+    /** renderer of the events created without one */
+    private static final EventRenderer DEFAULT_RENDERER = new DefaultEventRenderer();
+
+    private int count;
+    private long[] timestamps;
+    private int[] entityIds;
+    private int[] lineIndices;
+    private int[] labelIds;
+    private int[] rendererIds;
+    private byte[] flags;
+    /** data of each row, allocated when the first data is set */
+    private Object[] data;
+    /** model index -> row, null while the two coincide */
+    private int[] rowAt;
+    /** row -> model index, null while the two coincide */
+    private int[] indexAt;
+    /** true while the line indices of the rows are non-decreasing */
+    private boolean linesSorted;
+    /**
+     * line index (high 32 bits) and row (low 32 bits) of each row, sorted,
+     * if the rows aren't sorted by line index. Built on demand.
+     */
+    private volatile long[] lineRows;
+
+    private final ArrayList<Entity> entities = new ArrayList<Entity>();
+    private final IdentityHashMap<Entity, Integer> entityIdMap = new IdentityHashMap<Entity, Integer>();
+    private final ArrayList<String> labels = new ArrayList<String>();
+    private final HashMap<String, Integer> labelIdMap = new HashMap<String, Integer>();
+    private final ArrayList<EventRenderer> renderers = new ArrayList<EventRenderer>();
+    private final IdentityHashMap<EventRenderer, Integer> rendererIdMap = new IdentityHashMap<EventRenderer, Integer>();
+
+    private final ConcurrentHashMap<Integer, Marker> markers = new ConcurrentHashMap<Integer, Marker>();
+    private final ConcurrentHashMap<Integer, Note> notes = new ConcurrentHashMap<Integer, Note>();
+    private final ConcurrentHashMap<Integer, String> timestampReprs = new ConcurrentHashMap<Integer, String>();
+
+    EventStore() {
+        clear();
+    }
+
+    void clear() {
+        count = 0;
+        timestamps = new long[INITIAL_CAPACITY];
+        entityIds = new int[INITIAL_CAPACITY];
+        lineIndices = new int[INITIAL_CAPACITY];
+        labelIds = new int[INITIAL_CAPACITY];
+        rendererIds = new int[INITIAL_CAPACITY];
+        flags = new byte[INITIAL_CAPACITY];
+        data = null;
+        rowAt = indexAt = null;
+        linesSorted = true;
+        lineRows = null;
+        entities.clear();
+        entityIdMap.clear();
+        labels.clear();
+        labelIdMap.clear();
+        renderers.clear();
+        rendererIdMap.clear();
+        markers.clear();
+        notes.clear();
+        timestampReprs.clear();
+    }
+
+    private void grow() {
+        final int cap = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, cap);
+        entityIds = Arrays.copyOf(entityIds, cap);
+        lineIndices = Arrays.copyOf(lineIndices, cap);
+        labelIds = Arrays.copyOf(labelIds, cap);
+        rendererIds = Arrays.copyOf(rendererIds, cap);
+        flags = Arrays.copyOf(flags, cap);
+        if (data != null)
+            data = Arrays.copyOf(data, cap);
+        if (rowAt != null) {
+            rowAt = Arrays.copyOf(rowAt, cap);
+            indexAt = Arrays.copyOf(indexAt, cap);
+        }
+    }
+
+    private static <T> int id(T v, ArrayList<T> table, Map<T, Integer> ids) {
+        Integer id = ids.get(v);
+        if (id == null) {
+            id = table.size();
+            table.add(v);
+            ids.put(v, id);
+        }
+        return id;
+    }
+
+    /**
+     * appends a row, which gets the next model index, and returns it. If
+     * renderer is null a shared {@link DefaultEventRenderer} is used.
+     */
+    int add(long timestamp, Entity en, String label, int lineIndex,
+            EventRenderer renderer) {
+        if (count == timestamps.length)
+            grow();
+        final int row = count++;
+        timestamps[row] = timestamp;
+        entityIds[row] = id(en, entities, entityIdMap);
+        if (row > 0 && lineIndex < lineIndices[row - 1])
+            linesSorted = false;
+        lineRows = null;
+        lineIndices[row] = lineIndex;
+        labelIds[row] = id(label, labels, labelIdMap);
+        rendererIds[row] = id(renderer != null ? renderer : DEFAULT_RENDERER,
+                renderers, rendererIdMap);
+        if (rowAt != null)
+            rowAt[row] = indexAt[row] = row;
+        return row;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * returns the row of the event with the specified model index.
+     */
+    int row(int index) {
+        return rowAt == null ? index : rowAt[index];
+    }
+
+    /**
+     * returns the model index of the event stored in the specified row.
+     */
+    int index(int row) {
+        return indexAt == null ? row : indexAt[row];
+    }
+
+    /**
+     * reorders the events, so that the event with model index
+     * newToOld[i] gets index i.
+     */
+    void permute(int[] newToOld) {
+        final int[] newRowAt = new int[timestamps.length];
+        final int[] newIndexAt = new int[timestamps.length];
+        for (int i = 0; i < count; i++) {
+            final int row = row(newToOld[i]);
+            newRowAt[i] = row;
+            newIndexAt[row] = i;
+        }
+        rowAt = newRowAt;
+        indexAt = newIndexAt;
+    }
+
+    long timestamp(int row) {
+        return timestamps[row];
+    }
+
+    /**
+     * returns the timestamp of the event with the specified model index.
+     */
+    long timestampAt(int index) {
+        return timestamps[row(index)];
+    }
+
+    Entity entity(int row) {
+        return entities.get(entityIds[row]);
+    }
+
+    /**
+     * returns the id of the entity of the specified row. Ids are dense,
+     * starting from 0, in order of first use.
+     */
+    int entityId(int row) {
+        return entityIds[row];
+    }
+
+    /**
+     * returns the id of en, or -1 if no event belongs to it.
+     */
+    int entityIdOf(Entity en) {
+        final Integer id = entityIdMap.get(en);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * returns the number of distinct entities used by the events.
+     */
+    int entityIdCount() {
+        return entities.size();
+    }
+
+    int lineIndex(int row) {
+        return lineIndices[row];
+    }
+
+    /**
+     * returns the first row with the specified line index, or -1 if there
+     * is none.
+     */
+    int rowOfLine(int lineIndex) {
+        final int n = count;
+        if (linesSorted) {
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (lineIndices[mid] < lineIndex)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo < n && lineIndices[lo] == lineIndex ? lo : -1;
+        }
+        long[] lr = lineRows;
+        if (lr == null || lr.length != n) {
+            lr = new long[n];
+            for (int row = 0; row < n; row++)
+                lr[row] = ((long) lineIndices[row] << 32) | row;
+            Arrays.sort(lr);
+            lineRows = lr;
+        }
+        final int pos = Arrays.binarySearch(lr, (long) lineIndex << 32);
+        final int k = pos >= 0 ? pos : -pos - 1;
+        return k < n && (int) (lr[k] >> 32) == lineIndex ? (int) lr[k] : -1;
+    }
+
+    String label(int row) {
+        return labels.get(labelIds[row]);
+    }
+
+    EventRenderer renderer(int row) {
+        return renderers.get(rendererIds[row]);
+    }
+
+    boolean isBlockBegin(int row) {
+        return (flags[row] & BLOCK_BEGIN) != 0;
+    }
+
+    void setBlockBegin(int row) {
+        flags[row] |= BLOCK_BEGIN;
+    }
+
+    /**
+     * sets the data of a row. If isSource is true, v is the
+     * {@link JSonObject} the data will be extracted from.
+     */
+    void setData(int row, Object v, boolean isSource) {
+        if (data == null) {
+            if (v == null)
+                return;
+            data = new Object[timestamps.length];
+        }
+        data[row] = v;
+        if (isSource)
+            flags[row] |= DATA_SOURCE;
+        else
+            flags[row] &= ~DATA_SOURCE;
+    }
+
+    JSonValue getData(int row) {
+        if (data == null)
+            return null;
+        if ((flags[row] & DATA_SOURCE) != 0) {
+            final JSonValue v = ((JSonObject) data[row]).get("data");
+            setData(row, v, false);
+        }
+        return (JSonValue) data[row];
+    }
+
+    boolean hasData(int row) {
+        return data != null && data[row] != null;
+    }
+
+    Marker getMarker(int row) {
+        return markers.get(row);
+    }
+
+    void setMarker(int row, Marker m) {
+        if (m == null)
+            markers.remove(row);
+        else
+            markers.put(row, m);
+    }
+
+    void clearMarkers() {
+        markers.clear();
+    }
+
+    Note getNote(int row, boolean create) {
+        final Note n = notes.get(row);
+        if (n == null && create) {
+            notes.putIfAbsent(row, new Note(""));
+            return notes.get(row);
+        }
+        return n;
+    }
+
+    String getTimestampRepr(int row) {
+        return timestampReprs.get(row);
+    }
+
+    void setTimestampRepr(int row, String repr) {
+        if (repr == null)
+            timestampReprs.remove(row);
+        else
+            timestampReprs.put(row, repr);
+    }
+
+    void clearTimestampReprs() {
+        timestampReprs.clear();
+    }
+}
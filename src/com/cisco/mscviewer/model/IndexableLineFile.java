@@ -5,51 +5,177 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
-import java.util.ArrayList;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import javax.swing.AbstractListModel;
 
 import com.cisco.mscviewer.util.Report;
 import com.cisco.mscviewer.util.Utils;
 
+/**
+ * A list model of the lines of a memory-mapped file.
+ * 
+ * The offsets of the lines are kept in blocks of {@link #BLOCK_SIZE}
+ * lines, each holding the offset of its first line and the distance of
+ * every line from it as an unsigned int, i.e. 4 bytes per line. A block
+ * spanning more than 4GB keeps the offsets of its lines as longs instead.
+ * Once the file has more lines than the threshold set with
+ * {@link #setSpillThreshold(int)}, the full blocks are moved to a temporary
+ * file in the work directory, which is memory-mapped, so that they take no
+ * heap at all.
+ * 
+ * Blocks are replaced, rather than modified, when they are spilled or
+ * widened, and the array of blocks is grown by copy, so the offsets can be
+ * read by other threads while lines are added.
+ */
 @SuppressWarnings("serial")
 public class IndexableLineFile extends AbstractListModel<String> {
     private final static File dir = new File(Utils.getWorkDirPath());
-    private final static int BLOCK_SIZE = 64*1024;
-    ArrayList<long[]> offsets;
+    final static int BLOCK_SIZE = 64*1024;
+    /** size of the regions the file is mapped in */
+    final static int REGION_SIZE = Integer.MAX_VALUE;
+    /** the encoding lines are decoded with */
+    final static Charset CHARSET = Charset.defaultCharset();
+    /** lines after which full blocks are spilled to disk, 0 if never */
+    private static int spillThreshold = 0;
+    /** number of decoded lines kept by getElementAt(), a power of 2 */
+    private final static int LINE_CACHE_SIZE = 1024;
+    private volatile OffsetBlock[] blocks;
+    /** blocks moved to the spill file so far */
+    private int spilledBlocks;
+    private RandomAccessFile spillFile;
+    private File spillPath;
     private int numLines;
+    /** lines visible through the list model while loading */
+    private volatile int published;
     private long fileSize;
-    private boolean loading;
+    /** offset of the end of the last line added */
+    private volatile long linesEnd;
+    private volatile boolean loading;
     private int lineHeight = 0;
     private int lineWidth = 0;
     private int maxLineLen;
     private FileChannel fileChannel;
-    private MappedByteBuffer[] byteBuffer;
+    private volatile MappedByteBuffer[] byteBuffer;
     private long prevOffset = -1;
+    /**
+     * the lines most recently returned by getElementAt(), so that
+     * repainting and scrolling the list don't decode them again. Line i is
+     * kept in slot i % LINE_CACHE_SIZE, replacing the previous one: the
+     * lines shown are consecutive, so they don't replace each other.
+     * Both arrays are guarded by lineCache.
+     */
+    private final String[] lineCache = new String[LINE_CACHE_SIZE];
+    /** the index of the line in each slot of lineCache, or -1 */
+    private final int[] lineCacheIndex = new int[LINE_CACHE_SIZE];
     
+    /**
+     * the offsets of BLOCK_SIZE consecutive lines.
+     */
+    static final class OffsetBlock {
+        /** offset of the first line of the block */
+        final long base;
+        /**
+         * offset of each line minus base, as an unsigned int, or null if
+         * the block spans more than 4GB
+         */
+        final IntBuffer deltas;
+        /** offset of each line, if deltas is null */
+        final long[] wide;
+
+        OffsetBlock(long base, IntBuffer deltas) {
+            this.base = base;
+            this.deltas = deltas;
+            this.wide = null;
+        }
+
+        OffsetBlock(long[] wide) {
+            this.base = wide[0];
+            this.deltas = null;
+            this.wide = wide;
+        }
+
+        long offset(int i) {
+            return deltas != null ? base + (deltas.get(i) & 0xFFFFFFFFL)
+                    : wide[i];
+        }
+    }
+
     public IndexableLineFile() {
         reset();
-        long[] el = new long[BLOCK_SIZE];
-        offsets.add(el);
+    }
+
+    /**
+     * sets the number of lines of a file after which the offsets of its
+     * lines are moved to a memory-mapped temporary file, or 0 to always
+     * keep them in the heap. Applies to the files set afterwards.
+     */
+    public static void setSpillThreshold(int lines) {
+        spillThreshold = lines;
+    }
+
+    public static int getSpillThreshold() {
+        return spillThreshold;
     }
     
     public void setFile(String filePath) throws IOException {
         reset();
         File file = new File(filePath);
         fileChannel = new RandomAccessFile(file, "r").getChannel();
-        fileSize = fileChannel.size();
-        int nChunks = (int)(fileSize/Integer.MAX_VALUE);
-        long reminder = fileSize % Integer.MAX_VALUE;
+        map(fileChannel.size());
+        linesEnd = fileSize;
+    }
+
+    /**
+     * maps the bytes appended to the file since it was set or last
+     * remapped, for files that keep growing while they are viewed. Lines
+     * in the new bytes must then be added with {@link #addLine(long)} and
+     * {@link #setLinesEnd(long)}. returns true if the file has grown.
+     */
+    public boolean remap() throws IOException {
+        final long size = fileChannel.size();
+        if (size < fileSize)
+            throw new IOException("File was truncated from " + fileSize
+                    + " to " + size + " bytes");
+        if (size == fileSize)
+            return false;
+        map(size);
+        return true;
+    }
+
+    /**
+     * maps the first size bytes of the file. Regions already mapped with
+     * their full size are kept.
+     */
+    private void map(long size) throws IOException {
+        int nChunks = (int)(size/REGION_SIZE);
+        long reminder = size % REGION_SIZE;
         if (reminder != 0)
             nChunks++;
-        byteBuffer = new MappedByteBuffer[nChunks];
+        final MappedByteBuffer[] old = byteBuffer;
+        final MappedByteBuffer[] bb = new MappedByteBuffer[nChunks];
         for(int i=0; i<nChunks; i++) {
-            long size = (i<nChunks-1 || reminder == 0) ? Integer.MAX_VALUE : reminder;
-            byteBuffer[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, Integer.MAX_VALUE*(long)i, size);
+            long len = (i<nChunks-1 || reminder == 0) ? REGION_SIZE : reminder;
+            if (old != null && i < old.length && old[i].capacity() == len)
+                bb[i] = old[i];
+            else
+                bb[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, REGION_SIZE*(long)i, len);
         }
-         
+        byteBuffer = bb;
+        fileSize = size;
+    }
+
+    /**
+     * sets the offset of the end of the last line added, when the file
+     * ends with an incomplete line that is not part of the model yet.
+     */
+    public void setLinesEnd(long offset) {
+        linesEnd = offset;
     }
 
     
@@ -64,65 +190,217 @@ public class IndexableLineFile extends AbstractListModel<String> {
                 maxLineLen = len;
         }
         prevOffset = offset;
-        long[] last;
-        if (numLines == offsets.size()*BLOCK_SIZE) {
-            last = new long[BLOCK_SIZE];
-            offsets.add(last);
-        } else
-            last = offsets.get(offsets.size()-1);
-        last[numLines % BLOCK_SIZE] = offset;
+        final int b = numLines / BLOCK_SIZE;
+        final int i = numLines % BLOCK_SIZE;
+        OffsetBlock[] bl = blocks;
+        if (i == 0) {
+            if (b == bl.length) {
+                bl = Arrays.copyOf(bl, bl.length * 2);
+                blocks = bl;
+            }
+            bl[b] = new OffsetBlock(offset, IntBuffer.allocate(BLOCK_SIZE));
+        }
+        final OffsetBlock last = bl[b];
+        final long delta = offset - last.base;
+        if (last.wide != null) {
+            last.wide[i] = offset;
+        } else if (delta >= 0 && delta <= 0xFFFFFFFFL) {
+            last.deltas.put(i, (int) delta);
+        } else {
+            final long[] wide = new long[BLOCK_SIZE];
+            for (int j = 0; j < i; j++)
+                wide[j] = last.offset(j);
+            wide[i] = offset;
+            bl[b] = new OffsetBlock(wide);
+        }
         numLines++;
         if (numLines == Integer.MAX_VALUE)
             throw new Error("Error: File contain more than 2^31 lines are not supported");
+        if (i == BLOCK_SIZE - 1 && spillThreshold > 0
+                && numLines >= spillThreshold)
+            spill(b + 1);
+    }
+
+    /**
+     * moves the blocks before the n-th to the spill file, creating it if
+     * needed. Blocks with long offsets stay in the heap. If the spill file
+     * can't be written the blocks stay in the heap as well.
+     */
+    private void spill(int n) {
+        try {
+            if (spillFile == null) {
+                dir.mkdirs();
+                spillPath = File.createTempFile("lines", ".idx", dir);
+                spillPath.deleteOnExit();
+                spillFile = new RandomAccessFile(spillPath, "rw");
+            }
+            final FileChannel ch = spillFile.getChannel();
+            final OffsetBlock[] bl = blocks;
+            final ByteBuffer buf = ByteBuffer.allocate(BLOCK_SIZE * 4);
+            for (; spilledBlocks < n; spilledBlocks++) {
+                final OffsetBlock blk = bl[spilledBlocks];
+                if (blk.deltas == null)
+                    continue;
+                final long pos = (long) spilledBlocks * BLOCK_SIZE * 4;
+                buf.clear();
+                for (int i = 0; i < BLOCK_SIZE; i++)
+                    buf.putInt(blk.deltas.get(i));
+                buf.flip();
+                while (buf.hasRemaining())
+                    ch.write(buf, pos + buf.position());
+                final IntBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY,
+                        pos, BLOCK_SIZE * 4).asIntBuffer();
+                bl[spilledBlocks] = new OffsetBlock(blk.base, mapped);
+            }
+        } catch (IOException e) {
+            Report.exception("Exception while writing line offsets to "
+                    + spillPath + ":", e);
+            spillThreshold = 0;
+        }
+    }
+
+    private long lineStart(int index) {
+        return blocks[index / BLOCK_SIZE].offset(index % BLOCK_SIZE);
     }
     
 
+    /**
+     * returns the number of lines visible through the list model: while
+     * loading or following a growing file, only the published ones.
+     */
     @Override
     public int getSize() {
+        return published;
+    }
+
+    /**
+     * returns the number of lines added so far.
+     */
+    public int getLineCount() {
         return numLines;
     }
 
+    /**
+     * makes the first lines of the file visible through the list model.
+     * While loading, the last line added is kept hidden, since its end is
+     * only known once the next one is added. Must be called from the EDT.
+     */
+    public void publishLines(int lines) {
+        final int from = published;
+        // the file may have been reset since the lines were counted
+        final int to = Math.max(from, Math.min(lines, numLines)
+                - (loading ? 1 : 0));
+        published = to;
+        if (to > from)
+            fireIntervalAdded(this, from, to - 1);
+    }
+
 
+    /**
+     * returns the line with the given index. Lines are cached, except the
+     * last one added, whose end may still move while a growing file is
+     * followed.
+     */
     @Override
     public String getElementAt(int index) {
-        
         if (index >= numLines)
             return null;
-        int idx = index / BLOCK_SIZE;
-        int off = index % BLOCK_SIZE;
-        long p = offsets.get(idx)[off];
-        long p1;
-        if (index == numLines - 1) {
-            p1 = fileSize; 
-        } else {
-            if (off < BLOCK_SIZE-1)
-                p1 = offsets.get(idx)[off+1];
-            else
-                p1 = offsets.get(idx+1)[0];
+        final boolean cacheable = index < numLines - 1;
+        if (cacheable) {
+            final int slot = index & (LINE_CACHE_SIZE - 1);
+            synchronized (lineCache) {
+                if (lineCacheIndex[slot] == index)
+                    return lineCache[slot];
+            }
         }
-        int lineLen = (int)(p1-p);
-        byte[] data = new byte[lineLen];
-        int bbIndex = (int)(p/Integer.MAX_VALUE);
-        int bbOffset = (int)(p % Integer.MAX_VALUE);
-        if (p+lineLen < Integer.MAX_VALUE) {
-            byteBuffer[bbIndex].position(bbOffset);
-            byteBuffer[bbIndex].get(data, 0, lineLen);
-            return new String(data);
-        } else {
-            byteBuffer[bbIndex].position(bbOffset);
-            int len0 = (int)(Integer.MAX_VALUE-bbOffset+1);
-            byteBuffer[bbIndex].get(data, 0, len0);
-            byteBuffer[bbIndex+1].position(0);                
-            byteBuffer[bbIndex+1].get(data, len0, lineLen-len0);
-            return new String(data);                
+        final String s = decodeLine(index);
+        if (cacheable) {
+            final int slot = index & (LINE_CACHE_SIZE - 1);
+            synchronized (lineCache) {
+                lineCache[slot] = s;
+                lineCacheIndex[slot] = index;
+            }
+        }
+        return s;
+    }
+
+    private String decodeLine(int index) {
+        final long p = lineStart(index);
+        final long p1 = index == numLines - 1 ? linesEnd : lineStart(index + 1);
+        return getText(p, p1);
+    }
+
+    /**
+     * returns the size in bytes of the file.
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * returns the number of memory-mapped regions the file is split into.
+     */
+    public int getMappedRegionCount() {
+        return byteBuffer == null ? 0 : byteBuffer.length;
+    }
+
+    /**
+     * returns the offset in the file of the first byte of a mapped region.
+     */
+    public long getMappedRegionStart(int i) {
+        return REGION_SIZE*(long)i;
+    }
+
+    /**
+     * returns a view of the i-th memory-mapped region. The view has its own
+     * position and limit, so different threads can read the file through
+     * different views.
+     */
+    public ByteBuffer getMappedRegion(int i) {
+        return byteBuffer[i].duplicate();
+    }
+
+    /**
+     * returns the text contained in the file between offset start
+     * (inclusive) and offset end (exclusive). This method doesn't modify
+     * the position of the mapped buffers and can be called concurrently.
+     */
+    public String getText(long start, long end) {
+        final byte[] data = new byte[(int)(end-start)];
+        int done = 0;
+        long p = start;
+        while (done < data.length) {
+            final int bbIndex = (int)(p/REGION_SIZE);
+            final ByteBuffer bb = byteBuffer[bbIndex].duplicate();
+            final int bbOffset = (int)(p % REGION_SIZE);
+            final int len = Math.min(data.length-done, bb.limit()-bbOffset);
+            bb.position(bbOffset);
+            bb.get(data, done, len);
+            done += len;
+            p += len;
         }
+        return new String(data, CHARSET);
+    }
+
+    /**
+     * returns the offsets of the lines added so far, in blocks of
+     * BLOCK_SIZE lines. Offsets are only written past the last line added,
+     * and blocks are replaced rather than modified, so the returned ones
+     * stay valid while lines are added.
+     */
+    OffsetBlock[] getOffsetBlocks() {
+        return blocks;
+    }
+
+    /**
+     * returns the offset of the end of the last line added.
+     */
+    long getLinesEnd() {
+        return linesEnd;
     }
 
     public long getElementOffset(int index) {
-        int idx = index / BLOCK_SIZE;
-        int off = index % BLOCK_SIZE;
-        long p = offsets.get(idx)[off];        
-        return p;
+        return lineStart(index);
     }
 
     public void fireContentsChanged() {
@@ -130,10 +408,25 @@ public class IndexableLineFile extends AbstractListModel<String> {
     }
 
     public void reset() {
-        offsets = new ArrayList<long[]>();
+        blocks = new OffsetBlock[16];
+        spilledBlocks = 0;
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                Report.exception("Exception while closing " + spillPath + ":", e);
+            }
+            // the file can't be deleted while mapped on some platforms
+            spillPath.delete();
+            spillFile = null;
+        }
         numLines = 0;
+        published = 0;
         fileSize = 0;
+        linesEnd = 0;
+        byteBuffer = null;
         maxLineLen = 0;
+        prevOffset = -1;
         lineWidth = 0;
         if (fileChannel != null) {
             try {
@@ -144,10 +437,15 @@ public class IndexableLineFile extends AbstractListModel<String> {
             fileChannel = null;
         }
         loading = true;
+        synchronized (lineCache) {
+            Arrays.fill(lineCache, null);
+            Arrays.fill(lineCacheIndex, -1);
+        }
     }
 
     public void doneLoading() {
         loading = false;
+        published = numLines;
         fireContentsChanged();
     }
 
@@ -71,9 +71,9 @@ public final class Interaction implements Interval {
      * @return
      */
     public Event getOtherEvent(Event ev) {
-        if (ev == getFromEvent()) {
+        if (ev.equals(getFromEvent())) {
             return getToEvent();
-        } else if (ev == getToEvent()) {
+        } else if (ev.equals(getToEvent())) {
             return getFromEvent();
         } else {
             return null;
@@ -99,9 +99,9 @@ public final class Interaction implements Interval {
      * @return
      */
     public int getOtherEventIndex(Event ev) {
-        if (ev == getFromEvent()) {
+        if (ev.equals(getFromEvent())) {
             return toIndex;
-        } else if (ev == getToEvent()) {
+        } else if (ev.equals(getToEvent())) {
             return fromIndex;
         } else {
             return -1;
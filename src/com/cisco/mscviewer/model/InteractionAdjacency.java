@@ -0,0 +1,84 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.model;
+
+/**
+ * Incoming and outgoing interactions of each event, in compressed sparse row
+ * form: for event i, the ids of its outgoing interactions are
+ * outIds[outOffsets[i]] ... outIds[outOffsets[i+1]-1], where an id is the
+ * position of the interaction in the array the adjacency was built from.
+ * Same for incoming interactions.
+ *
+ * The adjacency is immutable, and is rebuilt by {@link MSCDataModel} when
+ * the interactions change.
+ */
+final class InteractionAdjacency {
+    private final Interaction[] interactions;
+    private final int eventCount;
+    private final int[] inOffsets;
+    private final int[] inIds;
+    private final int[] outOffsets;
+    private final int[] outIds;
+
+    InteractionAdjacency(Interaction[] interactions, int eventCount) {
+        this.interactions = interactions;
+        this.eventCount = eventCount;
+        inOffsets = new int[eventCount + 1];
+        outOffsets = new int[eventCount + 1];
+        int inCount = 0, outCount = 0;
+        for (final Interaction in : interactions) {
+            if (valid(in.getToIndex())) {
+                inOffsets[in.getToIndex() + 1]++;
+                inCount++;
+            }
+            if (valid(in.getFromIndex())) {
+                outOffsets[in.getFromIndex() + 1]++;
+                outCount++;
+            }
+        }
+        for (int i = 0; i < eventCount; i++) {
+            inOffsets[i + 1] += inOffsets[i];
+            outOffsets[i + 1] += outOffsets[i];
+        }
+        inIds = new int[inCount];
+        outIds = new int[outCount];
+        // next free slot for each event, starting at its offset
+        final int[] inNext = inOffsets.clone();
+        final int[] outNext = outOffsets.clone();
+        for (int id = 0; id < interactions.length; id++) {
+            final Interaction in = interactions[id];
+            if (valid(in.getToIndex()))
+                inIds[inNext[in.getToIndex()]++] = id;
+            if (valid(in.getFromIndex()))
+                outIds[outNext[in.getFromIndex()]++] = id;
+        }
+    }
+
+    private boolean valid(int evIdx) {
+        return evIdx >= 0 && evIdx < eventCount;
+    }
+
+    int incomingCount(int evIdx) {
+        return valid(evIdx) ? inOffsets[evIdx + 1] - inOffsets[evIdx] : 0;
+    }
+
+    Interaction incoming(int evIdx, int i) {
+        return interactions[inIds[inOffsets[evIdx] + i]];
+    }
+
+    int outgoingCount(int evIdx) {
+        return valid(evIdx) ? outOffsets[evIdx + 1] - outOffsets[evIdx] : 0;
+    }
+
+    Interaction outgoing(int evIdx, int i) {
+        return interactions[outIds[outOffsets[evIdx] + i]];
+    }
+}
@@ -29,11 +29,64 @@ import com.cisco.mscviewer.util.JSonParser;
 public class JSonObject implements JSonValue {
 
     private final HashMap<String, JSonValue> map;
+    /** source text not parsed yet, see {@link #lazy(String)} */
+    private String text;
+    /** file the source text is read from, see {@link #lazy(IndexableLineFile, long, long)} */
+    private IndexableLineFile textFile;
+    private long textStart, textEnd;
+    /** true until the source text has been parsed */
+    private volatile boolean pending;
 
     public JSonObject() {
         map = new LinkedHashMap<String, JSonValue>();
     }
 
+    /**
+     * returns a JSonObject whose content is parsed from text only when
+     * one of its fields is first accessed. text is expected to be a
+     * syntactically valid JSon object.
+     */
+    public static JSonObject lazy(String text) {
+        final JSonObject o = new JSonObject();
+        o.text = text;
+        o.pending = true;
+        return o;
+    }
+
+    /**
+     * returns a JSonObject whose content is read from the bytes of file
+     * between offset start (inclusive) and end (exclusive) and parsed only
+     * when one of its fields is first accessed.
+     */
+    public static JSonObject lazy(IndexableLineFile file, long start, long end) {
+        final JSonObject o = new JSonObject();
+        o.textFile = file;
+        o.textStart = start;
+        o.textEnd = end;
+        o.pending = true;
+        return o;
+    }
+
+    private HashMap<String, JSonValue> map() {
+        if (pending) {
+            synchronized (this) {
+                if (pending) {
+                    final String t = (textFile != null) ? textFile.getText(
+                            textStart, textEnd) : text;
+                    try {
+                        map.putAll(JSonParser.parseObject(t, new JSonObject()).map);
+                    } catch (final JSonException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                    text = null;
+                    textFile = null;
+                    pending = false;
+                }
+            }
+        }
+        return map;
+    }
+
     public JSonObject(String str) throws JSonException {
         this();
         JSonParser.parseObject(str, this);
@@ -51,7 +104,7 @@ public class JSonObject implements JSonValue {
     private String toStringInternal(boolean pretty, int indent) {
         final StringBuilder sb = new StringBuilder();
         sb.append("{ ");
-        for (final String k : map.keySet()) {
+        for (final String k : map().keySet()) {
             if (pretty) {
                 sb.append('\n');
                 for (int c = 0; c < indent * 2; c++) {
@@ -62,7 +115,7 @@ public class JSonObject implements JSonValue {
             sb.append(k);
             sb.append('"');
             sb.append(':');
-            final JSonValue value = map.get(k);
+            final JSonValue value = map().get(k);
             if (value instanceof JSonObject) {
                 final JSonObject v = (JSonObject) value;
                 sb.append(v.toStringInternal(pretty, indent + 1));
@@ -80,7 +133,7 @@ public class JSonObject implements JSonValue {
                 sb.append(' ');
             }
         }
-        if (map.size() > 0) {
+        if (map().size() > 0) {
             // remove extra comma
             sb.deleteCharAt(sb.length() - (pretty ? 3 : 2));
         }
@@ -98,39 +151,39 @@ public class JSonObject implements JSonValue {
     }
 
     public JSonValue get(String key) {
-        return map.get(key);
+        return map().get(key);
     }
 
     public JSonObject getJSon(String key) {
-        return (JSonObject) map.get(key);
+        return (JSonObject) map().get(key);
     }
 
     public JSonArrayValue getArray(String key) {
-        return (JSonArrayValue) map.get(key);
+        return (JSonArrayValue) map().get(key);
     }
 
     public void set(String key, JSonValue value) {
-        map.put(key, value);
+        map().put(key, value);
     }
 
     public void remove(String key) {
-        map.remove(key);
+        map().remove(key);
     }
 
     public void clear() {
-        map.clear();
+        map().clear();
     }
 
     @Override
     public int hashCode() {
-        return map.hashCode();
+        return map().hashCode();
     }
 
     @Override
     public boolean equals(Object o2) {
         if (!(o2 instanceof JSonObject))
             return false;
-        return map.equals(((JSonObject) o2).map);
+        return map().equals(((JSonObject) o2).map());
     }
 
     public static void main(String args[]) throws JSonException {
@@ -163,20 +216,20 @@ public class JSonObject implements JSonValue {
     }
 
     public JSonValue getValue(String key) {
-        return map.get(key);
+        return map().get(key);
     }
 
     public String[] getKeys() {
-        final Set<String> s = map.keySet();
+        final Set<String> s = map().keySet();
         return s.toArray(new String[s.size()]);
     }
 
     public JSonValue[] getValues() {
-        final Collection<JSonValue> s = map.values();
+        final Collection<JSonValue> s = map().values();
         return s.toArray(new JSonValue[s.size()]);
     }
 
     public int getFieldCount() {
-        return map.size();
+        return map().size();
     }
 }
@@ -13,42 +13,38 @@ package com.cisco.mscviewer.model;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import com.cisco.mscviewer.graph.Graph;
+import com.cisco.mscviewer.gui.renderer.EventRenderer;
 import com.cisco.mscviewer.model.graph.TopologyError;
 import com.cisco.mscviewer.model.graph.TopologyGraph;
+import com.cisco.mscviewer.tree.AVLTree;
 import com.cisco.mscviewer.tree.AVLTreeNode;
 import com.cisco.mscviewer.tree.InOrderAVLTreeNodeIterator;
 import com.cisco.mscviewer.tree.Interval;
 import com.cisco.mscviewer.tree.IntervalTree;
+import com.cisco.mscviewer.tree.IntervalVisitor;
+import com.cisco.mscviewer.tree.StaticIntervalIndex;
 import com.cisco.mscviewer.tree.TreeIntegrityException;
 import com.cisco.mscviewer.tree.Visitor;
 import com.cisco.mscviewer.util.Report;
 import com.cisco.mscviewer.util.Utils;
 
-class EventTimestampComparator implements Comparator<Event> {
-    @Override
-    public int compare(Event ev0, Event ev1) {
-        // TODO Auto-generated metod stub
-        return (int) (ev1.getTimestamp() - ev0.getTimestamp());
-    }
-}
-
-class KeyEvent extends Event {
-    public KeyEvent(long timestamp) {
-        super(null, timestamp, null, null, 0, null, null);
-    }
-}
-
 /**
  * An <code>MSCDataModel</code> contains {@link Entity}s, {@link Event}s and
  * {@link Interaction}s for a data model.
  * 
+ * Changes to the model are done holding the write lock, while code that
+ * needs a consistent view across several calls holds the read lock (see
+ * the package documentation).
+ * 
  * @author rattias
  */
 public final class MSCDataModel {
@@ -56,17 +52,42 @@ public final class MSCDataModel {
     private static MSCDataModel singleton;
     private final LinkedHashMap<String, Entity> entities = new LinkedHashMap<String, Entity>();
     private final ArrayList<Entity> rootEntities;
-    private ArrayList<Event> events;
+    private final EventStore events = new EventStore();
     private IntervalTree interactions;
     private IntervalTree blocks;
-    private EventTimestampComparator eventTimestampComparator;
+    /**
+     * immutable indices of interactions and blocks, built once loading is
+     * done. null while loading, or after a change to the trees.
+     */
+    private volatile StaticIntervalIndex interactionIndex;
+    private volatile StaticIntervalIndex blockIndex;
+    /** incoming/outgoing interactions of each event, built on demand */
+    private volatile InteractionAdjacency adjacency;
+    /** events of each entity, built on demand */
+    private volatile EntityEventIndex entityEvents;
+    /**
+     * bitset of the source line indices events were generated from. It is
+     * only modified under the write lock, grown by copy with the new bit
+     * set before it is published, and its words are read and written as
+     * volatiles, so it can be read without holding the lock.
+     */
+    private volatile AtomicLongArray eventLines = new AtomicLongArray(0);
+    /**
+     * fair, so that a loader re-acquiring the write lock between batches
+     * lets waiting readers in first
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(
+            true);
     private final Vector<MSCDataModelListener> listeners;
     // private MSCDataModelEventFilter filter;
     private String path;
     private boolean notificationEnabled;
     private String openPath;
+    /** events notified to listeners by notifyEventsAppended() */
+    private int publishedEvents;
     private final ArrayList<Graph> graphs = new ArrayList<Graph>();
     private IndexableLineFile llm = new IndexableLineFile();
+    private OutputUnit timestampOutputUnit;
 ;
 
     /**
@@ -74,7 +95,6 @@ public final class MSCDataModel {
      */
     private MSCDataModel() {
         this.listeners = new Vector<MSCDataModelListener>();
-        this.events = new ArrayList<Event>();
         this.rootEntities = new ArrayList<Entity>();
 //        this.data = new ArrayList<String>();
         this.interactions = new IntervalTree("interactions");
@@ -87,11 +107,21 @@ public final class MSCDataModel {
      * resets data model to initial state
      */
     public void reset() {
-        entities.clear();
-        rootEntities.clear();
-        events.clear();
-        interactions = new IntervalTree("interactions");
-        blocks = new IntervalTree("blocks");
+        lock.writeLock().lock();
+        try {
+            entities.clear();
+            rootEntities.clear();
+            events.clear();
+            interactions = new IntervalTree("interactions");
+            blocks = new IntervalTree("blocks");
+            interactionIndex = blockIndex = null;
+            adjacency = null;
+            entityEvents = null;
+            eventLines = new AtomicLongArray(0);
+            publishedEvents = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
         notifyModelChanged();
 //        data.clear();
         if (llm != null)
@@ -111,6 +141,28 @@ public final class MSCDataModel {
         return path;
     }
 
+    /**
+     * returns the lock to hold while reading the model, when a consistent
+     * view across several calls is needed. The lock is reentrant, and can
+     * also be acquired by the holder of the write lock.
+     * 
+     * @return
+     */
+    public Lock getReadLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * returns the lock held while changing the model. Methods changing the
+     * model acquire it themselves; loaders may also hold it across a batch
+     * of changes, so that readers see the batch atomically.
+     * 
+     * @return
+     */
+    public Lock getWriteLock() {
+        return lock.writeLock();
+    }
+
     /**
      * Adds an {@link Entity} to the model.
      * 
@@ -125,7 +177,8 @@ public final class MSCDataModel {
      */
     public Entity addEntity(String entityPath, String displayName) {
         Entity en;
-        synchronized (this) {
+        lock.writeLock().lock();
+        try {
             en = entities.get(entityPath);
             if (en != null) {
                 if (displayName != null)
@@ -144,6 +197,8 @@ public final class MSCDataModel {
                 rootEntities.add(en);
             }
             entities.put(entityPath, en);
+        } finally {
+            lock.writeLock().unlock();
         }
         // notifyEntityAdded(en);
         return en;
@@ -202,23 +257,57 @@ public final class MSCDataModel {
     /**
      * adds an event to the model.
      * 
-     * @param ev
-     * @return the index of the event in the data model
+     * @param timestamp
+     *            the timestamp the event occurred at
+     * @param en
+     *            the {@link Entity} the event belong to
+     * @param label
+     *            the label associated to the event
+     * @param lineIndex
+     *            the index of the source line this event was generated from
+     * @param renderer
+     *            the initialized {@link EventRenderer} associated to the
+     *            event, or <code>null</code> for the default one
+     * @return the added event
      */
-    public int addEvent(Event ev) {
-        synchronized (this) {
-            final int idx = events.size();
-            events.add(ev);
-            final Entity en = ev.getEntity();
+    public Event addEvent(long timestamp, Entity en, String label,
+            int lineIndex, EventRenderer renderer) {
+        if (en == null)
+            throw new NullPointerException("Null entity");
+        lock.writeLock().lock();
+        try {
+            final int row = events.add(timestamp, en, label, lineIndex,
+                    renderer);
+            final int idx = events.index(row);
             if (en.getFirstEventIndex() == -1)
                 en.setFirstEventIndex(idx);
             en.setLastEventIndex(idx);
-            ev.setIndex(idx);
-            return idx;
+            entityEvents = null;
+            if (lineIndex >= 0) {
+                final AtomicLongArray lines = eventLines;
+                final int w = lineIndex >> 6;
+                if (w < lines.length()) {
+                    lines.set(w, lines.get(w) | 1L << lineIndex);
+                } else {
+                    final AtomicLongArray grown = new AtomicLongArray(
+                            Math.max(w + 1, lines.length() * 2));
+                    for (int i = 0; i < lines.length(); i++)
+                        grown.set(i, lines.get(i));
+                    grown.set(w, 1L << lineIndex);
+                    eventLines = grown;
+                }
+            }
+            return new Event(this, row);
+        } finally {
+            lock.writeLock().unlock();
         }
         // notifyEventAdded(ev);
     }
 
+    EventStore getEventStore() {
+        return events;
+    }
+
     /**
      * returns the <code>idx</code>-th event in the data model.
      * 
@@ -228,11 +317,59 @@ public final class MSCDataModel {
     public Event getEventAt(int idx) {
         if (idx == -1)
             return null;
-        return events.get(idx);
+        if (idx < 0 || idx >= events.size())
+            throw new IndexOutOfBoundsException("Index: " + idx + ", Size: "
+                    + events.size());
+        return new Event(this, events.row(idx));
+    }
+
+    /**
+     * returns the indices of the events of the specified entity, in
+     * increasing order. The array is shared, and must not be modified.
+     */
+    public int[] getEventIndices(Entity en) {
+        // entities may be added while loading, so the lookup is locked too
+        lock.readLock().lock();
+        try {
+            EntityEventIndex idx = entityEvents;
+            if (idx == null) {
+                synchronized (this) {
+                    idx = entityEvents;
+                    if (idx == null)
+                        idx = entityEvents = new EntityEventIndex(events);
+                }
+            }
+            return idx.get(en);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * returns the timestamp of the <code>idx</code>-th event, without
+     * creating an {@link Event}.
+     */
+    public long getEventTimestamp(int idx) {
+        return events.timestampAt(idx);
+    }
+
+    /**
+     * returns a number identifying the entity of the <code>idx</code>-th
+     * event, between 0 and {@link #getEventEntityIdCount()} - 1.
+     */
+    public int getEventEntityId(int idx) {
+        return events.entityId(events.row(idx));
+    }
+
+    /**
+     * returns the number of distinct entities the events belong to.
+     */
+    public int getEventEntityIdCount() {
+        return events.entityIdCount();
     }
 
     public int getEventIndex(Event ev) {
-        return events.indexOf(ev);
+        return ev.getIndex();
     }
 
     /**
@@ -251,15 +388,35 @@ public final class MSCDataModel {
      * @return
      */
     public Event getEventWithTimestamp(long timestamp) {
-        final Event kev = new KeyEvent(timestamp);
-        final int idx = Collections.binarySearch(events, kev,
-                eventTimestampComparator);
+        final int idx = binarySearchTimestamp(timestamp);
         if (idx >= 0)
-            return events.get(idx);
+            return getEventAt(idx);
         else
             return null;
     }
 
+    /**
+     * searches the events for the specified timestamp, assuming they are
+     * sorted by timestamp. Returns the index of an event with that timestamp
+     * if found, (-(insertion point) - 1) otherwise, as
+     * {@link java.util.Arrays#binarySearch(long[], long)}.
+     */
+    private int binarySearchTimestamp(long timestamp) {
+        int lo = 0;
+        int hi = events.size() - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final long ts = events.timestampAt(mid);
+            if (ts < timestamp)
+                lo = mid + 1;
+            else if (ts > timestamp)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
     /**
      * returns an iterator on all events contained in the specified range of
      * timestamps
@@ -269,12 +426,8 @@ public final class MSCDataModel {
      * @return
      */
     public EventRange getEventRangeInTimeWindow(long ts0, long ts1) {
-        final Event k0 = new KeyEvent(ts0);
-        final Event k1 = new KeyEvent(ts1);
-        final int idx0 = Collections.binarySearch(events, k0,
-                eventTimestampComparator);
-        final int idx1 = Collections.binarySearch(events, k1,
-                eventTimestampComparator);
+        final int idx0 = binarySearchTimestamp(ts0);
+        final int idx1 = binarySearchTimestamp(ts1);
         return new EventRange(this, idx0 >= 0 ? idx0 : -(idx0 + 1),
                 idx1 >= 0 ? idx1 : (-(idx1 + 1)) - 1);
     }
@@ -299,11 +452,157 @@ public final class MSCDataModel {
      * @param inter
      */
     public void addInteraction(Interaction inter) {
-        interactions.add(inter);
+        lock.writeLock().lock();
+        try {
+            interactions.add(inter);
+            interactionIndex = null;
+            adjacency = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void addBlock(Interval block) {
-        blocks.add(block);
+        lock.writeLock().lock();
+        try {
+            blocks.add(block);
+            blockIndex = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * replaces the interactions of the data model with the specified ones.
+     * The tree is bulk-built, which is much faster than adding the
+     * interactions one at a time. The array is sorted in place.
+     * 
+     * @param inters
+     */
+    public void setInteractions(Interaction[] inters) {
+        Arrays.sort(inters, AVLTree.VALUE_ORDER);
+        final IntervalTree tree = new IntervalTree("interactions", inters);
+        lock.writeLock().lock();
+        try {
+            interactions = tree;
+            interactionIndex = null;
+            adjacency = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * replaces the blocks of the data model with the specified ones. The
+     * array is sorted in place.
+     * 
+     * @param blks
+     */
+    public void setBlocks(Interval[] blks) {
+        Arrays.sort(blks, AVLTree.VALUE_ORDER);
+        final IntervalTree tree = new IntervalTree("blocks", blks);
+        lock.writeLock().lock();
+        try {
+            blocks = tree;
+            blockIndex = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * returns the index of the interactions, building it if needed. Returns
+     * null while loading, when the interactions still change.
+     */
+    private StaticIntervalIndex getInteractionIndex() {
+        StaticIntervalIndex idx = interactionIndex;
+        if (idx == null && notificationEnabled) {
+            lock.readLock().lock();
+            try {
+                synchronized (this) {
+                    idx = interactionIndex;
+                    if (idx == null)
+                        idx = interactionIndex = new StaticIntervalIndex(
+                                interactions);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * returns the index of the blocks, building it if needed. Returns null
+     * while loading, when the blocks still change.
+     */
+    private StaticIntervalIndex getBlockIndex() {
+        StaticIntervalIndex idx = blockIndex;
+        if (idx == null && notificationEnabled) {
+            lock.readLock().lock();
+            try {
+                synchronized (this) {
+                    idx = blockIndex;
+                    if (idx == null)
+                        idx = blockIndex = new StaticIntervalIndex(blocks);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * returns the incoming/outgoing interactions of the events, building
+     * them if needed. Unlike the interval indices this is also done while
+     * loading, e.g. for the computation of blocks once all the interactions
+     * have been added.
+     */
+    private InteractionAdjacency getAdjacency() {
+        InteractionAdjacency adj = adjacency;
+        if (adj == null) {
+            lock.readLock().lock();
+            try {
+                synchronized (this) {
+                    adj = adjacency;
+                    if (adj == null)
+                        adj = adjacency = buildAdjacency();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return adj;
+    }
+
+    private InteractionAdjacency buildAdjacency() {
+        final StaticIntervalIndex idx = interactionIndex;
+        final int n = idx != null ? idx.size() : interactions.count();
+        final Interaction[] inters = new Interaction[n];
+        if (idx != null) {
+            for (int i = 0; i < n; i++)
+                inters[i] = (Interaction) idx.get(i);
+        } else {
+            interactions.inorder(new Visitor() {
+                private int cnt;
+
+                @Override
+                public boolean visit(AVLTreeNode tn) {
+                    inters[cnt++] = (Interaction) tn.getData();
+                    return false;
+                }
+            });
+        }
+        return new InteractionAdjacency(inters, events.size());
+    }
+
+    private static boolean visitAll(ArrayList<Interval> al, IntervalVisitor v) {
+        for (final Interval in : al) {
+            if (v.visit(in))
+                return true;
+        }
+        return false;
     }
 
     /**
@@ -375,14 +674,12 @@ public final class MSCDataModel {
      * @return
      */
     public Interaction[] getOutgoingInteractions(int fromEventIdx) {
-        final ArrayList<Interval> al = new ArrayList<Interval>();
-        interactions.getIntervalsWithStartBound(fromEventIdx, al);
-        for (final Iterator<Interval> it = al.iterator(); it.hasNext();) {
-            final Interval in = it.next();
-            if (((Interaction) in).getFromIndex() == -1)
-                it.remove();
-        }
-        return al.toArray(new Interaction[al.size()]);
+        final InteractionAdjacency adj = getAdjacency();
+        final Interaction[] res = new Interaction[adj
+                .outgoingCount(fromEventIdx)];
+        for (int i = 0; i < res.length; i++)
+            res[i] = adj.outgoing(fromEventIdx, i);
+        return res;
     }
 
     /**
@@ -393,14 +690,58 @@ public final class MSCDataModel {
      * @return
      */
     public Interaction[] getIncomingInteractions(int toEventIdx) {
-        final ArrayList<Interval> al = new ArrayList<Interval>();
-        interactions.getIntervalsWithEndBound(toEventIdx, al);
-        for (final Iterator<Interval> it = al.iterator(); it.hasNext();) {
-            final Interval in = it.next();
-            if (((Interaction) in).getToIndex() == -1)
-                it.remove();
-        }
-        return al.toArray(new Interaction[al.size()]);
+        final InteractionAdjacency adj = getAdjacency();
+        final Interaction[] res = new Interaction[adj
+                .incomingCount(toEventIdx)];
+        for (int i = 0; i < res.length; i++)
+            res[i] = adj.incoming(toEventIdx, i);
+        return res;
+    }
+
+    /**
+     * returns the number of interactions having the event at the specified
+     * index as source event.
+     * 
+     * @param fromEventIdx
+     * @return
+     */
+    public int getOutgoingInteractionCount(int fromEventIdx) {
+        return getAdjacency().outgoingCount(fromEventIdx);
+    }
+
+    /**
+     * returns the i-th interaction having the event at the specified index
+     * as source event, 0 <= i < {@link #getOutgoingInteractionCount(int)}.
+     * 
+     * @param fromEventIdx
+     * @param i
+     * @return
+     */
+    public Interaction getOutgoingInteraction(int fromEventIdx, int i) {
+        return getAdjacency().outgoing(fromEventIdx, i);
+    }
+
+    /**
+     * returns the number of interactions having the event at the specified
+     * index as sink event.
+     * 
+     * @param toEventIdx
+     * @return
+     */
+    public int getIncomingInteractionCount(int toEventIdx) {
+        return getAdjacency().incomingCount(toEventIdx);
+    }
+
+    /**
+     * returns the i-th interaction having the event at the specified index
+     * as sink event, 0 <= i < {@link #getIncomingInteractionCount(int)}.
+     * 
+     * @param toEventIdx
+     * @param i
+     * @return
+     */
+    public Interaction getIncomingInteraction(int toEventIdx, int i) {
+        return getAdjacency().incoming(toEventIdx, i);
     }
 
     /**
@@ -416,7 +757,11 @@ public final class MSCDataModel {
      */
     public Interaction[] getInteractionsSurrounding(int modelIdx) {
         final ArrayList<Interval> al = new ArrayList<Interval>();
-        interactions.getContainingIntervals(modelIdx, al);
+        final StaticIntervalIndex idx = getInteractionIndex();
+        if (idx != null)
+            idx.visitContaining(modelIdx, collector(al));
+        else
+            interactions.getContainingIntervals(modelIdx, al);
         return al.toArray(new Interaction[al.size()]);
     }
 
@@ -437,16 +782,67 @@ public final class MSCDataModel {
     public ArrayList<Interaction> getInteractionsInInterval(int modelMinIdx,
             int modelMaxIdx) {
         final ArrayList<Interval> al = new ArrayList<Interval>();
-        interactions.getIntersectingIntervals(modelMinIdx, modelMaxIdx, al);
+        visitInteractionsInInterval(modelMinIdx, modelMaxIdx, collector(al));
         // need to clone just to make generics happy!
         return (ArrayList<Interaction>) al.clone();
     }
 
+    /**
+     * visits the interactions intersecting the interval [modelMinIdx,
+     * modelMaxIdx] (see {@link #getInteractionsInInterval(int, int)}). Once
+     * loading is done no memory is allocated. Returns true if the visitor
+     * stopped the visit.
+     * 
+     * @param modelMinIdx
+     * @param modelMaxIdx
+     * @param v
+     * @return
+     */
+    public boolean visitInteractionsInInterval(int modelMinIdx,
+            int modelMaxIdx, IntervalVisitor v) {
+        final StaticIntervalIndex idx = getInteractionIndex();
+        if (idx != null)
+            return idx.visitIntersecting(modelMinIdx, modelMaxIdx, v);
+        final ArrayList<Interval> al = new ArrayList<Interval>();
+        interactions.getIntersectingIntervals(modelMinIdx, modelMaxIdx, al);
+        return visitAll(al, v);
+    }
+
+    /**
+     * visits the blocks intersecting the interval [modelMinIdx,
+     * modelMaxIdx]. Once loading is done no memory is allocated. Returns
+     * true if the visitor stopped the visit.
+     * 
+     * @param modelMinIdx
+     * @param modelMaxIdx
+     * @param v
+     * @return
+     */
+    public boolean visitBlocksInInterval(int modelMinIdx, int modelMaxIdx,
+            IntervalVisitor v) {
+        final StaticIntervalIndex idx = getBlockIndex();
+        if (idx != null)
+            return idx.visitIntersecting(modelMinIdx, modelMaxIdx, v);
+        final ArrayList<Interval> al = new ArrayList<Interval>();
+        blocks.getIntersectingIntervals(modelMinIdx, modelMaxIdx, al);
+        return visitAll(al, v);
+    }
+
+    private static IntervalVisitor collector(final ArrayList<Interval> al) {
+        return new IntervalVisitor() {
+            @Override
+            public boolean visit(Interval in) {
+                al.add(in);
+                return false;
+            }
+        };
+    }
+
     public ArrayList<Interval> getBlocksInInterval(int modelMinIdx,
             int modelMaxIdx) {
         final boolean debug = true;
         final ArrayList<Interval> al = new ArrayList<Interval>();
-        blocks.getIntersectingIntervals(modelMinIdx, modelMaxIdx, al);
+        visitBlocksInInterval(modelMinIdx, modelMaxIdx, collector(al));
         if (debug) {
             int min = Integer.MAX_VALUE;
             int max = Integer.MIN_VALUE;
@@ -647,6 +1043,31 @@ public final class MSCDataModel {
         }
     }
 
+    /**
+     * while loading or following a growing file, notifies listeners of the
+     * events added since the last notification (see
+     * {@link MSCDataModelListener#eventsAppended}), and makes the source
+     * lines read so far visible in the log list model. Called by the
+     * loader, without holding the write lock.
+     */
+    public void notifyEventsAppended() {
+        final int from = publishedEvents;
+        final int to = events.size();
+        final int lines = llm.getLineCount();
+        publishedEvents = to;
+        Utils.dispatchOnAWTThreadLater(new Runnable() {
+            @Override
+            public void run() {
+                llm.publishLines(lines);
+                if (to > from) {
+                    for (final MSCDataModelListener listener : listeners) {
+                        listener.eventsAppended(MSCDataModel.this, from, to);
+                    }
+                }
+            }
+        });
+    }
+
     // public void notifyEventsChanged() {
     // if (notificationEnabled) {
     // Utils.dispatchOnAWTThreadLater(new Runnable() {
@@ -741,11 +1162,13 @@ public final class MSCDataModel {
      * The topological sorting may fail if the model has unexpected loops (for
      * example events e1, e2, belonging to entity E1, e3, e4 to entity E2, and
      * interactions e1->e4, e4->e2, e2->e3, e3->e1 (which would imply e1
-     * happened before itself).
+     * happened before itself). In that case the error is reported and the
+     * order of the events is left unchanged.
      * 
-     * @param obs
+     * @return true if the events were sorted, false if the sorting failed
      */
-    public void topoSort() {
+    public boolean topoSort() {
+        boolean sorted = false;
         if (true) {
             final TopologyGraph graph = new TopologyGraph(this);
             IntervalTree.dbg = true;
@@ -755,55 +1178,56 @@ public final class MSCDataModel {
                 // a node that was at index evs[i] should go to index i
                 final int[] evs = graph.topoSort();
 
-                final ArrayList<Event> newevs = new ArrayList<Event>(sz);
-                // remap events
-                for (final Entity en : rootEntities) {
-                    en.setFirstEventIndex(-1);
-                }
-                for (int i = 0; i < sz; i++) {
-                    final Event ev = events.get(evs[i]);
-                    newevs.add(ev);
-                    ev.setIndex(i);
-                    final Entity en = ev.getEntity();
-                    if (en.getFirstEventIndex() == -1)
-                        en.setFirstEventIndex(i);
-                    en.setLastEventIndex(i);
-                }
-
-                // remap interactions
-                class NodeVisitor implements Visitor {
-                    private final IntervalTree newTree;
-
-                    public NodeVisitor(IntervalTree newTree) {
-                        this.newTree = newTree;
+                // oldToNew[j] is the new index of the event at index j
+                final int[] oldToNew = new int[sz];
+                for (int i = 0; i < sz; i++)
+                    oldToNew[evs[i]] = i;
+                // the permutation is published atomically to readers
+                lock.writeLock().lock();
+                try {
+                    events.permute(evs);
+                    entityEvents = null;
+                    // remap events
+                    for (final Entity en : entities.values()) {
+                        en.setFirstEventIndex(-1);
+                    }
+                    for (int i = 0; i < sz; i++) {
+                        final Entity en = events.entity(events.row(i));
+                        if (en.getFirstEventIndex() == -1)
+                            en.setFirstEventIndex(i);
+                        en.setLastEventIndex(i);
                     }
 
-                    @Override
-                    public boolean visit(AVLTreeNode tn) {
-                        final Interaction inter = (Interaction) tn.getData();
-                        final int oldFrom = inter.getFromIndex();
-                        final int oldTo = inter.getToIndex();
-                        // we use old event array here to map from old index to
-                        // new
-                        final int newFrom = (oldFrom != -1) ? events.get(oldFrom)
-                                .getIndex() : -1;
-                        final int newTo = (oldTo != -1) ? events.get(oldTo)
-                                .getIndex() : -1;
-                        inter.setFromToIndices(newFrom, newTo);
-                        // although we don't traverse the children any longer,
-                        // we remove them to allow memory recycle for tree nodes
-                        tn.detachChildren();
-                        newTree.add(inter);
-                        return false;
+                    // remap interactions. Since the tree is sorted by index, it
+                    // is then rebuilt from scratch.
+                    final Interaction[] inters = new Interaction[interactions
+                            .count()];
+                    class NodeVisitor implements Visitor {
+                        private int cnt;
+
+                        @Override
+                        public boolean visit(AVLTreeNode tn) {
+                            final Interaction inter = (Interaction) tn.getData();
+                            final int oldFrom = inter.getFromIndex();
+                            final int oldTo = inter.getToIndex();
+                            final int newFrom = (oldFrom != -1) ? oldToNew[oldFrom]
+                                    : -1;
+                            final int newTo = (oldTo != -1) ? oldToNew[oldTo] : -1;
+                            inter.setFromToIndices(newFrom, newTo);
+                            // although we don't traverse the children any longer,
+                            // we remove them to allow memory recycle for tree nodes
+                            tn.detachChildren();
+                            inters[cnt++] = inter;
+                            return false;
+                        }
                     }
+                    interactions.postorder(new NodeVisitor());
+                    setInteractions(inters);
+                } finally {
+                    lock.writeLock().unlock();
                 }
-                final IntervalTree newTree = new IntervalTree("tmptree");
-                interactions.postorder(new NodeVisitor(newTree));
-                interactions = newTree;
-
-                // assing event array last
-                events = newevs;
                 notifyModelChanged();
+                sorted = true;
             } catch (final TopologyError e) {
                 Report.exception("Exception while performing topological sorting:", e);
             }
@@ -817,6 +1241,18 @@ public final class MSCDataModel {
                 }
             }
         }
+        return sorted;
+    }
+
+    /**
+     * returns true if an event was generated from the source line with
+     * index lnum. Can be called without holding the read lock.
+     */
+    public boolean isEventLine(int lnum) {
+        final AtomicLongArray lines = eventLines;
+        final int w = lnum >> 6;
+        return lnum >= 0 && w < lines.length()
+                && (lines.get(w) & (1L << lnum)) != 0;
     }
 
     /**
@@ -827,13 +1263,15 @@ public final class MSCDataModel {
      * @return
      */
     public Event getEventByLineIndex(int lnum) {
-        final int sz = events.size();
-        for (int i = 0; i < sz; i++) {
-            final Event ev = events.get(i);
-            if (ev.getLineIndex() == lnum)
-                return ev;
+        if (!isEventLine(lnum))
+            return null;
+        lock.readLock().lock();
+        try {
+            final int row = events.rowOfLine(lnum);
+            return row >= 0 ? new Event(this, row) : null;
+        } finally {
+            lock.readLock().unlock();
         }
-        return null;
     }
 
     /**
@@ -843,19 +1281,21 @@ public final class MSCDataModel {
      */
     public void setLoading(boolean v) {
         notificationEnabled = !v;
-        if (v)
+        if (v) {
             llm.reset();
-        else
+        } else {
+            publishedEvents = events.size();
             llm.doneLoading();
+            getInteractionIndex();
+            getBlockIndex();
+        }
     }
 
     /**
      * clears all markers for events and interactions
      */
     public void clearMarkers() {
-        for (final Event ev : events) {
-            ev.setMarker(null);
-        }
+        events.clearMarkers();
         for (final InOrderAVLTreeNodeIterator it = new InOrderAVLTreeNodeIterator(
                 interactions); it.hasNext();) {
             final AVLTreeNode tn = it.next();
@@ -864,6 +1304,21 @@ public final class MSCDataModel {
         }
     }
 
+    /**
+     * sets the unit used to format the timestamps of the events (see
+     * {@link Event#getTimestampRepr()}).
+     * 
+     * @param ou
+     */
+    public void setTimestampOutputUnit(OutputUnit ou) {
+        timestampOutputUnit = ou;
+        events.clearTimestampReprs();
+    }
+
+    public OutputUnit getTimestampOutputUnit() {
+        return timestampOutputUnit;
+    }
+
     public String getOpenPath() {
         return openPath;
     }
@@ -11,6 +11,12 @@
  */
 package com.cisco.mscviewer.model;
 
+/**
+ * A filter on the events shown by a {@link ViewModel}. The view model only
+ * evaluates it on events of the entities it contains, possibly from
+ * several threads at once, so implementations must be thread-safe and
+ * should not lock the model.
+ */
 abstract public interface MSCDataModelEventFilter {
     boolean filter(Event ev);
 }
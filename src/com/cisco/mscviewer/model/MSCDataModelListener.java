@@ -21,4 +21,14 @@ public interface MSCDataModelListener {
 
     void eventsChanged(MSCDataModel mscDataModel);
 
+    /**
+     * called while the model is being loaded, or while the loaded file is
+     * followed as it grows, when the events with indices in [fromIdx, toIdx)
+     * have been published, together with their entities and interactions.
+     * Events are appended in the order they are read, and their indices may
+     * change once loading is done, when {@link #modelChanged(MSCDataModel)}
+     * is called.
+     */
+    void eventsAppended(MSCDataModel mscDataModel, int fromIdx, int toIdx);
+
 }
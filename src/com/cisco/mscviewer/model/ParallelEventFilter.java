@@ -0,0 +1,150 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cisco.mscviewer.util.ProgressReport;
+
+/**
+ * Applies a {@link MSCDataModelEventFilter} to lists of event indices, on
+ * the common fork-join pool.
+ *
+ * The lists are seen as one range of positions, split into chunks of
+ * {@link #CHUNK} positions. Each task evaluates the filter on a chunk and
+ * sets the bits of the passing positions in a shared bitset; since chunks
+ * are aligned to 64 positions, tasks never write the same word. The
+ * filtered lists are then extracted from the bitset.
+ */
+final class ParallelEventFilter {
+    /** positions evaluated by each task, a multiple of 64 */
+    static final int CHUNK = 1 << 14;
+
+    private final MSCDataModel dm;
+    private final MSCDataModelEventFilter filter;
+    private final int[][] lists;
+    /** position of the first element of each list */
+    private final int[] starts;
+    private final long[] bits;
+    private final ProgressReport pr;
+    private final AtomicLong done = new AtomicLong();
+    private volatile boolean cancelled;
+
+    private ParallelEventFilter(MSCDataModel dm,
+            MSCDataModelEventFilter filter, int[][] lists, ProgressReport pr) {
+        this.dm = dm;
+        this.filter = filter;
+        this.lists = lists;
+        this.pr = pr;
+        starts = new int[lists.length + 1];
+        for (int i = 0; i < lists.length; i++)
+            starts[i + 1] = starts[i] + lists[i].length;
+        bits = new long[(starts[lists.length] + 63) >>> 6];
+    }
+
+    /**
+     * returns, for each list, the indices of the events passing the filter.
+     * Lists where all the events pass are returned as they are. Progress
+     * is reported to pr as a percentage, if pr is not null; returns null
+     * if pr is cancelled before the end.
+     */
+    static int[][] apply(MSCDataModel dm, MSCDataModelEventFilter filter,
+            int[][] lists, ProgressReport pr) {
+        final ParallelEventFilter pf = new ParallelEventFilter(dm, filter,
+                lists, pr);
+        final int total = pf.starts[lists.length];
+        if (total <= CHUNK)
+            pf.evaluate(0, total);
+        else
+            ForkJoinPool.commonPool().invoke(pf.new Task(0, total));
+        return pf.cancelled ? null : pf.extract();
+    }
+
+    private class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int lo, hi;
+
+        Task(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= CHUNK) {
+                evaluate(lo, hi);
+            } else {
+                // split on a chunk boundary
+                final int mid = lo + (hi - lo + CHUNK - 1) / CHUNK / 2 * CHUNK;
+                invokeAll(new Task(lo, mid), new Task(mid, hi));
+            }
+        }
+    }
+
+    /**
+     * evaluates the filter on positions [lo, hi).
+     */
+    private void evaluate(int lo, int hi) {
+        if (cancelled || (pr != null && pr.isCancelled())) {
+            cancelled = true;
+            return;
+        }
+        // the list containing position lo
+        int l = 0;
+        int high = lists.length - 1;
+        while (l < high) {
+            final int mid = (l + high + 1) >>> 1;
+            if (starts[mid] <= lo)
+                l = mid;
+            else
+                high = mid - 1;
+        }
+        for (int p = lo; p < hi; p++) {
+            while (p >= starts[l + 1])
+                l++;
+            if (filter.filter(dm.getEventAt(lists[l][p - starts[l]])))
+                bits[p >>> 6] |= 1L << p;
+        }
+        if (pr != null && hi > lo) {
+            final long total = starts[lists.length];
+            pr.progress(done.addAndGet(hi - lo) * 100 / total);
+        }
+    }
+
+    private int[][] extract() {
+        final int[][] res = new int[lists.length][];
+        for (int l = 0; l < lists.length; l++) {
+            final int[] list = lists[l];
+            int cnt = 0;
+            for (int i = 0; i < list.length; i++) {
+                if (isSet(starts[l] + i))
+                    cnt++;
+            }
+            if (cnt == list.length) {
+                res[l] = list;
+                continue;
+            }
+            res[l] = new int[cnt];
+            cnt = 0;
+            for (int i = 0; i < list.length; i++) {
+                if (isSet(starts[l] + i))
+                    res[l][cnt++] = list[i];
+            }
+        }
+        return res;
+    }
+
+    private boolean isSet(int p) {
+        return (bits[p >>> 6] & (1L << p)) != 0;
+    }
+}
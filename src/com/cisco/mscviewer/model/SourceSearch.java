@@ -0,0 +1,429 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.cisco.mscviewer.util.Report;
+import com.cisco.mscviewer.util.Utils;
+
+/**
+ * Searches the lines of the source file of a model matching a regular
+ * expression, in the background.
+ *
+ * The lines are split into chunks of at most {@link #CHUNK_LINES} lines
+ * and {@link #CHUNK_BYTES} bytes, scanned in parallel on the common
+ * fork-join pool by copying their bytes out of the memory-mapped file.
+ * If the expression contains a literal that every match must contain, the
+ * bytes of a chunk are first searched for it, and only the lines where it
+ * occurs are decoded and matched against the expression; an expression
+ * that is just a literal isn't evaluated at all. Otherwise every line is
+ * decoded and matched.
+ *
+ * Chunks are reported in search order as they complete, so the lines
+ * found stream to the {@link Listener} on the event dispatch thread while
+ * the search goes on.
+ */
+public final class SourceSearch {
+    /** maximum lines scanned by each task */
+    static final int CHUNK_LINES = 1 << 14;
+    /** maximum bytes scanned by each task, unless a single line is longer */
+    static final int CHUNK_BYTES = 1 << 22;
+    private static final String META = "\\[](){}.*+?^$|";
+    /** the letters of the escapes that take no argument */
+    private static final String NO_ARG_ESCAPES = "dDsSwWhHvVbBAGzZRXtnrfae";
+
+    /**
+     * receives the results of a search, on the event dispatch thread.
+     */
+    public interface Listener {
+        /**
+         * called with the indices of lines found, in search order.
+         */
+        void linesFound(SourceSearch s, int[] lines);
+
+        /**
+         * called when the search is over. cancelled is true if it was
+         * cancelled through {@link SourceSearch#cancel()}.
+         */
+        void searchDone(SourceSearch s, boolean cancelled);
+    }
+
+    private final Pattern pattern;
+    /** bytes every match contains, or null */
+    private final byte[] literal;
+    /** true if a line contains a match if and only if it contains literal */
+    private final boolean exact;
+    private final ByteBuffer[] regions;
+    private final IndexableLineFile.OffsetBlock[] offsets;
+    private final int lineCount;
+    private final long linesEnd;
+    private final int from;
+    private final boolean forward;
+    private final int maxResults;
+    private final Listener listener;
+    private volatile boolean cancelled;
+    /** matchers of the pattern, one per thread */
+    private final ThreadLocal<Matcher> matcher = new ThreadLocal<Matcher>() {
+        @Override
+        protected Matcher initialValue() {
+            return pattern.matcher("");
+        }
+    };
+
+    private SourceSearch(MSCDataModel dm, Pattern pattern, int from,
+            boolean forward, int maxResults, Listener listener) {
+        this.pattern = pattern;
+        String lit = requiredLiteral(pattern);
+        byte[] bytes = null;
+        if (lit != null) {
+            // lines are decoded as the list model does; a literal that
+            // doesn't survive encoding can't be searched for as bytes
+            bytes = lit.getBytes(IndexableLineFile.CHARSET);
+            if (!new String(bytes, IndexableLineFile.CHARSET).equals(lit)) {
+                lit = null;
+                bytes = null;
+            }
+        }
+        literal = bytes;
+        exact = lit != null && lit.equals(pattern.pattern())
+                && lit.indexOf('\n') < 0 && lit.indexOf('\r') < 0;
+        this.from = from;
+        this.forward = forward;
+        this.maxResults = maxResults;
+        this.listener = listener;
+        final IndexableLineFile file = dm.getLogListModel();
+        dm.getReadLock().lock();
+        try {
+            lineCount = file.getSize();
+            offsets = file.getOffsetBlocks();
+            linesEnd = file.getLinesEnd();
+            regions = new ByteBuffer[file.getMappedRegionCount()];
+            for (int i = 0; i < regions.length; i++)
+                regions[i] = file.getMappedRegion(i);
+        } finally {
+            dm.getReadLock().unlock();
+        }
+    }
+
+    /**
+     * starts searching the source lines of dm matching pattern, from line
+     * from onwards if forward is true, or from line from backwards
+     * otherwise, until maxResults lines are found.
+     */
+    public static SourceSearch start(MSCDataModel dm, Pattern pattern,
+            int from, boolean forward, int maxResults, Listener listener) {
+        final SourceSearch s = new SourceSearch(dm, pattern, from, forward,
+                maxResults, listener);
+        final Thread t = new Thread("Source Search") {
+            @Override
+            public void run() {
+                s.run();
+            }
+        };
+        t.setDaemon(true);
+        t.start();
+        return s;
+    }
+
+    /**
+     * stops the search. Lines found but not yet reported are discarded.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * returns the longest literal every match of p contains, or null if
+     * none is found. The expression is only partially parsed: whatever is
+     * inside groups and character classes, or is quantified, is skipped,
+     * and expressions with alternatives, flags or escapes taking an
+     * argument (e.g. \x41, \p{L} or back references) have no literal.
+     */
+    static String requiredLiteral(Pattern p) {
+        final String re = p.pattern();
+        if (p.flags() != 0 || re.indexOf('|') >= 0 || re.contains("\\Q")
+                || re.contains("(?"))
+            return null;
+        String best = "";
+        final StringBuilder cur = new StringBuilder();
+        int depth = 0;
+        final int n = re.length();
+        for (int i = 0; i < n; i++) {
+            char c = re.charAt(i);
+            if (META.indexOf(c) < 0 || (c == '\\' && i + 1 < n
+                    && !Character.isLetterOrDigit(re.charAt(i + 1)))) {
+                if (c == '\\')
+                    c = re.charAt(++i);
+                if (depth == 0)
+                    cur.append(c);
+                continue;
+            }
+            switch (c) {
+            case '\\':
+                // a character class or a special character; the other
+                // escapes take an argument, which isn't parsed
+                if (++i >= n || NO_ARG_ESCAPES.indexOf(re.charAt(i)) < 0)
+                    return null;
+                break;
+            case '[':
+                // skip the class, whose first character may be ]
+                i++;
+                if (i < n && re.charAt(i) == '^')
+                    i++;
+                if (i < n && re.charAt(i) == ']')
+                    i++;
+                while (i < n && re.charAt(i) != ']') {
+                    if (re.charAt(i) == '\\')
+                        i++;
+                    i++;
+                }
+                break;
+            case '(':
+                depth++;
+                break;
+            case ')':
+                depth--;
+                break;
+            case '*':
+            case '?':
+            case '{':
+                // the previous character may be missing
+                if (cur.length() > 0)
+                    cur.setLength(cur.length() - 1);
+                while (c == '{' && i < n && re.charAt(i) != '}')
+                    i++;
+                break;
+            default:
+                // + . ^ $
+                break;
+            }
+            if (cur.length() > best.length())
+                best = cur.toString();
+            cur.setLength(0);
+        }
+        if (cur.length() > best.length())
+            best = cur.toString();
+        return best.length() > 0 ? best : null;
+    }
+
+    private void run() {
+        final int window = ForkJoinPool.commonPool().getParallelism() + 1;
+        final ArrayDeque<Future<int[]>> inFlight = new ArrayDeque<Future<int[]>>();
+        int next = forward ? Math.max(from, 0) : Math.min(from, lineCount - 1);
+        int found = 0;
+        try {
+            while (!cancelled && found < maxResults) {
+                while (inFlight.size() < window && hasChunk(next)) {
+                    final int lo, hi;
+                    if (forward) {
+                        lo = next;
+                        hi = chunkEnd(lo);
+                        next = hi;
+                    } else {
+                        hi = next + 1;
+                        lo = chunkStart(hi);
+                        next = lo - 1;
+                    }
+                    inFlight.add(ForkJoinPool.commonPool().submit(
+                            new Callable<int[]>() {
+                                @Override
+                                public int[] call() {
+                                    return scan(lo, hi);
+                                }
+                            }));
+                }
+                if (inFlight.isEmpty())
+                    break;
+                int[] lines = inFlight.remove().get();
+                if (lines.length == 0)
+                    continue;
+                if (!forward)
+                    reverse(lines);
+                if (lines.length > maxResults - found)
+                    lines = Arrays.copyOf(lines, maxResults - found);
+                found += lines.length;
+                report(lines);
+            }
+        } catch (final InterruptedException ex) {
+            cancelled = true;
+        } catch (final ExecutionException ex) {
+            cancelled = true;
+            Report.exception("Exception while searching the source file",
+                    ex.getCause());
+        } finally {
+            for (final Future<int[]> f : inFlight)
+                f.cancel(false);
+            final boolean c = cancelled;
+            Utils.dispatchOnAWTThreadLater(new Runnable() {
+                @Override
+                public void run() {
+                    listener.searchDone(SourceSearch.this, c);
+                }
+            });
+        }
+    }
+
+    private void report(final int[] lines) {
+        Utils.dispatchOnAWTThreadLater(new Runnable() {
+            @Override
+            public void run() {
+                if (!cancelled)
+                    listener.linesFound(SourceSearch.this, lines);
+            }
+        });
+    }
+
+    private boolean hasChunk(int next) {
+        return forward ? next < lineCount : next >= 0;
+    }
+
+    /**
+     * returns the end of the chunk starting at line lo.
+     */
+    private int chunkEnd(int lo) {
+        final long start = lineStart(lo);
+        final int max = (int) Math.min(lineCount, (long) lo + CHUNK_LINES);
+        int hi = lo + 1;
+        while (hi < max && lineEnd(hi) - start <= CHUNK_BYTES)
+            hi++;
+        return hi;
+    }
+
+    /**
+     * returns the start of the chunk ending at line hi (exclusive).
+     */
+    private int chunkStart(int hi) {
+        final long end = lineEnd(hi - 1);
+        final int min = Math.max(0, hi - CHUNK_LINES);
+        int lo = hi - 1;
+        while (lo > min && end - lineStart(lo - 1) <= CHUNK_BYTES)
+            lo--;
+        return lo;
+    }
+
+    private long lineStart(int line) {
+        return offsets[line / IndexableLineFile.BLOCK_SIZE].offset(line
+                % IndexableLineFile.BLOCK_SIZE);
+    }
+
+    private long lineEnd(int line) {
+        return line == lineCount - 1 ? Math.max(linesEnd, lineStart(line))
+                : lineStart(line + 1);
+    }
+
+    /**
+     * returns the lines in [lo, hi) matching, in order.
+     */
+    private int[] scan(int lo, int hi) {
+        if (cancelled)
+            return new int[0];
+        final long start = lineStart(lo);
+        final byte[] buf = read(start, lineEnd(hi - 1));
+        int[] res = new int[16];
+        int cnt = 0;
+        if (literal != null) {
+            int pos = 0;
+            int line = lo;
+            while ((pos = indexOf(buf, pos, literal)) >= 0) {
+                while (lineEnd(line) - start <= pos)
+                    line++;
+                final int off = (int) (lineStart(line) - start);
+                final int end = (int) (lineEnd(line) - start);
+                if (exact || matches(buf, off, end)) {
+                    if (cnt == res.length)
+                        res = Arrays.copyOf(res, cnt * 2);
+                    res[cnt++] = line;
+                }
+                pos = end;
+                line++;
+                if (line >= hi)
+                    break;
+            }
+        } else {
+            for (int line = lo; line < hi; line++) {
+                if (matches(buf, (int) (lineStart(line) - start),
+                        (int) (lineEnd(line) - start))) {
+                    if (cnt == res.length)
+                        res = Arrays.copyOf(res, cnt * 2);
+                    res[cnt++] = line;
+                }
+            }
+        }
+        return Arrays.copyOf(res, cnt);
+    }
+
+    private boolean matches(byte[] buf, int off, int end) {
+        return matcher.get().reset(
+                new String(buf, off, end - off, IndexableLineFile.CHARSET))
+                .find();
+    }
+
+    /**
+     * returns the bytes of the file in [start, end).
+     */
+    private byte[] read(long start, long end) {
+        final byte[] data = new byte[(int) (end - start)];
+        int done = 0;
+        long p = start;
+        while (done < data.length) {
+            final ByteBuffer bb = regions[(int) (p
+                    / IndexableLineFile.REGION_SIZE)].duplicate();
+            final int bbOffset = (int) (p % IndexableLineFile.REGION_SIZE);
+            final int len = Math.min(data.length - done, bb.limit()
+                    - bbOffset);
+            bb.position(bbOffset);
+            bb.get(data, done, len);
+            done += len;
+            p += len;
+        }
+        return data;
+    }
+
+    /**
+     * returns the position of the first occurrence of lit in b at or after
+     * from, or -1.
+     */
+    private static int indexOf(byte[] b, int from, byte[] lit) {
+        final byte first = lit[0];
+        final int last = b.length - lit.length;
+        outer: for (int i = from; i <= last; i++) {
+            if (b[i] != first)
+                continue;
+            for (int j = 1; j < lit.length; j++) {
+                if (b[i + j] != lit[j])
+                    continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static void reverse(int[] a) {
+        for (int i = 0, j = a.length - 1; i < j; i++, j--) {
+            final int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+}
@@ -18,20 +18,35 @@ import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
 
 import javax.swing.SwingUtilities;
 
 import com.cisco.mscviewer.gui.EntityHeader;
+import com.cisco.mscviewer.util.ProgressReport;
 import com.cisco.mscviewer.util.Utils;
 
+/**
+ * The entities shown in a view, and their visible events.
+ * 
+ * Accessors don't lock: the entities are kept in a copy-on-write list and
+ * the event arrays are replaced rather than modified, so they can be called
+ * while holding the data model read lock, e.g. while rendering. Changes are
+ * done holding this monitor, which is never held while calling into the
+ * data model: event lists are computed and filtered first, and installed
+ * only if the entities didn't change meanwhile.
+ */
 public class ViewModel implements MSCDataModelListener {
 
     class EntityInfo {
         Entity en;
-        boolean selected;
-        Component c;
-        int birth, death;
+        volatile boolean selected;
+        volatile Component c;
+        volatile int birth, death;
+        /** model indices of the events of en in the view, in order */
+        volatile int[] events = new int[0];
 
         public EntityInfo(Entity en) {
             this.en = en;
@@ -41,50 +56,49 @@ public class ViewModel implements MSCDataModelListener {
 
     // private MainPanel mainPanel;
     private final ArrayList<EntityHeaderModelListener> listeners;
-    private final ArrayList<EntityInfo> ent;
-    private final HashMap<Entity, EntityInfo> entSet;
+    private final CopyOnWriteArrayList<EntityInfo> ent;
+    private final ConcurrentHashMap<Entity, EntityInfo> entSet;
     private final MSCDataModel dm;
-    private int[] events;
+    private volatile int[] events;
+    /** incremented whenever events is replaced */
+    private volatile int eventsVersion;
     private int rightMargin;
 
-    private MSCDataModelEventFilter filter;
+    private volatile MSCDataModelEventFilter filter;
 
     public ViewModel(MSCDataModel dm) {
-        this.entSet = new HashMap<Entity, EntityInfo>();
-        this.ent = new ArrayList<EntityInfo>();
+        this.events = new int[0];
+        this.entSet = new ConcurrentHashMap<Entity, EntityInfo>();
+        this.ent = new CopyOnWriteArrayList<EntityInfo>();
         this.listeners = new ArrayList<EntityHeaderModelListener>();
         this.dm = dm;
         dm.addListener(this);
     }
 
     public void moveEntity(Entity en, int toIdx) {
-        final int fromIdx = indexOf(en);
-        if (fromIdx < 0)
-            return;
-        final EntityInfo ei = ent.get(fromIdx);
-        ent.remove(fromIdx);
-        ent.add(toIdx, ei);
+        synchronized (this) {
+            final int fromIdx = indexOf(en);
+            if (fromIdx < 0)
+                return;
+            final EntityInfo ei = ent.get(fromIdx);
+            ent.remove(fromIdx);
+            ent.add(toIdx, ei);
+        }
         notifyEntityMoved(en, toIdx);
     }
 
     public Entity get(int i) {
-        // sync on dm rather than this monitor to avoid deadlocks
-        synchronized (dm) {
-            return ent.get(i).en;
-        }
+        return ent.get(i).en;
     }
 
     public int indexOf(Entity en) {
-        // sync on dm rather than this monitor to avoid deadlocks
-        synchronized (dm) {
-            final int sz = ent.size();
-            for (int i = 0; i < sz; i++) {
-                final EntityInfo ei = ent.get(i);
-                if (ei.en == en)
-                    return i;
-            }
-            return -1;
+        int i = 0;
+        for (final EntityInfo ei : ent) {
+            if (ei.en == en)
+                return i;
+            i++;
         }
+        return -1;
     }
 
     public Dimension getEntityPreferredSize(int idx) {
@@ -104,89 +118,113 @@ public class ViewModel implements MSCDataModelListener {
     }
 
     public boolean contains(Entity en) {
-        // sync on dm rather than this monitor to avoid deadlocks
-        synchronized (dm) {
-            return indexOf(en) != -1;
-        }
+        return entSet.containsKey(en);
     }
 
     public void add(Entity en) {
-        // sync on dm rather than this monitor to avoid deadlocks.
-        // sync is done by called add.
         add(ent.size(), en);
     }
 
     public void add(Entity[] en) {
-        // sync on dm rather than this monitor to avoid deadlocks.
-        // sync is done by called add.
         add(ent.size(), en);
     }
 
     public void add(int idx, Entity en) {
-        // sync on dm rather than this monitor to avoid deadlocks
-        if (!contains(en)) {
-            synchronized (dm) {
+        while (!contains(en)) {
+            // the visible events are computed before locking
+            final MSCDataModelEventFilter f = filter;
+            final int[] visible = visibleEvents(en, f);
+            final int pos;
+            synchronized (this) {
+                if (contains(en))
+                    return;
+                if (f != filter)
+                    continue;
+                // entities may have been removed since idx was computed
+                pos = Math.min(idx, ent.size());
                 final EntityInfo ei = new EntityInfo(en);
-                ent.add(idx, ei);
+                ent.add(pos, ei);
                 entSet.put(en, ei);
-                updateEvents();
+                addEvents(ei, visible);
             }
-            notifyEntityAdded(en, idx);
+            notifyEntityAdded(en, pos);
+            return;
         }
     }
 
     public void add(int idx, Entity en[]) {
-        for (final Entity en1 : en) {
-            synchronized (dm) {
-                if (!contains(en1)) {
-                    final EntityInfo ei = new EntityInfo(en1);
-                    ent.add(idx, ei);
-                    entSet.put(en1, ei);
+        while (true) {
+            // the visible events are computed before locking, and installed
+            // together with the entities
+            final MSCDataModelEventFilter f = filter;
+            final int[][] lists = new int[en.length][];
+            for (int i = 0; i < en.length; i++)
+                lists[i] = dm.getEventIndices(en[i]);
+            final int[][] visible = applyFilter(f, lists, null);
+            synchronized (this) {
+                if (f != filter)
+                    continue;
+                // entities may have been removed since idx was computed
+                idx = Math.min(idx, ent.size());
+                for (int i = 0; i < en.length; i++) {
+                    if (!contains(en[i])) {
+                        final EntityInfo ei = new EntityInfo(en[i]);
+                        ei.events = visible[i];
+                        ent.add(idx, ei);
+                        entSet.put(en[i], ei);
+                    }
                 }
+                final EntityInfo[] infos = ent.toArray(new EntityInfo[0]);
+                final int[][] all = new int[infos.length][];
+                for (int i = 0; i < infos.length; i++)
+                    all[i] = infos[i].events;
+                setVisibleEvents(infos, all);
             }
+            break;
         }
-        // dm.updateFilteredEvents();
-        updateEvents();
         for (int i = 0; i < en.length; i++) {
             notifyEntityAdded(en[i], idx + i);
         }
     }
 
     public void remove(Entity en) {
-        // sync on dm rather than this monitor to avoid deadlocks
-        // sync is done by called add.
         final int idx = indexOf(en);
         removeEntity(idx);
     }
 
     public void removeEntity(int idx) {
-        // sync on dm rather than this monitor to avoid deadlocks
         EntityInfo ei;
-        synchronized (dm) {
+        synchronized (this) {
             ei = ent.remove(idx);
+            entSet.remove(ei.en);
             // dm.updateFilteredEvents();
-            updateEvents();
+            removeEvents(ei);
         }
         notifyEntityRemoved(ei.en.getParentEntity(), ei.en, idx);
     }
 
     public void reset() {
-        for (int idx = ent.size() - 1; idx >= 0; idx--) {
-            removeEntity(idx);
+        EntityInfo[] removed;
+        synchronized (this) {
+            removed = ent.toArray(new EntityInfo[ent.size()]);
+            ent.clear();
+            entSet.clear();
+            events = new int[0];
+            eventsVersion++;
+        }
+        for (int idx = removed.length - 1; idx >= 0; idx--) {
+            notifyEntityRemoved(removed[idx].en.getParentEntity(),
+                    removed[idx].en, idx);
         }
-        events = new int[0];
         // interInfo = new int[0];
     }
 
     public int entityCount() {
-        // sync on dm rather than this monitor to avoid deadlocks
-        synchronized (dm) {
-            return ent.size();
-        }
+        return ent.size();
     }
 
     public void setSelected(Entity en, boolean v) {
-        synchronized (dm) {
+        synchronized (this) {
             Utils.trace(Utils.EVENTS, "called with (" + en.getName() + ", " + v);
             final EntityInfo ei = entityInfoForEntity(en);
             if (v == ei.selected) {
@@ -202,10 +240,7 @@ public class ViewModel implements MSCDataModelListener {
     }
 
     public int indexOf(Event ev) {
-        for (int i = 0; i < events.length; i++)
-            if (dm.getEventAt(events[i]) == ev)
-                return i;
-        return -1;
+        return getViewIndexFromModelIndex(ev.getIndex());
     }
 
     public void addListener(EntityHeaderModelListener l) {
@@ -282,11 +317,7 @@ public class ViewModel implements MSCDataModelListener {
     }
 
     private EntityInfo entityInfoForEntity(Entity en) {
-        for (final EntityInfo ei : ent) {
-            if (ei.en == en)
-                return ei;
-        }
-        return null;
+        return entSet.get(en);
     }
 
     public Entity[] getSelectedEntities() {
@@ -315,14 +346,11 @@ public class ViewModel implements MSCDataModelListener {
     }
 
     public void setEntityBounds(int idx, Rectangle r) {
-        EntityInfo ei;
-        synchronized (dm) {
-            ei = ent.get(idx);
-            if (ei.c.getBounds().equals(r))
-                return;
-            ei.c.setLocation(r.x, r.y);
-            ei.c.setBounds(r);
-        }
+        final EntityInfo ei = ent.get(idx);
+        if (ei.c.getBounds().equals(r))
+            return;
+        ei.c.setLocation(r.x, r.y);
+        ei.c.setBounds(r);
         notifyBoundsChanged(ei.en, idx);
     }
 
@@ -351,79 +379,74 @@ public class ViewModel implements MSCDataModelListener {
     // }
 
     public Rectangle getEntityBounds(int idx) {
-        synchronized (dm) {
-            return ent.get(idx).c.getBounds();
-        }
+        return ent.get(idx).c.getBounds();
     }
 
     public Dimension getEntitySize(int idx) {
-        synchronized (dm) {
-            return ent.get(idx).c.getSize();
-        }
+        return ent.get(idx).c.getSize();
     }
 
     public int getEntityWidth(int entityIdx) {
-        synchronized (dm) {
-            if (entityIdx < 0 || entityIdx >= ent.size())
-                return -1;
-            // return ent.get(entityIdx).r.width;
-            return ent.get(entityIdx).c.getWidth();
-        }
+        final EntityInfo ei = infoAt(entityIdx);
+        if (ei == null)
+            return -1;
+        // return ent.get(entityIdx).r.width;
+        return ei.c.getWidth();
     }
 
     public int getEntityWidth(Entity en) {
         if (en == null)
             return -1;
-        synchronized (dm) {
-            final EntityInfo ee = entSet.get(en);
-            if (ee != null && ee.c != null)
-                return ee.c.getWidth();
-            else
-                return -1;
-        }
+        final EntityInfo ee = entSet.get(en);
+        final Component c = ee != null ? ee.c : null;
+        if (c != null)
+            return c.getWidth();
+        else
+            return -1;
     }
 
     public int getEntityCenterX(int entityIdx) {
-        synchronized (dm) {
-            if (entityIdx >= ent.size())
-                return 0;
-            final Rectangle r = ent.get(entityIdx).c.getBounds();
-            // System.out.println("centerX["+entityIdx+"] = "+(r.x+r.width/2));
+        final EntityInfo ei = infoAt(entityIdx);
+        if (ei == null)
+            return 0;
+        final Rectangle r = ei.c.getBounds();
+        // System.out.println("centerX["+entityIdx+"] = "+(r.x+r.width/2));
 
-            return r.x + r.width / 2;
+        return r.x + r.width / 2;
+    }
+
+    /**
+     * returns the info of the entity at index idx, or null if there is no
+     * such entity, e.g. because it has just been removed.
+     */
+    private EntityInfo infoAt(int idx) {
+        try {
+            return idx >= 0 ? ent.get(idx) : null;
+        } catch (final IndexOutOfBoundsException ex) {
+            return null;
         }
     }
 
     public int getTotalWidth() {
-        synchronized (dm) {
-            int w = 0;
-            for (final EntityInfo ei : ent) {
-                w += ei.c.getWidth();
-            }
-            return w+rightMargin;
+        int w = 0;
+        for (final EntityInfo ei : ent) {
+            w += ei.c.getWidth();
         }
+        return w+rightMargin;
     }
 
     public void setEntityLocation(int idx, int x) {
-        synchronized (dm) {
-            final Rectangle r = getEntityBounds(idx);
-            r.x = x;
-            setEntityBounds(idx, r);
-        }
+        final Rectangle r = getEntityBounds(idx);
+        r.x = x;
+        setEntityBounds(idx, r);
     }
 
     public void setEntityLocation(Entity en, int x) {
-        synchronized (dm) {
-            final int cnt = ent.size();
-            for (int i = 0; i < cnt; i++) {
-                final EntityInfo ei = ent.get(i);
-                if (ei.en == en) {
-                    final Rectangle r = getEntityBounds(i);
-                    r.x = x;
-                    setEntityBounds(i, r);
-                    break;
-                }
-            }
+        final int i = indexOf(en);
+        if (i >= 0) {
+            final Rectangle r = getEntityBounds(i);
+            r.x = x;
+            setEntityBounds(i, r);
         }
     }
 
@@ -437,12 +460,21 @@ public class ViewModel implements MSCDataModelListener {
 
     @Override
     public void modelChanged(MSCDataModel mscDataModel) {
-        while (!ent.isEmpty()) {
-            final Entity en = ent.get(0).en;
-            if (mscDataModel.getEntity(en.getId()) == null) {
-                remove(en);
+        for (final EntityInfo ei : ent) {
+            if (mscDataModel.getEntity(ei.en.getId()) != ei.en) {
+                remove(ei.en);
             }
         }
+        // events may have been added or reordered, e.g. by a load in
+        // progress
+        if (!ent.isEmpty())
+            updateEvents();
+    }
+
+    @Override
+    public void eventsAppended(MSCDataModel mscDataModel, int fromIdx,
+            int toIdx) {
+        appendEvents(fromIdx, toIdx);
     }
 
     @Override
@@ -457,50 +489,266 @@ public class ViewModel implements MSCDataModelListener {
      * called when entites are added/removed, or filter is changed/removed
      */
     private void updateEvents() {
-        synchronized (dm) {
-            for (final EntityInfo ent1 : ent) {
-                ent1.birth = -1;
-            }
-            int sz = dm.getEventCount();
-            final ArrayList<Integer> al = new ArrayList<Integer>();
-            int viewIdx = 0;
-            if (filter == null) {
-                for (int i = 0; i < sz; i++) {
-                    final Entity en = dm.getEventAt(i).getEntity();
-                    final EntityInfo ei = entSet.get(en);
-                    if (ei != null) {
-                        al.add(i);
-                        if (ei.birth < 0)
-                            ei.birth = viewIdx;
-                        ei.death = viewIdx;
-                        viewIdx++;
-                    }
+        updateEvents(filter, null);
+    }
+
+    /**
+     * recomputes the visible events of all the entities with filter f, and
+     * sets f as the filter. The filter is evaluated in parallel without
+     * holding any lock, reporting progress to pr, and again if the entities
+     * change meanwhile. Returns false, leaving the view unchanged, if the
+     * operation is cancelled through pr.
+     */
+    private boolean updateEvents(MSCDataModelEventFilter f, ProgressReport pr) {
+        while (true) {
+            final EntityInfo[] infos = ent.toArray(new EntityInfo[0]);
+            final int[][] lists = new int[infos.length][];
+            for (int i = 0; i < infos.length; i++)
+                lists[i] = dm.getEventIndices(infos[i].en);
+            final int[][] visible = applyFilter(f, lists, pr);
+            if (visible == null)
+                return false;
+            synchronized (this) {
+                // checked under the lock, so that a cancelled filter can't
+                // replace one set after the cancellation
+                if (pr != null && pr.isCancelled())
+                    return false;
+                if (Arrays.asList(infos).equals(ent)) {
+                    filter = f;
+                    setVisibleEvents(infos, visible);
+                    return true;
                 }
-            } else {
-                for (int i = 0; i < sz; i++) {
-                    final Event ev = dm.getEventAt(i);
-                    final Entity en = ev.getEntity();
-                    final EntityInfo ei = entSet.get(en);
-                    if (ei != null && filter.filter(ev)) {
-                        al.add(i);
-                        if (ei.birth < 0)
-                            ei.birth = viewIdx;
-                        ei.death = viewIdx;
-                        viewIdx++;
-                    }
+                // entities changed while filtering
+            }
+        }
+    }
+
+    /**
+     * adds to the view the events with model indices in [fromIdx, toIdx),
+     * appended to the model while loading. Events of each entity are
+     * scanned and filtered without holding any lock, and added after the
+     * last visible one. If the view changes meanwhile the events are
+     * recomputed instead.
+     */
+    private void appendEvents(int fromIdx, int toIdx) {
+        final MSCDataModelEventFilter f = filter;
+        final EntityInfo[] infos = ent.toArray(new EntityInfo[0]);
+        if (infos.length == 0)
+            return;
+        final int[][] old = new int[infos.length][];
+        for (int i = 0; i < infos.length; i++)
+            old[i] = infos[i].events;
+        final int[][] added = applyFilter(f, eventsInRange(infos, old,
+                fromIdx, toIdx), null);
+        synchronized (this) {
+            boolean unchanged = f == filter
+                    && Arrays.asList(infos).equals(ent);
+            for (int i = 0; unchanged && i < infos.length; i++)
+                unchanged = infos[i].events == old[i];
+            if (unchanged) {
+                final int[][] lists = new int[infos.length][];
+                for (int i = 0; i < infos.length; i++) {
+                    lists[i] = Arrays.copyOf(old[i], old[i].length
+                            + added[i].length);
+                    System.arraycopy(added[i], 0, lists[i], old[i].length,
+                            added[i].length);
                 }
+                setVisibleEvents(infos, lists);
+                return;
+            }
+        }
+        updateEvents();
+    }
+
+    /**
+     * returns, for each entity, the indices of its events in [fromIdx,
+     * toIdx) following the last one in old, in a single pass on the range.
+     */
+    private int[][] eventsInRange(EntityInfo[] infos, int[][] old,
+            int fromIdx, int toIdx) {
+        final EventStore store = dm.getEventStore();
+        final Lock lock = dm.getReadLock();
+        lock.lock();
+        try {
+            // the model may have been reset since the events were appended
+            toIdx = Math.min(toIdx, store.size());
+            final int[] pos = new int[store.entityIdCount()];
+            Arrays.fill(pos, -1);
+            final int[] first = new int[infos.length];
+            for (int i = 0; i < infos.length; i++) {
+                final int id = store.entityIdOf(infos[i].en);
+                if (id >= 0)
+                    pos[id] = i;
+                first[i] = old[i].length > 0 ? old[i][old[i].length - 1] + 1
+                        : 0;
+            }
+            final int[] counts = new int[infos.length];
+            for (int idx = fromIdx; idx < toIdx; idx++) {
+                final int p = pos[store.entityId(store.row(idx))];
+                if (p >= 0 && idx >= first[p])
+                    counts[p]++;
             }
-            sz = al.size();
-            events = new int[sz];
-            for (int i = 0; i < sz; i++) {
-                events[i] = al.get(i);
+            final int[][] res = new int[infos.length][];
+            for (int i = 0; i < infos.length; i++) {
+                res[i] = new int[counts[i]];
+                counts[i] = 0;
+            }
+            for (int idx = fromIdx; idx < toIdx; idx++) {
+                final int p = pos[store.entityId(store.row(idx))];
+                if (p >= 0 && idx >= first[p])
+                    res[p][counts[p]++] = idx;
+            }
+            return res;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * sets the visible events of each entity in the view, and rebuilds the
+     * view from them.
+     */
+    private void setVisibleEvents(EntityInfo[] infos, int[][] lists) {
+        int total = 0;
+        for (int i = 0; i < lists.length; i++) {
+            infos[i].events = lists[i];
+            total += lists[i].length;
+        }
+        events = merge(lists, total);
+        eventsVersion++;
+        updateBirthDeath();
+    }
+
+    /**
+     * adds the visible events of a newly added entity to the view.
+     */
+    private void addEvents(EntityInfo ei, int[] visible) {
+        ei.events = visible;
+        final int[] events = this.events;
+        final int[] res = new int[events.length + visible.length];
+        int i = 0, j = 0, cnt = 0;
+        while (i < events.length && j < visible.length)
+            res[cnt++] = events[i] < visible[j] ? events[i++] : visible[j++];
+        while (i < events.length)
+            res[cnt++] = events[i++];
+        while (j < visible.length)
+            res[cnt++] = visible[j++];
+        this.events = res;
+        eventsVersion++;
+        updateBirthDeath();
+    }
+
+    /**
+     * removes the events of a removed entity from the view.
+     */
+    private void removeEvents(EntityInfo ei) {
+        final int[] events = this.events;
+        final int[] res = new int[events.length];
+        int j = 0, cnt = 0;
+        for (final int idx : events) {
+            while (j < ei.events.length && ei.events[j] < idx)
+                j++;
+            if (j == ei.events.length || ei.events[j] != idx)
+                res[cnt++] = idx;
+        }
+        this.events = Arrays.copyOf(res, cnt);
+        eventsVersion++;
+        updateBirthDeath();
+    }
+
+    /**
+     * returns the indices of the events of en that pass filter f.
+     */
+    private int[] visibleEvents(Entity en, MSCDataModelEventFilter f) {
+        return applyFilter(f, new int[][] { dm.getEventIndices(en) }, null)[0];
+    }
+
+    /**
+     * returns the lists of event indices filtered by f, evaluated in
+     * parallel, or null if cancelled through pr.
+     */
+    private int[][] applyFilter(MSCDataModelEventFilter f, int[][] lists,
+            ProgressReport pr) {
+        if (f == null)
+            return lists;
+        return ParallelEventFilter.apply(dm, f, lists, pr);
+    }
+
+    /**
+     * merges sorted lists of indices, with total elements overall. Lists
+     * are kept in a binary heap ordered by their next element.
+     */
+    private static int[] merge(int[][] lists, int total) {
+        final int[] res = new int[total];
+        final int[] pos = new int[lists.length];
+        final int[] heap = new int[lists.length];
+        int heapSize = 0;
+        for (int i = 0; i < lists.length; i++) {
+            if (lists[i].length > 0)
+                heap[heapSize++] = i;
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--)
+            siftDown(heap, heapSize, i, lists, pos);
+        int cnt = 0;
+        while (heapSize > 0) {
+            final int l = heap[0];
+            res[cnt++] = lists[l][pos[l]++];
+            if (pos[l] == lists[l].length)
+                heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, 0, lists, pos);
+        }
+        return res;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int i,
+            int[][] lists, int[] pos) {
+        final int l = heap[i];
+        while (2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize
+                    && head(heap[child + 1], lists, pos) < head(heap[child],
+                            lists, pos))
+                child++;
+            if (head(heap[child], lists, pos) >= head(l, lists, pos))
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = l;
+    }
+
+    private static int head(int l, int[][] lists, int[] pos) {
+        return lists[l][pos[l]];
+    }
+
+    /**
+     * sets birth and death of each entity to the view index of its first
+     * and last event.
+     */
+    private void updateBirthDeath() {
+        final int[] events = this.events;
+        for (final EntityInfo ei : ent) {
+            if (ei.events.length == 0) {
+                ei.birth = ei.death = -1;
+            } else {
+                ei.birth = Arrays.binarySearch(events, ei.events[0]);
+                ei.death = Arrays.binarySearch(events,
+                        ei.events[ei.events.length - 1]);
             }
         }
     }
 
     public void setFilter(MSCDataModelEventFilter filter) {
-        this.filter = filter;
-        updateEvents();
+        updateEvents(filter, null);
+    }
+
+    /**
+     * sets the filter, evaluating it in parallel without holding any lock,
+     * and reporting progress to pr. If the operation is cancelled through
+     * pr the view is left unchanged and false is returned.
+     */
+    public boolean setFilter(MSCDataModelEventFilter filter, ProgressReport pr) {
+        return updateEvents(filter, pr);
     }
 
     public MSCDataModelEventFilter getFilter() {
@@ -511,11 +759,20 @@ public class ViewModel implements MSCDataModelListener {
         return events.length;
     }
 
+    /**
+     * returns a number that changes whenever the events in the view change,
+     * e.g. because of a filter or of an entity being opened or closed.
+     */
+    public int getEventsVersion() {
+        return eventsVersion;
+    }
+
     public Event getEventAt(int idx) {
         return dm.getEventAt(events[idx]);
     }
 
     public int getModelIndexFromViewIndex(int fromIndex) {
+        final int[] events = this.events;
         if (fromIndex == -1 || fromIndex >= events.length)
             return -1;
         return events[fromIndex];
@@ -539,25 +796,17 @@ public class ViewModel implements MSCDataModelListener {
     }
 
     public int getFirstEventIndexForEntity(Entity en) {
-        for (int i = 0; i < events.length; i++)
-            if (dm.getEventAt(events[i]).getEntity() == en)
-                return i;
-        return -1;
+        final EntityInfo ei = entSet.get(en);
+        return ei != null ? ei.birth : -1;
     }
 
     public int getLastEventIndexForEntity(Entity en) {
-        for (int i = events.length - 1; i >= 0; i--)
-            if (dm.getEventAt(events[i]).getEntity() == en)
-                return i;
-        return -1;
+        final EntityInfo ei = entSet.get(en);
+        return ei != null ? ei.death : -1;
     }
 
     public int getIndexForEvent(Event ev) {
-        for (int i = 0; i < events.length; i++) {
-            if (dm.getEventAt(events[i]) == ev)
-                return i;
-        }
-        return -1;
+        return getViewIndexFromModelIndex(ev.getIndex());
     }
     
     public void setRighMarginWidth(int m) {
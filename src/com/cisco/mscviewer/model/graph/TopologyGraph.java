@@ -15,71 +15,61 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.TreeSet;
 
-import com.cisco.mscviewer.gui.Marker;
-import com.cisco.mscviewer.model.Entity;
 import com.cisco.mscviewer.model.Event;
 import com.cisco.mscviewer.model.Interaction;
 import com.cisco.mscviewer.model.MSCDataModel;
 import com.cisco.mscviewer.util.ProgressReport;
-import com.cisco.mscviewer.util.Utils;
 
+/**
+ * The graph of the events of a model, where each event is a node with edges
+ * to the next event on the same entity and to the destination of its
+ * outgoing interactions.
+ *
+ * Edges are kept in primitive arrays: the entity edge of each node in
+ * entityNext, the interaction edges in compressed sparse row form. For each
+ * node the number of incoming edges from nodes not yet sorted is counted in
+ * inDegree, so the sort never needs to remove edges.
+ */
 public class TopologyGraph {
-
-    class P {
-        int node;
-        int arc;
-
-        public P(int n, int a) {
-            node = n;
-            arc = a;
-        }
-    }
-
-    class I {
-
-        int v;
-        boolean entity;
-
-        public I(int v, boolean entity) {
-            this.v = v;
-            this.entity = entity;
-        }
-
-        @Override
-        public String toString() {
-            return "(" + v + ", " + (entity ? "E)" : "I)");
-        }
-    }
-
-    I[][] fromNode;
-    I[][] toNode;
-
     private final MSCDataModel dm;
     private ProgressReport pr = null;
 
+    private int evCount;
+    private long[] timestamps;
+    /** next node on the same entity, or -1 */
+    private int[] entityNext;
+    /**
+     * interaction edges: the targets of the edges leaving node i are
+     * interTo[interOffsets[i]] ... interTo[interOffsets[i + 1] - 1]
+     */
+    private int[] interOffsets;
+    private int[] interTo;
+    /** number of edges entering each node from nodes not yet sorted */
+    private int[] inDegree;
+
+    /**
+     * nodes ready to be sorted, in a binary heap ordered by timestamp and
+     * then by index.
+     */
+    private int[] heap;
+    private int heapSize;
+
     /**
      * creates a graph where:
      * <ul>
-     * <li>Each node represents a sequence of events with same timestamp and
-     * entity
-     * <li>there is an edge between each pair of consecutive (by timestamp)
-     * nodes for the same entity
-     * <li>there is an edge between each pair of consecutive (by timestamp)
-     * nodes not belonging to the same entity and with different timestamp
+     * <li>Each node represents an event
+     * <li>there is an edge between each pair of consecutive (by index)
+     * events for the same entity
+     * <li>there is an edge from the source to the sink of each interaction
      * </ul>
-     * note: this code assumes that all events belonging to the same entity and
-     * with the same timestamp are going to appear contiguously in the global
-     * array of events in the datamodel.
+     * Repeated edges are harmless, as they are counted once for each
+     * occurrence in the in-degree of the target.
      *
      * @param dm
-     * @param obs
      */
     public TopologyGraph(MSCDataModel dm) {
         this.dm = dm;
@@ -88,42 +78,39 @@ public class TopologyGraph {
             return;
         }
         final int interCount = dm.getInteractionCount();
-        fromNode = new I[evCount][];
-        toNode = new I[evCount][];
-        final HashMap<Entity, Integer> enToEvIdx = new HashMap<Entity, Integer>();
         ProgressReport subPr = null;
         try {
             pr = new ProgressReport("Topological Sorting", "", 0, 100);
             subPr = pr.subReport("Creating graph", "edges", 20, 0, evCount,
                     true);
+            allocate(evCount);
+            timestamps = new long[evCount];
+            final int[] lastOfEntity = newLastOfEntity(dm
+                    .getEventEntityIdCount());
             for (int i = 0; i < evCount; i++) {
                 subPr.progress(i);
-                final Event ev = dm.getEventAt(i);
-                final Entity en = ev.getEntity();
-                final Integer prevIdx = enToEvIdx.get(en);
-                if (prevIdx != null) {
-                    // create an edge between last event on this entity and this
-                    // one
-                    addEdge(prevIdx, i, true);
-                }
-                enToEvIdx.put(en, i);
+                timestamps[i] = dm.getEventTimestamp(i);
+                addEntityEdge(i, dm.getEventEntityId(i), lastOfEntity);
             }
-            
             subPr.progressDone();
             int i = 0;
             subPr = pr.subReport("Creating graph", "Interactions", 20, 0,
                     interCount, true);
+            final int[] from = new int[interCount];
+            final int[] to = new int[interCount];
+            int cnt = 0;
             for (final Iterator<Interaction> it = dm.getInteractionIterator(); it
                     .hasNext();) {
                 subPr.progress(i);
                 i++;
                 final Interaction in = it.next();
-                final int from = in.getFromIndex();
-                final int to = in.getToIndex();
-//                System.out.println("INTER "+from+"->"+to);
-                if (from != -1 && to != -1)
-                    addEdge(from, to, false);
+                if (in.getFromIndex() != -1 && in.getToIndex() != -1) {
+                    from[cnt] = in.getFromIndex();
+                    to[cnt] = in.getToIndex();
+                    cnt++;
+                }
             }
+            addInteractionEdges(from, to, cnt);
             subPr.progressDone();
         }catch(Exception ex) {
             // in case of exception close progress
@@ -132,178 +119,173 @@ public class TopologyGraph {
             if (pr != null)
                 pr.progressDone();
             throw ex;
-        }            
+        }
     }
 
-    private ArrayList<P> findLoop() {
-        final int evCount = dm.getEventCount();
-        final ArrayList<P> loop = new ArrayList<P>();
+    /**
+     * creates a graph from the event timestamps, the ids of their entities
+     * (between 0 and entityIdCount - 1) and the source and sink of the
+     * interactions, without reporting progress.
+     */
+    TopologyGraph(long[] timestamps, int[] entityIds, int entityIdCount,
+            int[] from, int[] to) {
+        dm = null;
+        allocate(timestamps.length);
+        this.timestamps = timestamps;
+        final int[] lastOfEntity = newLastOfEntity(entityIdCount);
+        for (int i = 0; i < evCount; i++)
+            addEntityEdge(i, entityIds[i], lastOfEntity);
+        addInteractionEdges(from, to, from.length);
+    }
+
+    private void allocate(int evCount) {
+        this.evCount = evCount;
+        entityNext = new int[evCount];
+        inDegree = new int[evCount];
+    }
+
+    private static int[] newLastOfEntity(int entityIdCount) {
+        final int[] lastOfEntity = new int[entityIdCount];
+        Arrays.fill(lastOfEntity, -1);
+        return lastOfEntity;
+    }
+
+    private void addEntityEdge(int evIdx, int entityId, int[] lastOfEntity) {
+        final int prevIdx = lastOfEntity[entityId];
+        if (prevIdx != -1) {
+            // create an edge between last event on this entity and this one
+            entityNext[prevIdx] = evIdx;
+            inDegree[evIdx]++;
+        }
+        entityNext[evIdx] = -1;
+        lastOfEntity[entityId] = evIdx;
+    }
+
+    private void addInteractionEdges(int[] from, int[] to, int cnt) {
+        interOffsets = new int[evCount + 1];
+        for (int k = 0; k < cnt; k++) {
+            if (from[k] == to[k]) {
+                throw new Error("Self looping edge at index " + from[k]);
+            }
+            interOffsets[from[k] + 1]++;
+            inDegree[to[k]]++;
+        }
+        for (int i = 0; i < evCount; i++)
+            interOffsets[i + 1] += interOffsets[i];
+        interTo = new int[cnt];
+        // filling advances interOffsets[i] to the start of node i + 1...
+        for (int k = 0; k < cnt; k++)
+            interTo[interOffsets[from[k]]++] = to[k];
+        // ...so shift the offsets back
+        for (int i = evCount; i > 0; i--)
+            interOffsets[i] = interOffsets[i - 1];
+        interOffsets[0] = 0;
+    }
+
+    /**
+     * returns a path following edges backwards from an unsorted node, up to
+     * the first node appearing twice on it, so that the nodes from the
+     * first occurrence of the last one form a loop.
+     */
+    private int[] findLoop() {
         int idx;
         for (idx = 0; idx < evCount; idx++) {
-            if (fromNode[idx] != null && hasIncomingEdges(idx))
+            if (inDegree[idx] > 0)
                 break;
         }
         if (idx == evCount)
             throw new Error("shouldn't happen");
-        loop.add(new P(idx, -1));
-        int lastIdx = 0;
-        while (true) {
-            P latest = null;
-            while (true) {
-                latest = loop.get(lastIdx);
-                latest.arc++;
-                if (latest.arc < fromNode[latest.node].length) {
-                    if (fromNode[latest.node][latest.arc].v != -1) {
-                        // found next arc to traverse
+        // incoming edges of each node, by reversing the outgoing ones
+        final int[] entityPrev = new int[evCount];
+        Arrays.fill(entityPrev, -1);
+        final int[] predOffsets = new int[evCount + 1];
+        for (int i = 0; i < evCount; i++) {
+            if (entityNext[i] != -1)
+                entityPrev[entityNext[i]] = i;
+            for (int k = interOffsets[i]; k < interOffsets[i + 1]; k++)
+                predOffsets[interTo[k] + 1]++;
+        }
+        for (int i = 0; i < evCount; i++)
+            predOffsets[i + 1] += predOffsets[i];
+        final int[] pred = new int[interTo.length];
+        final int[] next = Arrays.copyOf(predOffsets, evCount);
+        for (int i = 0; i < evCount; i++) {
+            for (int k = interOffsets[i]; k < interOffsets[i + 1]; k++)
+                pred[next[interTo[k]]++] = i;
+        }
+        // a node is unsorted if it has incoming edges from unsorted nodes,
+        // so the path can always be extended until it closes on itself
+        final boolean[] onPath = new boolean[evCount];
+        final int[] loop = new int[evCount + 1];
+        int len = 0;
+        while (!onPath[idx]) {
+            onPath[idx] = true;
+            loop[len++] = idx;
+            int p = entityPrev[idx];
+            if (p == -1 || inDegree[p] == 0) {
+                for (int k = predOffsets[idx]; k < predOffsets[idx + 1]; k++) {
+                    p = pred[k];
+                    if (inDegree[p] > 0)
                         break;
-                    }
-                } else {
-                    // backtrack one node
-                    lastIdx--;
-                    if (lastIdx < 0)
-                        return null;
                 }
             }
-            lastIdx++;
-            final P p = new P(fromNode[latest.node][latest.arc].v, -1);
-            if (lastIdx == loop.size())
-                loop.add(p);
-            else
-                loop.set(lastIdx, p);
-            for (int i = 0; i < lastIdx; i++)
-                if (loop.get(i).node == p.node)
-                    return loop;
+            idx = p;
         }
+        loop[len++] = idx;
+        return Arrays.copyOf(loop, len);
     }
 
     public int[] topoSort() throws TopologyError {
         ProgressReport subPr = null;
         try {
-            final int evCount = dm.getEventCount();
-            final int[] L = new int[evCount];
-            final TreeSet<Integer> S = new TreeSet<Integer>(new Comparator<Integer>() {
-                @Override
-                public int compare(Integer o1, Integer o2) {
-                    int n1Idx = ((Integer)o1).intValue();
-                    int n2Idx = ((Integer)o2).intValue();
-                    long ts1 = dm.getEventAt(n1Idx).getTimestamp();
-                    long ts2 = dm.getEventAt(n2Idx).getTimestamp();
-                    if (ts1 == ts2)
-                        return Integer.compare(n1Idx, n2Idx);
-                    return Long.compare(ts1, ts2);                
-                }
-            });
-            // populate S with nodes with no incoming edges
             if (evCount == 0)
                 return null;
-            subPr = pr.subReport("Sorting Topology...", "phase one",
-                    30, 0, evCount, true);
+            final int[] L = new int[evCount];
+            heap = new int[evCount];
+            heapSize = 0;
+            // populate the heap with nodes with no incoming edges
+            if (pr != null)
+                subPr = pr.subReport("Sorting Topology...", "phase one",
+                        30, 0, evCount, true);
             for (int i = 0; i < evCount; i++) {
-                subPr.progress(i); // first 20%
-                Event ev = dm.getEventAt(i);
-                if (!hasIncomingEdges(i)) {
-                    S.add(i);
+                if (subPr != null)
+                    subPr.progress(i);
+                if (inDegree[i] == 0) {
+                    heap[heapSize++] = i;
                 }
-    
             }
-            subPr.progressDone();
-            subPr = pr.subReport("Sorting Topology...", "phase two", 30, 0,
-                    evCount, true);
+            for (int i = heapSize / 2 - 1; i >= 0; i--)
+                siftDown(i);
+            if (subPr != null) {
+                subPr.progressDone();
+                subPr = pr.subReport("Sorting Topology...", "phase two", 30,
+                        0, evCount, true);
+            }
             int idx = 0;
-            while (!S.isEmpty()) {
-                final Integer n = S.pollFirst();
+            while (heapSize > 0) {
+                final int n = heap[0];
+                heap[0] = heap[--heapSize];
+                siftDown(0);
                 L[idx++] = n;
-                subPr.progress(idx);
-                if (toNode[n] != null) {
-                    for (final I m : toNode[n]) {
-                        if (m.v < 0) {
-                            continue;
-                        }
-                        final int v = m.v;
-                        removeEdge(n, v);
-                        if (!hasIncomingEdges(v)) {
-                            // we want to insert in order, so that when traversing
-                            // we loosely
-                            // consider original order. Traverse list backwards from
-                            // end because
-                            // elements are more likely to be towards the end.
-                            S.add(v);
-                        }
-                    }
-                }
+                if (subPr != null)
+                    subPr.progress(idx);
+                if (entityNext[n] != -1)
+                    decrementInDegree(entityNext[n]);
+                for (int k = interOffsets[n]; k < interOffsets[n + 1]; k++)
+                    decrementInDegree(interTo[k]);
             }
-            subPr.progressDone();
+            heap = null;
+            if (subPr != null)
+                subPr.progressDone();
             if (idx != evCount) {
-                String filePath = Utils.getWorkDirPath()+"/causality_looo.msc";
-                final ArrayList<P> al = findLoop();
-                if (al != null) {
-                    PrintWriter pw;
-                    try {
-                        pw = new PrintWriter(new FileWriter(new File(dm.getCausalityLoopFileName())));
-                        HashSet<Event> set = new HashSet<Event>();
-                        for (int eidx = al.size()-1; eidx>=0; eidx--) {
-                            P p = al.get(eidx);
-                            Event ev = dm.getEventAt(p.node);
-                            if (set.contains(ev))
-                                continue;
-                            set.add(ev);
-                            pw.print("@event {\"entity\":\""+ev.getEntity().getPath()+"\"");
-                            pw.print(", \"time\":\""+ev.getTimestamp()+"\"");
-                            pw.print(", \"label\":\"["+ev.getLineIndex()+"] "+ev.getLabel()+"\"");
-    
-                            Interaction ins[] = ev.getOutgoingInteractions(); 
-                            if (ins.length == 1) {
-                                pw.print(", \"src\":\""+ev.getEntity().getPath()+"/"+ins[0].getToIndex()+"\"");
-                            } else if (ins.length > 1) {
-                                pw.print(", \"src\":\"{");
-                                for(int i=0; i<ins.length; i++) {
-                                    if (i>0)
-                                        pw.print(", ");
-                                    pw.print(""+ev.getEntity().getPath()+"/"+ins[0].getToIndex()+"\"");
-                                }
-                                pw.print("}\"");                        
-                            }
-    
-                            ins = ev.getIncomingInteractions();                  
-                            if (ins.length == 1) {
-                                Event srcEv = ins[0].getFromEvent();
-                                if (srcEv != null) {                                
-                                    pw.print(", \"dst\":\""+srcEv.getEntity().getPath()+"/"+ins[0].getToIndex()+"\"");
-                                }
-                            } else if (ins.length > 1) {
-                                pw.print(", \"dst\":\"{");
-                                for(int i=0; i<ins.length; i++) {
-                                    if (i>0)
-                                        pw.print(", ");
-                                    pw.print(""+ev.getEntity().getPath()+"/"+ins[0].getToIndex()+"\"");
-                                }
-                                pw.print("}\"");                        
-                            }
-                            pw.println("}");
-                        }
-                        pw.close();
-                    } catch (IOException e) {
-                        // TODO Auto-generated catch block
-                        e.printStackTrace();
-                    } 
-                }
-                throw new TopologyError("Failed to sort topologically:\n A reduced file containing only the loop events has been saved to "+filePath);
-            } else {
+                final int[] loop = findLoop();
+                if (dm == null)
+                    throw new TopologyError("Failed to sort topologically");
+                saveLoop(loop);
+                throw new TopologyError("Failed to sort topologically:\n A reduced file containing only the loop events has been saved to "+dm.getCausalityLoopFileName());
             }
-    
-            // outer:
-            // for (int i = 0; i < evCount; i++) {
-            // for (int k=0; k<idx; k++) {
-            // if (L[k] == i) {
-            // System.out.println("SORTED: " + nodeToString(i));
-            // break outer;
-            // }
-            // }
-            // System.out.println("UNSORTED: " + nodeToString(i));
-            // }
-            // throw new TopologyError("Topology Error.");
-    
-            pr.progressDone();
+            if (pr != null)
+                pr.progressDone();
             pr = null;
             return L;
         } finally {
@@ -315,132 +297,114 @@ public class TopologyGraph {
         }
     }
 
-    private void addEdge(int fromIdx, int toIdx, boolean cause) {
-        if (fromIdx == toIdx) {
-            throw new Error("Self looping edge at index " + fromIdx);
-        }
-        if (hasEdge(fromIdx, toIdx)) {
-            return;
-        }
-        I[] fe = fromNode[toIdx];
-        if (fe == null) {
-            fe = new I[1];
-            fe[0] = new I(fromIdx, cause);
-        } else {
-            final int oldLen = fe.length;
-            final I[] tmp = new I[oldLen + 1];
-            System.arraycopy(fe, 0, tmp, 0, oldLen);
-            fe = tmp;
-            fe[oldLen] = new I(fromIdx, cause);
-        }
-        fromNode[toIdx] = fe;
-        I[] te = toNode[fromIdx];
-        if (te == null) {
-            te = new I[1];
-            te[0] = new I(toIdx, cause);
-        } else {
-            final int oldLen = te.length;
-            final I[] tmp = new I[oldLen + 1];
-            System.arraycopy(te, 0, tmp, 0, oldLen);
-            te = tmp;
-            te[oldLen] = new I(toIdx, cause);
+    private void decrementInDegree(int v) {
+        if (--inDegree[v] == 0) {
+            int i = heapSize++;
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (!before(v, heap[parent]))
+                    break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = v;
         }
-        toNode[fromIdx] = te;
     }
 
-    private boolean hasEdge(int fromIdx, int toIdx) {
-        int i;
-        final I[] fn = fromNode[toIdx];
-        if (fn == null) {
-            return false;
-        }
-        for (i = 0; i < fn.length; i++) {
-            if (fn[i].v == fromIdx) {
+    private void siftDown(int i) {
+        final int v = heap[i];
+        final int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child]))
+                child++;
+            if (!before(heap[child], v))
                 break;
-            }
-        }
-        if (i == fn.length) {
-            return false;
+            heap[i] = heap[child];
+            i = child;
         }
-        final I[] tn = toNode[fromIdx];
-        if (tn == null) {
-            return false;
-        }
-        for (i = 0; i < tn.length; i++) {
-            if (tn[i].v == toIdx) {
-                return true;
-            }
-        }
-        return false;
+        heap[i] = v;
     }
 
-    private void removeEdge(int fromIdx, int toIdx) {
-        if (fromIdx < 0 || toIdx < 0) {
-            throw new Error("can't remove (" + fromIdx + ", " + toIdx + ")");
-        }
-        int i;
-        final I[] fn = fromNode[toIdx];
-        if (fn == null) {
-            throw new Error("no edge to remove");
-        }
-        for (i = 0; i < fn.length; i++) {
-            if (fn[i].v == fromIdx) {
-                fn[i].v = -1; // -fromIdx;
-                break;
-            }
-        }
-        if (i == fn.length) {
-            throw new Error("node " + toIdx + " has no arc from " + fromIdx);
-        }
-        final I[] tn = toNode[fromIdx];
-        if (tn == null) {
-            throw new Error("no edge to remove");
-        }
-        for (i = 0; i < tn.length; i++) {
-            if (tn[i].v == toIdx) {
-                tn[i].v = -1; // -toIdx;
-                return;
-            }
-        }
-        if (i == tn.length) {
-            throw new Error("node " + fromIdx + " has no arc to " + toIdx);
-        }
+    /**
+     * returns true if node n1 is to be sorted before node n2, i.e. if it
+     * has a smaller timestamp, or the same timestamp and a smaller index.
+     */
+    private boolean before(int n1, int n2) {
+        final long ts1 = timestamps[n1];
+        final long ts2 = timestamps[n2];
+        return ts1 < ts2 || (ts1 == ts2 && n1 < n2);
     }
 
-    public boolean hasIncomingEdges(int evIdx) {
-        if (fromNode[evIdx] == null) {
-            return false;
-        }
-        for (final I item : fromNode[evIdx]) {
-            if (item.v >= 0) {
-                return true;
+    /**
+     * saves the events in the loop to the causality loop file of the model.
+     */
+    private void saveLoop(int[] loop) {
+        PrintWriter pw;
+        try {
+            pw = new PrintWriter(new FileWriter(new File(dm.getCausalityLoopFileName())));
+            HashSet<Event> set = new HashSet<Event>();
+            for (int eidx = loop.length-1; eidx>=0; eidx--) {
+                Event ev = dm.getEventAt(loop[eidx]);
+                if (set.contains(ev))
+                    continue;
+                set.add(ev);
+                pw.print("@event {\"entity\":\""+ev.getEntity().getPath()+"\"");
+                pw.print(", \"time\":\""+ev.getTimestamp()+"\"");
+                pw.print(", \"label\":\"["+ev.getLineIndex()+"] "+ev.getLabel()+"\"");
+
+                Interaction ins[] = ev.getOutgoingInteractions();
+                if (ins.length == 1) {
+                    pw.print(", \"src\":\""+ev.getEntity().getPath()+"/"+ins[0].getToIndex()+"\"");
+                } else if (ins.length > 1) {
+                    pw.print(", \"src\":\"{");
+                    for(int i=0; i<ins.length; i++) {
+                        if (i>0)
+                            pw.print(", ");
+                        pw.print(""+ev.getEntity().getPath()+"/"+ins[0].getToIndex()+"\"");
+                    }
+                    pw.print("}\"");
+                }
+
+                ins = ev.getIncomingInteractions();
+                if (ins.length == 1) {
+                    Event srcEv = ins[0].getFromEvent();
+                    if (srcEv != null) {
+                        pw.print(", \"dst\":\""+srcEv.getEntity().getPath()+"/"+ins[0].getToIndex()+"\"");
+                    }
+                } else if (ins.length > 1) {
+                    pw.print(", \"dst\":\"{");
+                    for(int i=0; i<ins.length; i++) {
+                        if (i>0)
+                            pw.print(", ");
+                        pw.print(""+ev.getEntity().getPath()+"/"+ins[0].getToIndex()+"\"");
+                    }
+                    pw.print("}\"");
+                }
+                pw.println("}");
             }
+            pw.close();
+        } catch (IOException e) {
+            // TODO Auto-generated catch block
+            e.printStackTrace();
         }
-        return false;
     }
 
     String nodeToString(int n) {
         final StringBuilder sb = new StringBuilder();
         sb.append(n).append("(").append(dm.getEventAt(n).getEntity().getPath())
                 .append(")");
-        final I[] fr = fromNode[n];
-        if (fr != null) {
-            sb.append(", from=(");
-            for (final I fr1 : fr) {
-                sb.append(fr1);
-                sb.append(" ");
-            }
-            sb.append(") ");
-        }
-        final I[] to = toNode[n];
-        if (to != null) {
+        if (entityNext[n] != -1)
+            sb.append(", next=").append(entityNext[n]);
+        if (interOffsets[n] < interOffsets[n + 1]) {
             sb.append(", to=(");
-            for (final I to1 : to) {
-                sb.append(to1);
+            for (int k = interOffsets[n]; k < interOffsets[n + 1]; k++) {
+                sb.append(interTo[k]);
                 sb.append(" ");
             }
             sb.append(") ");
         }
+        sb.append(", inDegree=").append(inDegree[n]);
         return sb.toString();
     }
 
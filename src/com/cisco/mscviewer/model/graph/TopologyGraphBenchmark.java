@@ -0,0 +1,106 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.model.graph;
+
+import java.util.Random;
+
+/**
+ * Measures how construction and topological sorting of a
+ * {@link TopologyGraph} scale with the number of events.
+ *
+ * For each size, starting from the minimum and doubling up to the maximum,
+ * a synthetic model is generated from a fixed seed: events are spread over
+ * a number of entities, with timestamps roughly following their index, and
+ * there is one interaction every four events, between events close to
+ * each other. Interactions always go forward, so the graph has no loops.
+ * The time per event is reported for each size; it should stay roughly
+ * constant, growing only with the logarithm of the number of ready events.
+ *
+ * Sorting 50M events needs a heap of about 4GB (-Xmx4g).
+ *
+ * usage: TopologyGraphBenchmark [maxEvents [minEvents [entities]]]
+ */
+public class TopologyGraphBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int WARMUP_EVENTS = 100000;
+    /** maximum distance between the events of an interaction */
+    private static final int MAX_DISTANCE = 100;
+
+    private final long[] timestamps;
+    private final int[] entityIds;
+    private final int entityCount;
+    private final int[] from;
+    private final int[] to;
+
+    private TopologyGraphBenchmark(int numEvents, int numEntities) {
+        final Random rnd = new Random(42);
+        entityCount = numEntities;
+        timestamps = new long[numEvents];
+        entityIds = new int[numEvents];
+        for (int i = 0; i < numEvents; i++) {
+            timestamps[i] = i * 10L + rnd.nextInt(100);
+            entityIds[i] = rnd.nextInt(numEntities);
+        }
+        final int numInteractions = numEvents / 4;
+        from = new int[numInteractions];
+        to = new int[numInteractions];
+        for (int k = 0; k < numInteractions; k++) {
+            final int f = rnd.nextInt(numEvents - 1);
+            from[k] = f;
+            to[k] = Math.min(numEvents - 1, f + 1 + rnd.nextInt(MAX_DISTANCE));
+        }
+    }
+
+    /**
+     * builds and sorts the graph, returning the elapsed times in ns for
+     * the two phases in res[0] and res[1], and a value depending on the
+     * result.
+     */
+    private long run(long[] res) throws TopologyError {
+        final long t0 = System.nanoTime();
+        final TopologyGraph g = new TopologyGraph(timestamps, entityIds,
+                entityCount, from, to);
+        final long t1 = System.nanoTime();
+        final int[] sorted = g.topoSort();
+        final long t2 = System.nanoTime();
+        res[0] = t1 - t0;
+        res[1] = t2 - t1;
+        return sorted[sorted.length / 2];
+    }
+
+    public static void main(String args[]) throws TopologyError {
+        final int maxEvents = args.length > 0 ? Integer.parseInt(args[0])
+                : 50000000;
+        final int minEvents = args.length > 1 ? Integer.parseInt(args[1])
+                : 1000000;
+        final int numEntities = args.length > 2 ? Integer.parseInt(args[2])
+                : 1000;
+        long checksum = 0;
+        final long[] res = new long[2];
+        final TopologyGraphBenchmark warmup = new TopologyGraphBenchmark(
+                WARMUP_EVENTS, numEntities);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            checksum += warmup.run(res);
+        System.out.println(String.format("%12s %10s %10s %12s", "events",
+                "build ms", "sort ms", "ns/event"));
+        for (long n = minEvents; n <= maxEvents; n *= 2) {
+            final TopologyGraphBenchmark bm = new TopologyGraphBenchmark(
+                    (int) n, numEntities);
+            checksum += bm.run(res);
+            System.out.println(String.format("%12d %10.1f %10.1f %12.1f", n,
+                    res[0] / 1e6, res[1] / 1e6, (double) (res[0] + res[1])
+                            / n));
+            if (n < maxEvents && n * 2 > maxEvents)
+                n = maxEvents / 2;
+        }
+        System.out.println("checksum: " + checksum);
+    }
+}
@@ -22,6 +22,37 @@
  * While not yet supported, in the future we may allow multiple views (and hence
  * view models) for the same data model.
  *
+ * <h3>Locking</h3>
+ *
+ * The data model is guarded by a fair, reentrant read-write lock, available
+ * through {@link MSCDataModel#getReadLock()} and
+ * {@link MSCDataModel#getWriteLock()}:
+ * <ul>
+ * <li>methods adding or replacing entities, events, interactions and blocks,
+ * and {@link MSCDataModel#topoSort()}, acquire the write lock themselves.
+ * Loaders also hold it across a batch of lines, so that readers see the
+ * model change a batch at a time rather than one event at a time. While
+ * loading, and while following a file that is still being written, the
+ * events read so far are periodically published to listeners through
+ * {@link MSCDataModelListener#eventsAppended}.
+ * <li>single accessors don't lock. Code that needs a consistent view across
+ * several calls, like rendering or cursor movement, holds the read lock;
+ * readers don't block each other, only a writer.
+ * <li>the read lock can't be upgraded: a thread holding it must not call
+ * methods changing the model.
+ * <li>indices built on demand (interval indices, interaction adjacency,
+ * events of each entity) are built holding the read lock, then the model
+ * monitor.
+ * <li>attributes set on existing events (markers, notes, timestamp
+ * representations) are kept in concurrent maps, and don't need the lock.
+ * </ul>
+ *
+ * A {@link ViewModel} is read without locking, and changed holding its own
+ * monitor. The view model never calls into the data model while holding
+ * its monitor, so it can be changed by a thread holding the read lock. Event
+ * filters are evaluated outside of both, on the common fork-join pool, and
+ * must not acquire either lock.
+ *
  *
  * <ul>
  * <li> Data Model - this is the entire model
@@ -124,22 +124,9 @@ public class Python {
             }
             if (dw != null)
                 dw.destroy();
-            dw = new DirSetWatcher(dirs.toArray(new String[dirs.size()]));
-            dw.add(new Watcher() {
-                @Override
-                public void event(String parentPath, WatchEvent<?> ev) {
-                    final Path path = (Path) ev.context();
-                    final File file = new File(parentPath, path.toString());
-                    if ((!file.isDirectory())
-                            && path.toString().endsWith(".py")) {
-                        System.out.println("scripts Changed");
-                        scriptsChanged = true;
-                        for (final PythonChangeListener l : listeners)
-                            l.moduleChanged(file.getPath());
-                    }
-                }
-            });
-            dw.start();
+            // scripts don't change while a batch job runs
+            if (!Main.batchMode())
+                watchScripts(dirs);
 
             for (final String m : module2funcs.keySet()) {
                 final Object[] fnNames = ((PyList) interpreter
@@ -162,6 +149,28 @@ public class Python {
         }
     }
 
+    /**
+     * watches the script directories, so that changed scripts are reloaded.
+     */
+    private void watchScripts(ArrayList<String> dirs) {
+        dw = new DirSetWatcher(dirs.toArray(new String[dirs.size()]));
+        dw.add(new Watcher() {
+            @Override
+            public void event(String parentPath, WatchEvent<?> ev) {
+                final Path path = (Path) ev.context();
+                final File file = new File(parentPath, path.toString());
+                if ((!file.isDirectory())
+                        && path.toString().endsWith(".py")) {
+                    System.out.println("scripts Changed");
+                    scriptsChanged = true;
+                    for (final PythonChangeListener l : listeners)
+                        l.moduleChanged(file.getPath());
+                }
+            }
+        });
+        dw.start();
+    }
+
     public String[] getPackages() {
         final Set<String> s = module2funcs.keySet();
         return s.toArray(new String[s.size()]);
@@ -183,8 +192,10 @@ public class Python {
     }
 
     public void eval(final String cmd, final ScriptResult sc) {
-        if (Main.batchMode())
+        if (Main.batchMode()) {
             sc.setResult(interpreter.eval(cmd));
+            return;
+        }
         final SwingWorker<Object, Object> sw = new SwingWorker<Object, Object>() {
             @Override
             protected Object doInBackground() throws Exception {
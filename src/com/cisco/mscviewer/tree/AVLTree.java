@@ -13,6 +13,7 @@ package com.cisco.mscviewer.tree;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -26,10 +27,63 @@ import com.cisco.mscviewer.util.MSCViewerError;
 public class AVLTree  {
     protected AVLTreeNode root;
 
+    /**
+     * orders values by {@link Value#getValue()}.
+     */
+    public static final Comparator<Value> VALUE_ORDER = new Comparator<Value>() {
+        @Override
+        public int compare(Value v1, Value v2) {
+            final int k1 = v1.getValue();
+            final int k2 = v2.getValue();
+            return k1 < k2 ? -1 : (k1 == k2 ? 0 : 1);
+        }
+    };
+
     public AVLTree(String name) {
        
     }
 
+    /**
+     * creates a tree containing the specified values, which must be sorted
+     * by {@link Value#getValue()} (see {@link #VALUE_ORDER}). The tree is
+     * built balanced in linear time. As in {@link #add(Value)}, a value
+     * with the same key as the previous one is reported and dropped.
+     * 
+     * @param name
+     * @param sorted
+     */
+    public AVLTree(String name, Value[] sorted) {
+        this(name);
+        final Value[] vals = new Value[sorted.length];
+        int cnt = 0;
+        for (final Value v : sorted) {
+            if (cnt > 0) {
+                final int prev = vals[cnt - 1].getValue();
+                if (v.getValue() < prev)
+                    throw new IllegalArgumentException("Value " + v.getValue()
+                            + " follows " + prev + ", values are not sorted");
+                if (v.getValue() == prev) {
+                    System.err.println("Unexpected repeated value "
+                            + v.getValue());
+                    continue;
+                }
+            }
+            vals[cnt++] = v;
+        }
+        root = build(vals, 0, cnt - 1);
+    }
+
+    private AVLTreeNode build(Value[] vals, int lo, int hi) {
+        if (lo > hi)
+            return null;
+        final int mid = (lo + hi) >>> 1;
+        final AVLTreeNode tn = newNode(vals[mid]);
+        tn.left = build(vals, lo, mid - 1);
+        tn.right = build(vals, mid + 1, hi);
+        tn.childrenChanged();
+        return tn;
+    }
+
     public AVLTreeNode getRoot() {
         return root;
     }
@@ -147,6 +147,16 @@ public class AVLTreeNode {
         // Integer.MIN_VALUE, Integer.MAX_VALUE);
     }
 
+    /**
+     * recomputes the height of this node from the ones of its children.
+     * Invoked bottom-up when subtrees are attached to the node directly,
+     * without going through {@link #add(AVLTreeNode)}.
+     */
+    protected void childrenChanged() {
+        height = Math.max(left != null ? left.height : 0,
+                right != null ? right.height : 0) + 1;
+    }
+
     protected void balance() {
         int lh = left != null ? left.height : 0;
         int rh = right != null ? right.height : 0;
@@ -24,6 +24,17 @@ public class IntervalTree extends AVLTree {
         super(name);
     }
 
+    /**
+     * creates a tree containing the specified intervals, which must be
+     * sorted by end (see {@link AVLTree#AVLTree(String, Value[])}).
+     * 
+     * @param name
+     * @param sorted
+     */
+    public IntervalTree(String name, Interval[] sorted) {
+        super(name, sorted);
+    }
+
     public ArrayList<Interval> getIntervalsWithEndBound(int c) {
         final ArrayList<Interval> els = new ArrayList<Interval>();
         getIntervalsWithEndBound(c, els);
@@ -0,0 +1,220 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Microbenchmarks for {@link IntervalTree}: incremental inserts, bulk build,
+ * point queries and range queries, the latter also on a
+ * {@link StaticIntervalIndex}.
+ *
+ * Each benchmark runs a number of warmup iterations followed by measured
+ * iterations on the same data, generated from a fixed seed, and reports
+ * the average time per operation. Results of the operations are folded
+ * into a checksum, so that the JIT cannot drop them.
+ *
+ * usage: IntervalTreeBenchmark [intervals [queries [iterations]]]
+ */
+public class IntervalTreeBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MAX_START = 10000000;
+    private static final int MAX_LENGTH = 1000;
+
+    private static class Info implements Interval {
+        private final int start, end;
+
+        public Info(int s, int e) {
+            start = s;
+            end = e;
+        }
+
+        @Override
+        public int getStart() {
+            return start;
+        }
+
+        @Override
+        public int getEnd() {
+            return end;
+        }
+
+        @Override
+        public int getValue() {
+            return end;
+        }
+    }
+
+    private interface Benchmark {
+        /**
+         * runs one iteration and returns a value depending on its result.
+         */
+        long run();
+    }
+
+    private final Info[] intervals;
+    private final Info[] sorted;
+    private final int[] points;
+    private final int[] left;
+    private final int[] right;
+    private final IntervalTree tree;
+    private final StaticIntervalIndex index;
+    private long checksum;
+    private long visited;
+    private final IntervalVisitor counter = new IntervalVisitor() {
+        @Override
+        public boolean visit(Interval in) {
+            visited++;
+            return false;
+        }
+    };
+
+    private IntervalTreeBenchmark(int numIntervals, int numQueries) {
+        final Random rnd = new Random(42);
+        // interval ends must be unique, as they are the tree keys
+        final boolean[] used = new boolean[MAX_START + MAX_LENGTH];
+        intervals = new Info[numIntervals];
+        for (int i = 0; i < numIntervals; i++) {
+            int s, e;
+            do {
+                s = rnd.nextInt(MAX_START);
+                e = s + rnd.nextInt(MAX_LENGTH);
+            } while (used[e]);
+            used[e] = true;
+            intervals[i] = new Info(s, e);
+        }
+        sorted = intervals.clone();
+        Arrays.sort(sorted, AVLTree.VALUE_ORDER);
+        tree = new IntervalTree("benchmark", sorted);
+        index = new StaticIntervalIndex(tree);
+        points = new int[numQueries];
+        left = new int[numQueries];
+        right = new int[numQueries];
+        for (int i = 0; i < numQueries; i++) {
+            points[i] = rnd.nextInt(MAX_START);
+            left[i] = rnd.nextInt(MAX_START);
+            right[i] = left[i] + rnd.nextInt(MAX_LENGTH);
+        }
+    }
+
+    private long insert() {
+        final IntervalTree t = new IntervalTree("insert");
+        for (final Info in : intervals)
+            t.add(in);
+        return t.getRoot().getHeight();
+    }
+
+    private long bulkBuild() {
+        return new IntervalTree("bulk", sorted).getRoot().getHeight();
+    }
+
+    private long pointQuery() {
+        final ArrayList<Interval> al = new ArrayList<Interval>();
+        long res = 0;
+        for (final int p : points) {
+            al.clear();
+            tree.getContainingIntervals(p, al);
+            res += al.size();
+        }
+        return res;
+    }
+
+    private long rangeQuery() {
+        final ArrayList<Interval> al = new ArrayList<Interval>();
+        long res = 0;
+        for (int i = 0; i < left.length; i++) {
+            al.clear();
+            tree.getIntersectingIntervals(left[i], right[i], al);
+            res += al.size();
+        }
+        return res;
+    }
+
+    private long staticPointQuery() {
+        visited = 0;
+        for (final int p : points)
+            index.visitContaining(p, counter);
+        return visited;
+    }
+
+    private long staticRangeQuery() {
+        visited = 0;
+        for (int i = 0; i < left.length; i++)
+            index.visitIntersecting(left[i], right[i], counter);
+        return visited;
+    }
+
+    private void measure(String name, int opsPerIteration, int iterations,
+            Benchmark b) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            checksum += b.run();
+        final long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            checksum += b.run();
+        final long t1 = System.nanoTime();
+        final double nsPerOp = (double) (t1 - t0) / iterations
+                / opsPerIteration;
+        System.out.println(String.format("%-12s %12.1f ns/op", name,
+                nsPerOp));
+    }
+
+    public static void main(String args[]) {
+        final int numIntervals = args.length > 0 ? Integer.parseInt(args[0])
+                : 1000000;
+        final int numQueries = args.length > 1 ? Integer.parseInt(args[1])
+                : 100000;
+        final int iterations = args.length > 2 ? Integer.parseInt(args[2])
+                : 10;
+        final IntervalTreeBenchmark bm = new IntervalTreeBenchmark(
+                numIntervals, numQueries);
+        System.out.println(numIntervals + " intervals, " + numQueries
+                + " queries, " + iterations + " iterations");
+        bm.measure("insert", numIntervals, iterations, new Benchmark() {
+            @Override
+            public long run() {
+                return bm.insert();
+            }
+        });
+        bm.measure("bulkBuild", numIntervals, iterations, new Benchmark() {
+            @Override
+            public long run() {
+                return bm.bulkBuild();
+            }
+        });
+        bm.measure("pointQuery", numQueries, iterations, new Benchmark() {
+            @Override
+            public long run() {
+                return bm.pointQuery();
+            }
+        });
+        bm.measure("rangeQuery", numQueries, iterations, new Benchmark() {
+            @Override
+            public long run() {
+                return bm.rangeQuery();
+            }
+        });
+        bm.measure("staticPoint", numQueries, iterations, new Benchmark() {
+            @Override
+            public long run() {
+                return bm.staticPointQuery();
+            }
+        });
+        bm.measure("staticRange", numQueries, iterations, new Benchmark() {
+            @Override
+            public long run() {
+                return bm.staticRangeQuery();
+            }
+        });
+        System.out.println("checksum: " + bm.checksum);
+    }
+}
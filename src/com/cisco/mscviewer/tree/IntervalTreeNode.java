@@ -11,8 +11,6 @@
  */
 package com.cisco.mscviewer.tree;
 
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -60,28 +58,43 @@ public class IntervalTreeNode extends AVLTreeNode {
         fixMinStart();
     }
 
+    @Override
+    protected void childrenChanged() {
+        super.childrenChanged();
+        fixMinStart();
+    }
+
+    // a rotation only changes the children of this node and of the nodes
+    // it moves data into, so minStart is fixed for those, bottom-up.
+
     @Override
     protected void rotateLL() {
         super.rotateLL();
-        fixMinStartRecursive();
+        ((IntervalTreeNode) right).fixMinStart();
+        fixMinStart();
     }
 
     @Override
     protected void rotateLR() {
         super.rotateLR();
-        fixMinStartRecursive();
+        ((IntervalTreeNode) left).fixMinStart();
+        ((IntervalTreeNode) right).fixMinStart();
+        fixMinStart();
     }
 
     @Override
     protected void rotateRR() {
         super.rotateRR();
-        fixMinStartRecursive();
+        ((IntervalTreeNode) left).fixMinStart();
+        fixMinStart();
     }
 
     @Override
     protected void rotateRL() {
         super.rotateRL();
-        fixMinStartRecursive();
+        ((IntervalTreeNode) left).fixMinStart();
+        ((IntervalTreeNode) right).fixMinStart();
+        fixMinStart();
     }
 
     protected void getContainingIntervals(int c, ArrayList<Interval> ret) {
@@ -89,11 +102,14 @@ public class IntervalTreeNode extends AVLTreeNode {
         final Interval ite = (Interval) data;
         final int s = ite.getStart();
         final int e = ite.getEnd();
+        if (c < minStart)
+            return;
         if (c >= s && c <= e)
             al.add(ite);
-        if (left != null && c >= minStart && c <= e)
+        // intervals on the left end before e, the ones on the right after it
+        if (left != null && c <= e)
             ((IntervalTreeNode) left).getContainingIntervals(c, al);
-        if (right != null && c <= ((Interval) data).getEnd())
+        if (right != null)
             ((IntervalTreeNode) right).getContainingIntervals(c, al);
     }
 
@@ -199,104 +215,6 @@ public class IntervalTreeNode extends AVLTreeNode {
         return "[" + d.getStart() + "," + d.getEnd() + "]:" + minStart;
     }
 
-    public static void main(String args[]) {
-        class Info implements Interval {
-            private final int start, end;
-
-            @Override
-            public int getStart() {
-                return start;
-            }
-
-            @Override
-            public int getEnd() {
-                return end;
-            }
-
-            @Override
-            public int getValue() {
-                return getEnd();
-            }
-
-            public Info(int s, int e) {
-                start = s;
-                end = e;
-            }
-
-            @Override
-            public String toString() {
-                return "[" + start + "," + end + "]";
-            }
-        }
-
-        int l = (int) (Math.random() * 1000);
-        int r = (int) (Math.random() * 1000);
-        final IntervalTree t = new IntervalTree("test");
-        t.add(new Info(l, l + r));
-        long t1 = System.currentTimeMillis();
-        final int NUM_INTERVALS = 1000000;
-        final int NUM_POINT_QUERIES = 100000;
-        final int NUM_INT_QUERIES = 100000;
-        try {
-            final FileWriter fw = new FileWriter("c:/temp/x");
-            for (int i = 0; i < NUM_INTERVALS; i++) {
-                l = (int) (Math.random() * 10000000);
-                do {
-                    r = (int) (Math.random() * 1000);
-                } while (t.find(l + r) != null);
-                t.add(new Info(l, l + r));
-            }
-            long t2 = System.currentTimeMillis();
-            System.out.println(NUM_INTERVALS + " intervals populated in "
-                    + ((t2 - t1) / 1000.0) + "s");
-            // POINT QUERIES
-            final int[] points = new int[NUM_POINT_QUERIES];
-            ArrayList<?>[] z = new ArrayList<?>[NUM_POINT_QUERIES];
-            for (int i = 0; i < NUM_POINT_QUERIES; i++) {
-                points[i] = (int) (Math.random() * 10000000);
-            }
-            t1 = System.currentTimeMillis();
-            for (int i = 0; i < NUM_POINT_QUERIES; i++) {
-                z[i] = t.getContainingIntervals(points[i]);
-            }
-            t2 = System.currentTimeMillis();
-            System.out.println(NUM_POINT_QUERIES
-                    + " point-queries executed in " + ((t2 - t1) / 1000.0)
-                    + "s");
-            for (int i = 0; i < NUM_POINT_QUERIES; i++) {
-                fw.write(points[i] + ":\n");
-                for (int j = 0; j < z[i].size(); j++) {
-                    fw.write("\t" + z[i].get(j) + "\n");
-                }
-            }
-
-            // INTERVAL QUERIES
-            z = new ArrayList<?>[NUM_INT_QUERIES];
-            final int[] left = new int[NUM_INT_QUERIES];
-            final int[] right = new int[NUM_INT_QUERIES];
-            for (int i = 0; i < NUM_INT_QUERIES; i++) {
-                left[i] = (int) (Math.random() * 10000000);
-                right[i] = left[i] + (int) (Math.random() * 1000);
-            }
-            t1 = System.currentTimeMillis();
-            for (int i = 0; i < NUM_INT_QUERIES; i++) {
-                z[i] = t.getIntersectingIntervals(left[i], right[i]);
-            }
-            t2 = System.currentTimeMillis();
-            System.out.println(NUM_INT_QUERIES + " int-queries executed in "
-                    + ((t2 - t1) / 1000.0) + "s");
-            for (int i = 0; i < NUM_INT_QUERIES; i++) {
-                fw.write("[" + left[i] + "," + right[i] + "]:\n");
-                for (int j = 0; j < z[i].size(); j++) {
-                    fw.write("\t" + z[i].get(j) + "\n");
-                }
-            }
-            fw.close();
-        } catch (final IOException ex) {
-            System.out.println(ex);
-        }
-    }
-
     protected boolean pathToStart(int index, ArrayList<String> s) {
         final Interval ite = (Interval) data;
         boolean res = false;
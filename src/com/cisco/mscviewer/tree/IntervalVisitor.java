@@ -0,0 +1,22 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.tree;
+
+/**
+ * Callback receiving the results of a {@link StaticIntervalIndex} query.
+ */
+public interface IntervalVisitor {
+    /**
+     * invoked for each interval matching the query. Returning true stops
+     * the query.
+     */
+    public boolean visit(Interval in);
+}
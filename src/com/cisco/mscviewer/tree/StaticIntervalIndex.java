@@ -0,0 +1,176 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.tree;
+
+import java.util.ArrayList;
+
+/**
+ * An immutable index over a set of intervals, answering the same queries as
+ * an {@link IntervalTree}. It is meant to be built once the intervals are
+ * not going to change any longer, e.g. after a model has been loaded.
+ *
+ * Intervals are kept in arrays sorted by end, which is also the key of
+ * {@link IntervalTree}. The arrays are an implicit balanced tree: the root
+ * of the range [lo, hi] is at (lo + hi) / 2, and for each position the
+ * minimum start of its subtree is stored, as in the augmented tree.
+ *
+ * Queries report matching intervals to an {@link IntervalVisitor} in
+ * increasing order of end, and do not allocate memory.
+ */
+public final class StaticIntervalIndex {
+    private final int[] starts;
+    private final int[] ends;
+    private final Interval[] intervals;
+    /** minimum start of the subtree rooted at each position */
+    private final int[] minStarts;
+
+    /**
+     * builds an index containing the intervals currently in tree.
+     */
+    public StaticIntervalIndex(IntervalTree tree) {
+        this(toArray(tree));
+    }
+
+    /**
+     * builds an index containing the specified intervals, which must be
+     * sorted by end, without repeated ends.
+     */
+    public StaticIntervalIndex(Interval[] sorted) {
+        final int n = sorted.length;
+        starts = new int[n];
+        ends = new int[n];
+        minStarts = new int[n];
+        intervals = sorted.clone();
+        for (int i = 0; i < n; i++) {
+            starts[i] = sorted[i].getStart();
+            ends[i] = sorted[i].getEnd();
+            if (i > 0 && ends[i] <= ends[i - 1])
+                throw new IllegalArgumentException("Interval end " + ends[i]
+                        + " follows " + ends[i - 1]
+                        + ", intervals are not sorted");
+        }
+        computeMinStarts(0, n - 1);
+    }
+
+    private static Interval[] toArray(IntervalTree tree) {
+        final Interval[] res = new Interval[tree.count()];
+        tree.inorder(new Visitor() {
+            private int cnt;
+
+            @Override
+            public boolean visit(AVLTreeNode tn) {
+                res[cnt++] = (Interval) tn.getData();
+                return false;
+            }
+        });
+        return res;
+    }
+
+    private int computeMinStarts(int lo, int hi) {
+        if (lo > hi)
+            return Integer.MAX_VALUE;
+        final int mid = (lo + hi) >>> 1;
+        // as in IntervalTreeNode, negative starts are not considered
+        int min = starts[mid] >= 0 ? starts[mid] : Integer.MAX_VALUE;
+        min = Math.min(min, computeMinStarts(lo, mid - 1));
+        min = Math.min(min, computeMinStarts(mid + 1, hi));
+        minStarts[mid] = min;
+        return min;
+    }
+
+    /**
+     * returns the number of intervals in the index.
+     */
+    public int size() {
+        return intervals.length;
+    }
+
+    /**
+     * returns the i-th interval, in order of end.
+     */
+    public Interval get(int i) {
+        return intervals[i];
+    }
+
+    /**
+     * visits the intervals intersecting [start, end]. Returns true if the
+     * visitor stopped the query.
+     */
+    public boolean visitIntersecting(int start, int end, IntervalVisitor v) {
+        return query(0, intervals.length - 1, start, end, false, v);
+    }
+
+    /**
+     * visits the intervals containing c. Returns true if the visitor stopped
+     * the query.
+     */
+    public boolean visitContaining(int c, IntervalVisitor v) {
+        return query(0, intervals.length - 1, c, c, false, v);
+    }
+
+    /**
+     * visits the intervals starting at c. Returns true if the visitor
+     * stopped the query.
+     */
+    public boolean visitWithStartBound(int c, IntervalVisitor v) {
+        return query(0, intervals.length - 1, c, c, true, v);
+    }
+
+    /**
+     * visits the interval ending at c, if any. Returns true if the visitor
+     * stopped the query.
+     */
+    public boolean visitWithEndBound(int c, IntervalVisitor v) {
+        int lo = 0;
+        int hi = intervals.length - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (ends[mid] < c)
+                lo = mid + 1;
+            else if (ends[mid] > c)
+                hi = mid - 1;
+            else
+                return v.visit(intervals[mid]);
+        }
+        return false;
+    }
+
+    private boolean query(int lo, int hi, int start, int end,
+            boolean startBound, IntervalVisitor v) {
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (end < minStarts[mid])
+                return false;
+            // intervals on the left end before the one at mid, so they can
+            // only match if the last of them ends at or after start
+            if (lo < mid && start <= ends[mid - 1]
+                    && query(lo, mid - 1, start, end, startBound, v))
+                return true;
+            final boolean match = startBound ? starts[mid] == start
+                    : start <= ends[mid] && end >= starts[mid];
+            if (match && v.visit(intervals[mid]))
+                return true;
+            lo = mid + 1;
+        }
+        return false;
+    }
+
+    public void getIntersectingIntervals(int start, int end,
+            final ArrayList<Interval> ret) {
+        visitIntersecting(start, end, new IntervalVisitor() {
+            @Override
+            public boolean visit(Interval in) {
+                ret.add(in);
+                return false;
+            }
+        });
+    }
+}
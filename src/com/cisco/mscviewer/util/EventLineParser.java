@@ -0,0 +1,491 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.util;
+
+import com.cisco.mscviewer.io.JSonException;
+import com.cisco.mscviewer.model.JSonObject;
+import com.cisco.mscviewer.model.JSonStringValue;
+import com.cisco.mscviewer.model.JSonValue;
+
+/**
+ * Streaming parser for the JSon object of an event line.
+ *
+ * The keys the loader needs (entity, time, label, type, block, src, dst,
+ * push_source and pop_source) are extracted into fields while scanning the
+ * text once; all other values are only checked for syntax and skipped,
+ * without allocating anything. The full object, which is passed to the
+ * event renderer and holds the event data, is returned by
+ * {@link #getProps()} as a lazy {@link JSonObject}, parsed only if some of
+ * its fields is actually accessed.
+ *
+ * The accepted syntax is the same of {@link JSonParser}.
+ */
+public final class EventLineParser {
+    private static final String KEY_ENTITY = "entity";
+    private static final String KEY_LABEL = "label";
+    private static final String KEY_TYPE = "type";
+    private static final String KEY_BLOCK = "block";
+    private static final String KEY_TIME = "time";
+    private static final String KEY_SRC = "src";
+    private static final String KEY_DST = "dst";
+    private static final String KEY_PUSH_SOURCE = "push_source";
+    private static final String KEY_POP_SOURCE = "pop_source";
+    private static final String KEY_DATA = "data";
+
+    private final String str;
+    private final String file;
+    private final int lineNum;
+    private int pos;
+    private boolean escaped;
+
+    private String entity;
+    private String label;
+    private String type;
+    private String block;
+    private String time;
+    private long numericTime;
+    private boolean hasNumericTime;
+    private JSonValue source;
+    private JSonValue sink;
+    private boolean pushSource;
+    private boolean popSource;
+    private boolean hasData;
+    private JSonObject props;
+
+    /**
+     * parses str, which must start with a JSon object. Text following the
+     * object is ignored.
+     */
+    public EventLineParser(String str, String file, int lineNum)
+            throws JSonException {
+        this.str = str;
+        this.file = file;
+        this.lineNum = lineNum;
+        try {
+            parseObject();
+        } catch (final StringIndexOutOfBoundsException ex) {
+            throw new JSonException(file, lineNum, pos, str,
+                    "Unexpected end-of-line");
+        }
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || (c > 127 && Character.isSpaceChar(c));
+    }
+
+    private void skipSpaces() {
+        while (isSpace(str.charAt(pos)))
+            pos++;
+    }
+
+    private void expect(char ch) throws JSonException {
+        skipSpaces();
+        if (str.charAt(pos) != ch) {
+            throw new JSonException(file, lineNum, pos, str, "Expecting '"
+                    + ch + "', found '" + str.charAt(pos) + "'");
+        }
+        pos++;
+    }
+
+    private char expectOneOf(String exp) throws JSonException {
+        skipSpaces();
+        final char c = str.charAt(pos);
+        if (exp.indexOf(c) == -1) {
+            throw new JSonException(file, lineNum, pos, str,
+                    "Expecting one of '" + exp + "', found '" + c + "'");
+        }
+        pos++;
+        return c;
+    }
+
+    /**
+     * skips a string whose opening quote has already been consumed, and
+     * returns the position of the closing quote. escaped is set if the
+     * string contains escape sequences.
+     */
+    private int scanString() throws JSonException {
+        while (true) {
+            final char c = str.charAt(pos++);
+            if (c == '"')
+                return pos - 1;
+            if (c == '\\') {
+                escaped = true;
+                switch (str.charAt(pos)) {
+                case '"':
+                case '\\':
+                case '/':
+                case 'b':
+                case 'n':
+                case 'r':
+                case 't':
+                    pos++;
+                    break;
+                case 'u':
+                    Integer.parseInt(str.substring(pos + 2, pos + 6), 16);
+                    pos += 6;
+                    break;
+                default:
+                    throw new JSonException(file, lineNum, pos, str,
+                            "Invalid escape sequence");
+                }
+            }
+        }
+    }
+
+    private void skipNumber() throws JSonException {
+        if (str.charAt(pos) == '-')
+            pos++;
+        if (str.charAt(pos) != '0') {
+            while (Character.isDigit(str.charAt(pos)))
+                pos++;
+        } else
+            pos++;
+        switch (expectOneOf(".eE, \t\n}]")) {
+        case '.':
+            while (Character.isDigit(str.charAt(pos)))
+                pos++;
+            break;
+        case 'e':
+        case 'E':
+            if (str.charAt(pos) == '-' || str.charAt(pos) == '+')
+                pos++;
+            while (Character.isDigit(str.charAt(pos)))
+                pos++;
+            break;
+        default:
+            pos--;
+        }
+    }
+
+    private void skipArray() throws JSonException {
+        expect('[');
+        skipSpaces();
+        if (str.charAt(pos) == ']') {
+            pos++;
+            return;
+        }
+        boolean empty = true;
+        while (true) {
+            try {
+                skipValue();
+                empty = false;
+                if (expectOneOf(",]") == ']')
+                    return;
+            } catch (final JSonException ex) {
+                if (empty && str.charAt(pos) == ']')
+                    return;
+                throw ex;
+            }
+        }
+    }
+
+    private void skipObject() throws JSonException {
+        expect('{');
+        skipSpaces();
+        if (str.charAt(pos) == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            expect('"');
+            scanString();
+            expect(':');
+            skipValue();
+            if (expectOneOf(",}") == '}')
+                return;
+        }
+    }
+
+    /**
+     * skips a value. returns false if the value is null.
+     */
+    private boolean skipValue() throws JSonException {
+        skipSpaces();
+        final char c = str.charAt(pos);
+        switch (c) {
+        case '"':
+            pos++;
+            scanString();
+            return true;
+        case '{':
+            skipObject();
+            return true;
+        case '[':
+            skipArray();
+            return true;
+        default:
+            if (Character.isDigit(c) || c == '-') {
+                skipNumber();
+                return true;
+            } else if (str.startsWith("true", pos)) {
+                pos += 4;
+                return true;
+            } else if (str.startsWith("false", pos)) {
+                pos += 5;
+                return true;
+            } else if (str.startsWith("null", pos)) {
+                pos += 4;
+                return false;
+            }
+            throw new JSonException(file, lineNum, pos, str,
+                    "Unexpected character '" + c + "' while parsing value");
+        }
+    }
+
+    /**
+     * parses the value at the current position with {@link JSonParser}.
+     * Used for the uncommon cases the scanner doesn't handle itself.
+     */
+    private JSonValue parseValue() throws JSonException {
+        final MutableInteger mi = new MutableInteger(pos);
+        final JSonValue v = JSonParser.parseValue(str, file, lineNum, mi);
+        pos = mi.v;
+        return v;
+    }
+
+    /**
+     * returns the value at the current position as a String, or null if
+     * the value is null.
+     */
+    private String stringValue() throws JSonException {
+        skipSpaces();
+        if (str.charAt(pos) == '"') {
+            final int start = pos;
+            pos++;
+            escaped = false;
+            final int end = scanString();
+            if (!escaped)
+                return str.substring(start + 1, end);
+            pos = start;
+        }
+        final JSonValue v = parseValue();
+        return v == null ? null : v.toString();
+    }
+
+    private JSonValue jsonValue() throws JSonException {
+        skipSpaces();
+        if (str.charAt(pos) == '"') {
+            final int start = pos;
+            pos++;
+            escaped = false;
+            final int end = scanString();
+            if (!escaped)
+                return new JSonStringValue(str.substring(start + 1, end));
+            pos = start;
+        }
+        return parseValue();
+    }
+
+    /**
+     * parses the time value at the current position. Plain decimal values,
+     * optionally followed by one of the "ns", "us", "ms", "s" unit
+     * specifiers, are converted to nanoseconds directly; anything else is
+     * kept as a string.
+     */
+    private void timeValue() throws JSonException {
+        hasNumericTime = false;
+        skipSpaces();
+        if (str.charAt(pos) == '"') {
+            final int start = pos + 1;
+            pos++;
+            escaped = false;
+            final int end = scanString();
+            if (!escaped) {
+                int e = end;
+                long mult = 1;
+                if (e > start && str.charAt(e - 1) == 's') {
+                    e--;
+                    final char pre = e > start ? str.charAt(e - 1) : 0;
+                    switch (pre) {
+                    case 'n':
+                        e--;
+                        break;
+                    case 'u':
+                        e--;
+                        mult = 1000;
+                        break;
+                    case 'm':
+                        e--;
+                        mult = 1000000;
+                        break;
+                    default:
+                        mult = 1000000000;
+                    }
+                }
+                if (e > start && e - start <= 18) {
+                    long v = 0;
+                    int i;
+                    for (i = start; i < e; i++) {
+                        final char c = str.charAt(i);
+                        if (c < '0' || c > '9')
+                            break;
+                        v = v * 10 + (c - '0');
+                    }
+                    if (i == e) {
+                        numericTime = v * mult;
+                        hasNumericTime = true;
+                        time = null;
+                        return;
+                    }
+                }
+            }
+            pos = start - 1;
+        }
+        time = stringValue();
+    }
+
+    private boolean keyIs(int start, int end, String key, String k) {
+        if (key != null)
+            return key.equals(k);
+        return end - start == k.length() && str.regionMatches(start, k, 0, k.length());
+    }
+
+    private void parseObject() throws JSonException {
+        expect('{');
+        skipSpaces();
+        if (str.charAt(pos) == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            expect('"');
+            final int start = pos;
+            escaped = false;
+            final int end = scanString();
+            String key = null;
+            if (escaped) {
+                pos = start - 1;
+                key = parseValue().toString();
+            }
+            expect(':');
+            if (keyIs(start, end, key, KEY_ENTITY))
+                entity = stringValue();
+            else if (keyIs(start, end, key, KEY_LABEL))
+                label = stringValue();
+            else if (keyIs(start, end, key, KEY_TIME))
+                timeValue();
+            else if (keyIs(start, end, key, KEY_TYPE))
+                type = stringValue();
+            else if (keyIs(start, end, key, KEY_SRC))
+                source = jsonValue();
+            else if (keyIs(start, end, key, KEY_DST))
+                sink = jsonValue();
+            else if (keyIs(start, end, key, KEY_BLOCK))
+                block = stringValue();
+            else if (keyIs(start, end, key, KEY_PUSH_SOURCE))
+                pushSource = skipValue();
+            else if (keyIs(start, end, key, KEY_POP_SOURCE))
+                popSource = skipValue();
+            else if (keyIs(start, end, key, KEY_DATA))
+                hasData = skipValue();
+            else
+                skipValue();
+            if (expectOneOf(",}") == '}')
+                return;
+        }
+    }
+
+    /**
+     * returns the value of the "entity" key, or null if missing.
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    /**
+     * returns the value of the "label" key, or null if missing.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * returns the value of the "type" key, or null if missing.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * returns the value of the "block" key, or null if missing.
+     */
+    public String getBlock() {
+        return block;
+    }
+
+    /**
+     * returns true if the "time" key is a decimal number with an optional
+     * unit specifier. In this case the time is returned by
+     * {@link #getNumericTime()}, otherwise by {@link #getTime()}.
+     */
+    public boolean hasNumericTime() {
+        return hasNumericTime;
+    }
+
+    /**
+     * returns the value of the "time" key in nanoseconds.
+     */
+    public long getNumericTime() {
+        return numericTime;
+    }
+
+    /**
+     * returns the value of the "time" key as a string, or null if missing or
+     * numeric.
+     */
+    public String getTime() {
+        return time;
+    }
+
+    /**
+     * returns the value of the "src" key, or null if missing.
+     */
+    public JSonValue getSource() {
+        return source;
+    }
+
+    /**
+     * returns the value of the "dst" key, or null if missing.
+     */
+    public JSonValue getSink() {
+        return sink;
+    }
+
+    /**
+     * returns true if the "push_source" key is present and not null.
+     */
+    public boolean isPushSource() {
+        return pushSource;
+    }
+
+    /**
+     * returns true if the "pop_source" key is present and not null.
+     */
+    public boolean isPopSource() {
+        return popSource;
+    }
+
+    /**
+     * returns true if the "data" key is present and not null.
+     */
+    public boolean hasData() {
+        return hasData;
+    }
+
+    /**
+     * returns the whole JSon object, parsed only when first accessed.
+     */
+    public JSonObject getProps() {
+        if (props == null)
+            props = JSonObject.lazy(str);
+        return props;
+    }
+}
@@ -0,0 +1,78 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @since  Oct 2026
+ */
+package com.cisco.mscviewer.util;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import com.cisco.mscviewer.io.JSonException;
+import com.cisco.mscviewer.model.JSonObject;
+
+/**
+ * Compares the time taken to parse the event lines of a file with
+ * {@link JSonParser} and with {@link EventLineParser}.
+ *
+ * The JSon payloads of the event lines are read in memory, then parsed by
+ * both parsers {@link #NUM_ITERATIONS} times; the first half of the
+ * iterations are warm-up, and the time per line of the others is
+ * reported.
+ *
+ * usage: EventLineParserBenchmark [file], by default examples/openstack.msc
+ */
+public class EventLineParserBenchmark {
+    private static final int NUM_ITERATIONS = 60;
+
+    public static void main(String args[]) throws IOException, JSonException {
+        final String fname = args.length > 0 ? args[0] : "examples/openstack.msc";
+        final ArrayList<String> payloads = new ArrayList<String>();
+        final BufferedReader br = new BufferedReader(new FileReader(fname));
+        String line;
+        while ((line = br.readLine()) != null) {
+            int idx = line.indexOf("@msc_event");
+            if (idx >= 0) {
+                payloads.add(line.substring(idx + "@msc_event".length() + 1));
+            } else if ((idx = line.indexOf("@event")) >= 0) {
+                payloads.add(line.substring(idx + "@event".length() + 1));
+            }
+        }
+        br.close();
+        System.out.println(payloads.size() + " event lines in " + fname);
+        long sink = 0;
+        for (int it = 0; it < NUM_ITERATIONS; it++) {
+            // collect the garbage of the previous run outside of the
+            // measured intervals
+            System.gc();
+            final long t1 = System.nanoTime();
+            for (final String p : payloads) {
+                final JSonObject jo = JSonParser.parseObject(p, fname, 0);
+                sink += jo.get("entity").toString().length();
+            }
+            final long t2 = System.nanoTime();
+            System.gc();
+            final long t3 = System.nanoTime();
+            for (final String p : payloads) {
+                final EventLineParser ep = new EventLineParser(p, fname, 0);
+                sink += ep.getEntity().length();
+            }
+            final long t4 = System.nanoTime();
+            if (it >= NUM_ITERATIONS / 2) {
+                System.out.println("JSonParser: "
+                        + (t2 - t1) / payloads.size() + " ns/line, "
+                        + "EventLineParser: " + (t4 - t3) / payloads.size()
+                        + " ns/line");
+            }
+        }
+        // printed so that the parsing isn't optimized away
+        System.out.println("(" + sink + ")");
+    }
+}
@@ -22,15 +22,6 @@ import com.cisco.mscviewer.model.JSonObject;
 import com.cisco.mscviewer.model.JSonStringValue;
 import com.cisco.mscviewer.model.JSonValue;
 
-class MutableInteger {
-
-    int v;
-
-    MutableInteger(int a) {
-        v = a;
-    }
-}
-
 /**
  *
  * @author rattias
@@ -225,7 +216,7 @@ public class JSonParser {
         }
     }
 
-    private static JSonValue parseValue(String str, String file, int lineNum,
+    static JSonValue parseValue(String str, String file, int lineNum,
             MutableInteger pos) throws JSonException {
         while (Character.isSpaceChar(str.charAt(pos.v))) {
             pos.v++;
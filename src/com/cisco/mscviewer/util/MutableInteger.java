@@ -0,0 +1,25 @@
+/*------------------------------------------------------------------
+ * Copyright (c) 2014 Cisco Systems
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *------------------------------------------------------------------*/
+/**
+ * @author Roberto Attias
+ * @since  Aug 2014
+ */
+package com.cisco.mscviewer.util;
+
+/**
+ * An int passed by reference, e.g. the position of a parser in the text it
+ * is parsing.
+ */
+class MutableInteger {
+
+    int v;
+
+    MutableInteger(int a) {
+        v = a;
+    }
+}
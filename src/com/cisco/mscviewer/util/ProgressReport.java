@@ -22,6 +22,8 @@ import java.awt.ScrollPane;
 import java.awt.event.FocusAdapter;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseMotionAdapter;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 
 import javax.swing.JComponent;
@@ -74,7 +76,9 @@ class GPane extends JComponent {
  */
 public class ProgressReport {
     private static ArrayList<JDialog> dialogs = new ArrayList<JDialog>();
-    private static final GPane gpane = new GPane();    private JPanel innerPane;
+    /** created on first use, so that batch mode doesn't touch Swing */
+    private static GPane gpane;
+    private JPanel innerPane;
     private JLabel msgLabel;
     private boolean shouldShow;
     private ProgressReport parent;
@@ -91,6 +95,7 @@ public class ProgressReport {
     private JProgressBar progressBar;
     private boolean done = false;
     private int oldPerc = 0;
+    private volatile boolean cancelled = false;
     
     public ProgressReport(final String activity, final String msg) {
         this(activity, msg, -1, -1);
@@ -164,8 +169,8 @@ public class ProgressReport {
                         dialog.setVisible(false);
                         final MainFrame mf = MainFrame.getInstance();
                         if (mf != null && dialogs.isEmpty()) {
-                            mf.setGlassPane(gpane);
-                            gpane.setVisible(false);
+                            mf.setGlassPane(glassPane());
+                            glassPane().setVisible(false);
                         }
                         dialog = null;
                         return;
@@ -196,14 +201,21 @@ public class ProgressReport {
                     synchronized(dialogs) {
                         dialogs.add(dialog);
                     }
-                    dialog.setContentPane(
-                            new JOptionPane(
-                                    new Object[]{panel},
-                                    JOptionPane.PLAIN_MESSAGE,
-                                    JOptionPane.DEFAULT_OPTION, null,
-                                    new String[] { "Cancel" }
-                                    )
+                    final JOptionPane opt = new JOptionPane(
+                            new Object[]{panel},
+                            JOptionPane.PLAIN_MESSAGE,
+                            JOptionPane.DEFAULT_OPTION, null,
+                            new String[] { "Cancel" }
                             );
+                    opt.addPropertyChangeListener(JOptionPane.VALUE_PROPERTY,
+                            new PropertyChangeListener() {
+                                @Override
+                                public void propertyChange(PropertyChangeEvent evt) {
+                                    if ("Cancel".equals(evt.getNewValue()))
+                                        cancel();
+                                }
+                            });
+                    dialog.setContentPane(opt);
                     dialog.pack();
                     final JFrame f = MainFrame.getInstance();
                     if (f != null) {
@@ -214,8 +226,8 @@ public class ProgressReport {
                     }
                     final MainFrame mf = MainFrame.getInstance();
                     if (mf != null) {
-                        mf.setGlassPane(gpane);
-                        gpane.setVisible(true);
+                        mf.setGlassPane(glassPane());
+                        glassPane().setVisible(true);
                     }
                     dialog.setVisible(true);
                 } else {
@@ -268,6 +280,51 @@ public class ProgressReport {
         SwingUtilities.invokeLater(() -> progressBar.setValue(perc));
     }
 
+    /**
+     * lets the user interact with the main frame while the activity goes
+     * on, removing the translucent pane covering it. Used by activities
+     * showing partial results, like a progressive load.
+     */
+    public void releaseInput() {
+        if (Main.batchMode())
+            return;
+        SwingUtilities.invokeLater(() -> glassPane().setVisible(false));
+    }
+
+    /**
+     * returns the translucent pane covering the main frame while an
+     * activity goes on. Must be called from the EDT.
+     */
+    private static GPane glassPane() {
+        if (gpane == null)
+            gpane = new GPane();
+        return gpane;
+    }
+
+    /**
+     * requests the activity to stop. This applies to the whole tree of
+     * reports this one belongs to. Activities supporting cancellation
+     * check {@link #isCancelled()} periodically.
+     */
+    public void cancel() {
+        root().cancelled = true;
+    }
+
+    /**
+     * returns true if the activity was cancelled, either programmatically
+     * or through the Cancel button of the progress dialog.
+     */
+    public boolean isCancelled() {
+        return root().cancelled;
+    }
+
+    private ProgressReport root() {
+        ProgressReport p = this;
+        while (p.parent != null)
+            p = p.parent;
+        return p;
+    }
+
     public int getProgress() {
         if (progressBar != null)
             return progressBar.getValue();
@@ -371,6 +428,8 @@ public class ProgressReport {
     }
 
     public static void cleanup() {
+        if (Main.batchMode())
+            return;
         synchronized(dialogs) {
             for(JDialog dialog: dialogs) {         
                 dialog.setVisible(false);
@@ -378,8 +437,8 @@ public class ProgressReport {
         }
         final MainFrame mf = MainFrame.getInstance();
         if (mf != null) {
-            mf.setGlassPane(gpane);
-            gpane.setVisible(false);
+            mf.setGlassPane(glassPane());
+            glassPane().setVisible(false);
         }
     }
 }
@@ -26,6 +26,7 @@ import javax.imageio.ImageIO;
 import javax.swing.JFileChooser;
 import javax.swing.SwingUtilities;
 
+import com.cisco.mscviewer.Main;
 import com.cisco.mscviewer.gui.MainFrame;
 
 public class Utils {
@@ -60,8 +61,12 @@ public class Utils {
         }
     }
 
+    /**
+     * runs r on the event dispatch thread, waiting for it to complete. In
+     * batch mode there is no GUI, and r runs on the calling thread.
+     */
     public static void dispatchOnAWTThreadNow(Runnable r) {
-        if (SwingUtilities.isEventDispatchThread())
+        if (Main.batchMode() || SwingUtilities.isEventDispatchThread())
             r.run();
         else
             try {
@@ -75,8 +80,12 @@ public class Utils {
             }
     }
 
+    /**
+     * runs r on the event dispatch thread, immediately if called from it.
+     * In batch mode there is no GUI, and r runs on the calling thread.
+     */
     public static void dispatchOnAWTThreadLater(Runnable r) {
-        if (SwingUtilities.isEventDispatchThread()) {
+        if (Main.batchMode() || SwingUtilities.isEventDispatchThread()) {
             r.run();
         } else {
             SwingUtilities.invokeLater(r);